@@ -0,0 +1,5 @@
+#!/bin/bash
+# Runs once when the primary's data volume is initialized:
+# lets the postgres-replica service stream WAL from this instance.
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
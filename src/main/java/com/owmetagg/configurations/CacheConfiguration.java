@@ -14,6 +14,7 @@ public class CacheConfiguration {
     public CacheManager cacheManager() {
         return new ConcurrentMapCacheManager(
             "heroStatistics",
+            "bracketedHeroStatistics",
             "heroWinRates", 
             "heroPickRates",
             "rankDistribution",
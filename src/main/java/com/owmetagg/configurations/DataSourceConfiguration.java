@@ -0,0 +1,137 @@
+package com.owmetagg.configurations;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * Primary/replica DataSource setup.
+ *
+ * The primary pool is built from the regular spring.datasource settings. When
+ * app.datasource.replica.enabled is true, a second pool points at the replica and the
+ * application DataSource becomes a LazyConnectionDataSourceProxy: connections of
+ * read-only transactions (@Transactional(readOnly = true)) are taken from the replica,
+ * everything else (ingest upserts, view refreshes, Flyway) from the primary.
+ * The physical connection is only fetched on the first statement, after the transaction
+ * has declared itself read-only.
+ *
+ * Ingest (RabbitMQ listeners) and statistics recompute get their own pools, JdbcTemplates and
+ * transaction managers against the primary, so a long recompute or a burst of upserts can
+ * only exhaust its own connections and never the ones serving API reads.
+ */
+@Slf4j
+@Configuration
+public class DataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") HikariDataSource replicaDataSource) {
+        return new ReplicaLagMonitor(replicaDataSource);
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.ingest.hikari")
+    public HikariDataSource ingestDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.statistics.hikari")
+    public HikariDataSource statisticsDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") ObjectProvider<HikariDataSource> replicaDataSource,
+                                 ObjectProvider<ReplicaLagMonitor> replicaLagMonitor) {
+        HikariDataSource replica = replicaDataSource.getIfAvailable();
+        if (replica == null) {
+            log.info("🗄️ Read replica disabled, all queries use {}", primaryDataSource.getPoolName());
+            return primaryDataSource;
+        }
+
+        log.info("🗄️ Read replica enabled: read-only transactions use {}, writes use {}",
+                replica.getPoolName(), primaryDataSource.getPoolName());
+
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+        proxy.setReadOnlyDataSource(
+                new ReplicaFallbackDataSource(primaryDataSource, replica, replicaLagMonitor.getObject()));
+        return proxy;
+    }
+
+    // Declaring extra JdbcTemplates / transaction managers switches off Boot's defaults,
+    // so the API ones are declared here as @Primary
+
+    @Bean
+    @Primary
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    @Primary
+    public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+
+    // Reads that must see the latest commit, whether or not they run in a read-only transaction
+    @Bean
+    public JdbcTemplate primaryJdbcTemplate(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource) {
+        return new JdbcTemplate(primaryDataSource);
+    }
+
+    @Bean
+    public JdbcTemplate ingestJdbcTemplate(@Qualifier("ingestDataSource") HikariDataSource ingestDataSource) {
+        return new JdbcTemplate(ingestDataSource);
+    }
+
+    @Bean
+    public PlatformTransactionManager ingestTransactionManager(
+            @Qualifier("ingestDataSource") HikariDataSource ingestDataSource) {
+        return new DataSourceTransactionManager(ingestDataSource);
+    }
+
+    @Bean
+    public JdbcTemplate statisticsJdbcTemplate(
+            @Qualifier("statisticsDataSource") HikariDataSource statisticsDataSource) {
+        return new JdbcTemplate(statisticsDataSource);
+    }
+
+    @Bean
+    public PlatformTransactionManager statisticsTransactionManager(
+            @Qualifier("statisticsDataSource") HikariDataSource statisticsDataSource) {
+        return new DataSourceTransactionManager(statisticsDataSource);
+    }
+}
@@ -0,0 +1,107 @@
+package com.owmetagg.configurations;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * One executor per background workload, each with its own size and queue bound, so ingest
+ * and statistics work can never borrow API request threads (Tomcat) or each other's.
+ *
+ * Saturation is visible through Boot's executor metrics (executor.active, executor.queued,
+ * executor.pool.size, tagged name=bean name) plus executor.rejected from here.
+ * Full queues push back on ingestion only: fetch batches are refused with a 503 and
+ * listener threads are capped, so unconsumed messages wait in RabbitMQ.
+ *
+ * With spring.threads.virtual.enabled the workers are virtual threads. Pool and queue
+ * sizes stay as they are: they bound the work in flight, not the threads available.
+ */
+@Slf4j
+@Configuration
+public class ExecutorConfiguration {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean virtualThreads;
+
+    public ExecutorConfiguration(MeterRegistry meterRegistry,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.meterRegistry = meterRegistry;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Statistics recompute (@Async event listener). Each recompute covers all data, so a
+     * single worker runs them one at a time; once one is waiting further triggers are
+     * dropped rather than queued.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor statisticsExecutor(
+            @Value("${app.executors.statistics.queue-capacity:1}") int queueCapacity) {
+        return buildExecutor("statisticsExecutor", "stats-", 1, 1, queueCapacity,
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * OverFast fetch batches. A single worker since the API rate limit is global;
+     * when the queue is full callers get a TaskRejectedException.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor ingestFetchExecutor(
+            @Value("${app.executors.ingest-fetch.pool-size:1}") int poolSize,
+            @Value("${app.executors.ingest-fetch.queue-capacity:50}") int queueCapacity) {
+        return buildExecutor("ingestFetchExecutor", "fetch-", poolSize, poolSize, queueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Threads for the player data consumers (RabbitMQConfig), capped at the max consumer
+     * count so that a burst of messages backs up in the queue instead of in the application.
+     * No queue: each consumer holds a thread for as long as it runs.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor ingestListenerExecutor(
+            @Value("${rabbitmq.concurrency:5-10}") String listenerConcurrency) {
+        int maxConsumers = RabbitMQConfig.maxConcurrentConsumers(listenerConcurrency);
+        return buildExecutor("ingestListenerExecutor", "ingest-", maxConsumers, maxConsumers, 0,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private ThreadPoolTaskExecutor buildExecutor(String name, String threadNamePrefix,
+                                                 int corePoolSize, int maxPoolSize, int queueCapacity,
+                                                 RejectedExecutionHandler rejectionPolicy) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setVirtualThreads(virtualThreads);
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(Math.max(corePoolSize, maxPoolSize));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(countingRejections(name, rejectionPolicy));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+
+        log.info("🧵 Executor {}: core={}, max={}, queue={}, virtual={}",
+                name, corePoolSize, maxPoolSize, queueCapacity, virtualThreads);
+        return executor;
+    }
+
+    private RejectedExecutionHandler countingRejections(String name, RejectedExecutionHandler delegate) {
+        Counter rejected = Counter.builder("executor.rejected")
+                .description("Tasks refused because the executor queue was full")
+                .tag("name", name)
+                .register(meterRegistry);
+
+        return (task, executor) -> {
+            rejected.increment();
+            log.warn("⚠️ {} saturated ({} active, {} queued), rejecting task",
+                    name, executor.getActiveCount(), executor.getQueue().size());
+            delegate.rejectedExecution(task, executor);
+        };
+    }
+}
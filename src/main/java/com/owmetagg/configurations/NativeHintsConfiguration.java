@@ -0,0 +1,61 @@
+package com.owmetagg.configurations;
+
+import ch.qos.logback.classic.AsyncAppender;
+import com.owmetagg.configurations.NativeHintsConfiguration.ApplicationRuntimeHints;
+import com.owmetagg.dtos.*;
+import com.owmetagg.models.Hero;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Reachability metadata for the native image (mvn -Pnative). Only needed where AOT cannot
+ * see the types from controller signatures.
+ *
+ * Jackson binding: DTOs that reach JSON inside Map<String, Object> responses (meta report),
+ * DTOs and messages read or written outside controllers (statistics responses serialized by
+ * StatisticsResponseCache, OverFast heroes, player ingest messages through
+ * PlayerIngestMessageConverter and its Jackson fallback). Lombok generates
+ * plain getters, setters and constructors, which the binding hints cover.
+ *
+ * JdbcTemplate row mappers need nothing: they are lambdas and RowMapper classes created with
+ * new, reading columns by name. Logback's AsyncAppender and the ECS encoder of the json-logs
+ * profile are created from logback-spring.xml by class name.
+ */
+@Configuration
+@ImportRuntimeHints(ApplicationRuntimeHints.class)
+@RegisterReflectionForBinding({
+        HeroStatsDTO.class,
+        HeroSummaryDTO.class,
+        HeroTrendDTO.class,
+        ParsedPlayerDTO.class,
+        ParsedPlayerDTO.HeroStatRow.class,
+        PlayerDTO.class,
+        PlayerIngestMessage.class,
+        PlayerMetadataDTO.class,
+        PlayerSearchResultDTO.class,
+        PlayerStatsDTO.class,
+        RankDistributionDTO.class,
+        RecentlyActivePlayerDTO.class,
+        RoleStatisticsDTO.class,
+        SessionDTO.class,
+        Hero.class
+})
+public class NativeHintsConfiguration {
+
+    static class ApplicationRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.reflection()
+                    .registerType(AsyncAppender.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                            MemberCategory.INVOKE_PUBLIC_METHODS)
+                    .registerType(StructuredLogEncoder.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                            MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.owmetagg.configurations;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.owmetagg.dtos.PlayerIngestMessage;
+import com.owmetagg.utils.PayloadEncoding;
+import com.owmetagg.utils.PayloadFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+
+import static com.owmetagg.utils.Constants.BATTLETAG_HEADER;
+import static com.owmetagg.utils.Constants.PLATFORM_HEADER;
+import static com.owmetagg.utils.Constants.TIMESTAMP_HEADER;
+
+/**
+ * Writes PlayerIngestMessage as the raw OverFast body (compressed when it is at least
+ * minCompressBytes) with battletag, platform and fetch time as headers. The body is handed
+ * to the consumer still encoded, so it is decompressed and parsed in one pass. The content-type
+ * says whether the body is the OverFast JSON or pre-extracted player rows.
+ *
+ * Messages queued in the old format (PlayerDTO as JSON, the player JSON as an escaped string
+ * inside it) are still read. Everything else goes through Jackson as before.
+ */
+@Slf4j
+public class PlayerIngestMessageConverter implements MessageConverter {
+
+    private final Jackson2JsonMessageConverter json;
+    private final ObjectMapper objectMapper;
+    private final PayloadEncoding encoding;
+    private final int minCompressBytes;
+
+    public PlayerIngestMessageConverter(ObjectMapper objectMapper, PayloadEncoding encoding, int minCompressBytes) {
+        this.json = new Jackson2JsonMessageConverter(objectMapper);
+        this.objectMapper = objectMapper;
+        this.encoding = encoding;
+        this.minCompressBytes = minCompressBytes;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties properties) {
+        if (!(object instanceof PlayerIngestMessage message)) {
+            return json.toMessage(object, properties);
+        }
+
+        PayloadEncoding applied = message.getContentEncoding();
+        byte[] body = message.getBody();
+        if (applied == PayloadEncoding.IDENTITY && body.length >= minCompressBytes) {
+            applied = encoding;
+            body = encoding.encode(body);
+        }
+
+        properties.setContentType(message.getFormat().getContentType());
+        properties.setContentEncoding(applied.getHeader());
+        properties.setContentLength(body.length);
+        properties.setHeader(BATTLETAG_HEADER, message.getBattletag());
+        properties.setHeader(PLATFORM_HEADER, message.getPlatform());
+        properties.setHeader(TIMESTAMP_HEADER, message.getFetchedAt().toString());
+        return new Message(body, properties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        String battletag = properties.getHeader(BATTLETAG_HEADER);
+        if (battletag != null) {
+            return PlayerIngestMessage.builder()
+                    .battletag(battletag)
+                    .platform(properties.getHeader(PLATFORM_HEADER))
+                    .fetchedAt(parseTimestamp(properties.getHeader(TIMESTAMP_HEADER)))
+                    .format(PayloadFormat.fromContentType(properties.getContentType()))
+                    .contentEncoding(PayloadEncoding.fromHeader(properties.getContentEncoding()))
+                    .body(message.getBody())
+                    .build();
+        }
+
+        PlayerIngestMessage legacy = fromLegacyMessage(message);
+        return legacy != null ? legacy : json.fromMessage(message);
+    }
+
+    private PlayerIngestMessage fromLegacyMessage(Message message) {
+        try {
+            JsonNode node = objectMapper.readTree(message.getBody());
+            JsonNode raw = node.get("rawPlayerData");
+            if (raw == null || !raw.isTextual()) {
+                return null;
+            }
+            log.debug("Read player message in the old PlayerDTO format: {}", node.path("battletag").asText());
+            return PlayerIngestMessage.builder()
+                    .battletag(node.path("battletag").asText(null))
+                    .platform(node.path("platform").asText(null))
+                    .fetchedAt(parseTimestamp(message.getMessageProperties().getHeader(TIMESTAMP_HEADER)))
+                    .body(raw.asText().getBytes(StandardCharsets.UTF_8))
+                    .build();
+        } catch (IOException e) {
+            throw new MessageConversionException("Unreadable player message", e);
+        }
+    }
+
+    // Old producers wrote ZonedDateTime.toString(), e.g. 2025-01-01T10:00Z[UTC]
+    private static Instant parseTimestamp(Object header) {
+        return header != null ? ZonedDateTime.parse(header.toString()).toInstant() : Instant.now();
+    }
+}
@@ -1,15 +1,24 @@
 package com.owmetagg.configurations;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.owmetagg.utils.PayloadEncoding;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import lombok.Getter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
 @Getter
 public class RabbitMQConfig {
@@ -30,15 +39,34 @@ public class RabbitMQConfig {
     @Value("${rabbitmq.exchange.player-data-dlx:player.data.dlx}")
     private String playerDataDlx;
 
+    // Listener bulkhead: "min-max" consumers, each pinned to an ingest thread
+    @Value("${rabbitmq.concurrency:5-10}")
+    private String listenerConcurrency;
+
+    // Unacked messages per consumer; the rest stay queued in the broker
+    @Value("${rabbitmq.prefetch:10}")
+    private int listenerPrefetch;
+
+    // Player payload compression: gzip, zstd or none
+    @Value("${rabbitmq.message.compression:gzip}")
+    private String messageCompression;
+
+    // Smaller payloads are sent uncompressed
+    @Value("${rabbitmq.message.compression-min-bytes:1024}")
+    private int compressionMinBytes;
+
     @Bean
-    public Jackson2JsonMessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public MessageConverter messageConverter(ObjectMapper objectMapper) {
+        return new PlayerIngestMessageConverter(
+                objectMapper, PayloadEncoding.fromHeader(messageCompression), compressionMinBytes);
     }
 
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
-        template.setMessageConverter(messageConverter());
+        template.setMessageConverter(messageConverter);
+        // Unroutable messages come back on their CorrelationData (spring.rabbitmq.publisher-returns)
+        template.setMandatory(true);
         return template;
     }
 
@@ -89,7 +117,45 @@ public class RabbitMQConfig {
     }
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Qualifier("ingestListenerExecutor") ThreadPoolTaskExecutor ingestListenerExecutor) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrentConsumers(minConcurrentConsumers());
+        factory.setMaxConcurrentConsumers(maxConcurrentConsumers());
+        factory.setPrefetchCount(listenerPrefetch);
+        factory.setTaskExecutor(ingestListenerExecutor);
+        return factory;
+    }
+
+    private int minConcurrentConsumers() {
+        return Integer.parseInt(listenerConcurrency.split("-")[0].trim());
+    }
+
+    private int maxConcurrentConsumers() {
+        return maxConcurrentConsumers(listenerConcurrency);
+    }
+
+    // Upper bound of a "min-max" (or single value) consumer concurrency
+    static int maxConcurrentConsumers(String concurrency) {
+        String[] bounds = concurrency.split("-");
+        return Integer.parseInt(bounds[bounds.length - 1].trim());
+    }
+
+    /**
+     * OverFast client. Without timeouts a stalled OverFast holds the calling thread for as
+     * long as the TCP connection lives; timeouts count as failures in OverFastGuard.
+     */
+    @Bean
+    public RestTemplate restTemplate(
+            RestTemplateBuilder builder,
+            @Value("${overfast.api.connect-timeout-ms:3000}") long connectTimeoutMs,
+            @Value("${overfast.api.timeout:15000}") long readTimeoutMs) {
+        return builder
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.owmetagg.configurations;
+
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Lazy initialization for the fast-start profile (spring.main.lazy-initialization).
+ *
+ * Beans nothing asks for at startup (controllers, query services, the OverFast client) are
+ * created on first use. Beans that only do their work once created, because their
+ * @Scheduled, @RabbitListener and @EventListener methods are registered at creation time,
+ * stay eager: made lazy they would silently never run.
+ */
+@Configuration
+public class StartupConfiguration {
+
+    private static final List<Class<? extends Annotation>> EAGER_METHOD_ANNOTATIONS =
+            List.of(Scheduled.class, RabbitListener.class, EventListener.class);
+
+    @Bean
+    static LazyInitializationExcludeFilter backgroundWorkBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null && hasBackgroundWork(beanType);
+    }
+
+    private static boolean hasBackgroundWork(Class<?> beanType) {
+        if (AnnotatedElementUtils.hasAnnotation(beanType, RabbitListener.class)) {
+            return true;
+        }
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(beanType)) {
+            for (Class<? extends Annotation> annotation : EAGER_METHOD_ANNOTATIONS) {
+                if (AnnotatedElementUtils.hasAnnotation(method, annotation)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
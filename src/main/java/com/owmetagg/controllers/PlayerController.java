@@ -1,17 +1,24 @@
 package com.owmetagg.controllers;
 
 import com.owmetagg.dtos.*;
+import com.owmetagg.services.PlayerExportService;
 import com.owmetagg.services.PlayerService;
 import com.owmetagg.services.OverFastService;
+import com.owmetagg.utils.PageCursor;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
 @Slf4j
 @RestController
@@ -22,6 +29,13 @@ public class PlayerController {
 
     private final PlayerService playerService;
     private final OverFastService OverFastService;
+    private final PlayerExportService playerExportService;
+
+    @Value("${players.batch.max-size:50}")
+    private int batchMaxSize;
+
+    @Value("${players.page.max-size:100}")
+    private int pageMaxSize;
 
     /**
      * Get player profile by battletag
@@ -48,6 +62,40 @@ public class PlayerController {
         }
     }
 
+    /**
+     * Get many player profiles in one request, e.g. for team rosters
+     * POST /api/player/batch  [{"battletag": "pge-11208", "platform": "pc"}, ...]
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<PlayerBatchDTO> getPlayerStatsBatch(@RequestBody List<PlayerRefDTO> players) {
+        if (players == null || players.isEmpty() || players.size() > batchMaxSize) {
+            log.warn("Invalid player batch of {} players (max {})", players == null ? 0 : players.size(), batchMaxSize);
+            return ResponseEntity.badRequest().build();
+        }
+
+        Set<PlayerRefDTO> requested = new LinkedHashSet<>();
+        for (PlayerRefDTO player : players) {
+            if (player == null || player.getBattletag() == null || player.getBattletag().isBlank()) {
+                return ResponseEntity.badRequest().build();
+            }
+            requested.add(new PlayerRefDTO(player.getBattletag(),
+                    player.getPlatform() != null ? player.getPlatform() : "pc"));
+        }
+
+        log.info("Received batch request for {} players", requested.size());
+
+        try {
+            Map<PlayerRefDTO, PlayerDTO> profiles = playerService.getPlayerStats(requested);
+            return ResponseEntity.ok(PlayerBatchDTO.builder()
+                    .players(new ArrayList<>(profiles.values()))
+                    .notFound(requested.stream().filter(player -> !profiles.containsKey(player)).toList())
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting player batch", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /**
      * Search for players
      * GET /api/player/search?query=pge&limit=10
@@ -74,6 +122,64 @@ public class PlayerController {
         }
     }
 
+    /**
+     * Recently processed players, newest first
+     * GET /api/player/recent
+     */
+    @GetMapping("/recent")
+    public ResponseEntity<List<RecentlyActivePlayerDTO>> getRecentlyActivePlayers() {
+        return ResponseEntity.ok(playerService.getRecentlyActivePlayers());
+    }
+
+    /**
+     * Leaderboard by skill rating, a page at a time: pass the nextCursor of a page to get the next
+     * GET /api/player/leaderboard?platform=pc&limit=50&cursor=...
+     */
+    @GetMapping("/leaderboard")
+    public ResponseEntity<PageDTO<PlayerSearchResultDTO>> getLeaderboard(
+            @RequestParam(defaultValue = "pc") String platform,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        if (limit < 1 || limit > pageMaxSize) {
+            log.warn("Invalid leaderboard page size {} (max {})", limit, pageMaxSize);
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            PageCursor after = PageCursor.decode(cursor, PageCursor.Kind.SKILL_RATING);
+            return ResponseEntity.ok(playerService.getLeaderboard(platform, after, limit));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid leaderboard request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error getting leaderboard", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * All players as NDJSON, streamed while they are read
+     * GET /api/player/export?platform=pc
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportPlayers(@RequestParam(required = false) String platform,
+                              HttpServletResponse response) throws IOException {
+        log.info("Exporting players (platform: {})", platform != null ? platform : "all");
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try {
+            playerExportService.exportPlayers(platform, response.getOutputStream());
+        } catch (PlayerExportService.ExportsBusyException e) {
+            // Nothing written yet: turn it into an empty 503
+            log.warn("⚠️ {}, rejecting export", e.getMessage());
+            response.reset();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "30");
+        }
+    }
+
     /**
      * Get player metadata (summary info)
      * GET /api/player/metadata/pge-11208?platform=pc
@@ -96,20 +202,28 @@ public class PlayerController {
     }
 
     /**
-     * Get hero stats for player
-     * GET /api/player/pge-11208/heroes
+     * Get hero stats for player, most played first
+     * GET /api/player/pge-11208/heroes?gameMode=competitive&limit=5
      */
     @GetMapping("/{battletag}/heroes")
     public ResponseEntity<List<HeroStatsDTO>> getPlayerHeroStats(
             @PathVariable String battletag,
             @RequestParam(defaultValue = "pc") String platform,
-            @RequestParam(required = false) String gameMode) {
+            @RequestParam(required = false) String gameMode,
+            @RequestParam(required = false) Integer limit) {
 
         log.info("Getting hero stats for: {} on {} (mode: {})", battletag, platform, gameMode);
 
+        if (limit != null && limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+
         try {
-            List<HeroStatsDTO> heroStats = playerService.getHeroStats(battletag, platform, gameMode);
+            List<HeroStatsDTO> heroStats = playerService.getHeroStats(battletag, platform, gameMode, limit);
             return ResponseEntity.ok(heroStats);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid hero stats request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Error getting hero stats", e);
             return ResponseEntity.internalServerError().build();
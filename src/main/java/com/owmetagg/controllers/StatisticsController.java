@@ -1,19 +1,30 @@
 package com.owmetagg.controllers;
 
 import com.owmetagg.dtos.HeroStatsDTO;
-import com.owmetagg.dtos.RankDistributionDTO;
-import com.owmetagg.dtos.HeroTrendDTO;
-import com.owmetagg.dtos.RoleStatisticsDTO;
+import com.owmetagg.models.RankCategory;
+import com.owmetagg.services.StatisticsResponseCache;
 import com.owmetagg.services.StatisticsService;
 import com.owmetagg.services.StatisticsCalculationService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static com.owmetagg.utils.Constants.ROLE_ALL;
+import static com.owmetagg.utils.Constants.ROLE_DAMAGE;
+import static com.owmetagg.utils.Constants.ROLE_OPEN;
+import static com.owmetagg.utils.Constants.ROLE_SUPPORT;
+import static com.owmetagg.utils.Constants.ROLE_TANK;
 
 @Slf4j
 @RestController
@@ -23,79 +34,119 @@ public class StatisticsController {
 
     private final StatisticsService statisticsService;
     private final StatisticsCalculationService calculationService;
+    private final StatisticsResponseCache responseCache;
+    
+    // Roles rank_distribution has rows for
+    private static final Set<String> RANK_DISTRIBUTION_ROLES =
+            Set.of(ROLE_ALL, ROLE_TANK, ROLE_DAMAGE, ROLE_SUPPORT, ROLE_OPEN);
     
     public StatisticsController(StatisticsService statisticsService, 
-                               StatisticsCalculationService calculationService) {
+                               StatisticsCalculationService calculationService,
+                               StatisticsResponseCache responseCache) {
         this.statisticsService = statisticsService;
         this.calculationService = calculationService;
+        this.responseCache = responseCache;
     }
     
     @GetMapping("/heroes/top")
-    public ResponseEntity<List<HeroStatsDTO>> getTopHeroes(
+    public ResponseEntity<byte[]> getTopHeroes(
             @RequestParam(defaultValue = "competitive") String gameMode,
             @RequestParam(defaultValue = "pickrate") String sortBy,
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) Integer srBracket,
+            @RequestParam(defaultValue = "all") String platform,
+            WebRequest request) {
+        
+        log.info("📊 GET /api/statistics/heroes/top - gameMode: {}, sortBy: {}, limit: {}, srBracket: {}, platform: {}", 
+                gameMode, sortBy, limit, srBracket, platform);
+        
+        RankCategory bracket = RankCategory.fromSkillRating(srBracket);
+        return cached(request, "heroes/top:" + gameMode + ":" + sortBy + ":" + limit + ":" + bracket + ":" + platform,
+                () -> bracket == RankCategory.ALL_RANKS && "all".equals(platform)
+                        ? statisticsService.getTopHeroes(gameMode, sortBy, limit)
+                        : statisticsService.getTopHeroesInBracket(gameMode, bracket, platform, sortBy, limit));
+    }
+    
+    @GetMapping("/heroes/live")
+    public ResponseEntity<List<HeroStatsDTO>> getLiveTopHeroes(
+            @RequestParam(defaultValue = "competitive") String gameMode,
+            @RequestParam(defaultValue = "pickrate") String sortBy,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) Integer srBracket) {
         
-        log.info("📊 GET /api/statistics/heroes/top - gameMode: {}, sortBy: {}, limit: {}", 
-                gameMode, sortBy, limit);
+        log.info("📊 GET /api/statistics/heroes/live - gameMode: {}, sortBy: {}, limit: {}, srBracket: {}", 
+                gameMode, sortBy, limit, srBracket);
         
-        List<HeroStatsDTO> heroes = statisticsService.getTopHeroes(gameMode, sortBy, limit);
-        return ResponseEntity.ok(heroes);
+        RankCategory bracket = RankCategory.fromSkillRating(srBracket);
+        return ResponseEntity.ok(statisticsService.getLiveTopHeroes(gameMode, bracket, sortBy, limit));
     }
     
     @GetMapping("/heroes/winrates")
-    public ResponseEntity<List<HeroStatsDTO>> getHeroWinRates(
+    public ResponseEntity<byte[]> getHeroWinRates(
             @RequestParam(defaultValue = "competitive") String gameMode,
-            @RequestParam(defaultValue = "10") int minGames) {
+            @RequestParam(defaultValue = "10") int minGames,
+            WebRequest request) {
         
         log.info("📊 GET /api/statistics/heroes/winrates - gameMode: {}, minGames: {}", 
                 gameMode, minGames);
         
-        List<HeroStatsDTO> heroes = statisticsService.getHeroWinRates(gameMode, minGames);
-        return ResponseEntity.ok(heroes);
+        return cached(request, "heroes/winrates:" + gameMode + ":" + minGames,
+                () -> statisticsService.getHeroWinRates(gameMode, minGames));
     }
     
     @GetMapping("/heroes/pickrates")
-    public ResponseEntity<List<HeroStatsDTO>> getHeroPickRates(
-            @RequestParam(defaultValue = "competitive") String gameMode) {
+    public ResponseEntity<byte[]> getHeroPickRates(
+            @RequestParam(defaultValue = "competitive") String gameMode,
+            WebRequest request) {
         
         log.info("📊 GET /api/statistics/heroes/pickrates - gameMode: {}", gameMode);
         
-        List<HeroStatsDTO> heroes = statisticsService.getHeroPickRates(gameMode);
-        return ResponseEntity.ok(heroes);
+        return cached(request, "heroes/pickrates:" + gameMode,
+                () -> statisticsService.getHeroPickRates(gameMode));
     }
     
     @GetMapping("/rank-distribution")
-    public ResponseEntity<List<RankDistributionDTO>> getRankDistribution(
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+    public ResponseEntity<byte[]> getRankDistribution(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "all") String role,
+            WebRequest request) {
         
         if (date == null) {
             date = LocalDate.now();
         }
         
-        log.info("🏆 GET /api/statistics/rank-distribution - date: {}", date);
+        log.info("🏆 GET /api/statistics/rank-distribution - date: {}, role: {}", date, role);
+        
+        String roleKey = role.toLowerCase();
+        if (!RANK_DISTRIBUTION_ROLES.contains(roleKey)) {
+            log.warn("Invalid rank distribution role: {}", role);
+            return ResponseEntity.badRequest().build();
+        }
         
-        List<RankDistributionDTO> distribution = statisticsService.getRankDistribution(date);
-        return ResponseEntity.ok(distribution);
+        LocalDate day = date;
+        return cached(request, "rank-distribution:" + day + ":" + roleKey,
+                () -> statisticsService.getRankDistribution(day, roleKey));
     }
     
     @GetMapping("/trends/hero/{heroKey}")
-    public ResponseEntity<List<HeroTrendDTO>> getHeroTrends(
+    public ResponseEntity<byte[]> getHeroTrends(
             @PathVariable String heroKey,
             @RequestParam(defaultValue = "competitive") String gameMode,
-            @RequestParam(defaultValue = "7") int days) {
+            @RequestParam(defaultValue = "7") int days,
+            WebRequest request) {
         
         log.info("📈 GET /api/statistics/trends/hero/{} - gameMode: {}, days: {}", 
                 heroKey, gameMode, days);
         
-        List<HeroTrendDTO> trends = statisticsService.getHeroTrends(heroKey, gameMode, days);
-        return ResponseEntity.ok(trends);
+        return cached(request, "trends/hero:" + heroKey + ":" + gameMode + ":" + days,
+                () -> statisticsService.getHeroTrends(heroKey, gameMode, days));
     }
     
     @GetMapping("/trends/all")
-    public ResponseEntity<List<HeroTrendDTO>> getAllHeroTrends(
+    public ResponseEntity<byte[]> getAllHeroTrends(
             @RequestParam(defaultValue = "competitive") String gameMode,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            WebRequest request) {
         
         if (date == null) {
             date = LocalDate.now();
@@ -103,30 +154,40 @@ public class StatisticsController {
         
         log.info("📈 GET /api/statistics/trends/all - gameMode: {}, date: {}", gameMode, date);
         
-        List<HeroTrendDTO> trends = statisticsService.getAllHeroTrends(gameMode, date);
-        return ResponseEntity.ok(trends);
+        LocalDate day = date;
+        return cached(request, "trends/all:" + gameMode + ":" + day,
+                () -> statisticsService.getAllHeroTrends(gameMode, day));
     }
     
     @GetMapping("/roles")
-    public ResponseEntity<List<RoleStatisticsDTO>> getRoleStatistics(
-            @RequestParam(defaultValue = "competitive") String gameMode) {
+    public ResponseEntity<byte[]> getRoleStatistics(
+            @RequestParam(defaultValue = "competitive") String gameMode,
+            WebRequest request) {
         
         log.info("🛡️ GET /api/statistics/roles - gameMode: {}", gameMode);
         
-        List<RoleStatisticsDTO> roleStats = statisticsService.getRoleStatistics(gameMode);
-        return ResponseEntity.ok(roleStats);
+        return cached(request, "roles:" + gameMode,
+                () -> statisticsService.getRoleStatistics(gameMode));
     }
     
     @GetMapping("/meta-report")
-    public ResponseEntity<Map<String, Object>> getMetaReport(
+    public ResponseEntity<byte[]> getMetaReport(
             @RequestParam(defaultValue = "competitive") String gameMode,
-            @RequestParam(required = false) Integer srBracket) {
+            @RequestParam(required = false) Integer srBracket,
+            WebRequest request) {
         
         log.info("📋 GET /api/statistics/meta-report - gameMode: {}, srBracket: {}", 
                 gameMode, srBracket);
         
-        Map<String, Object> report = statisticsService.getMetaReport(gameMode, srBracket);
-        return ResponseEntity.ok(report);
+        return cached(request, "meta-report:" + gameMode + ":" + srBracket,
+                () -> statisticsService.getMetaReport(gameMode, srBracket));
+    }
+    
+    @GetMapping("/refresh-status")
+    public ResponseEntity<Collection<Map<String, Object>>> getRefreshStatus() {
+        log.info("⏱️ GET /api/statistics/refresh-status");
+        
+        return ResponseEntity.ok(calculationService.getRefreshStatus());
     }
     
     @PostMapping("/recalculate")
@@ -135,7 +196,9 @@ public class StatisticsController {
         
         try {
             // Trigger all calculations
+            calculationService.calculatePickCounts();
             calculationService.calculateHeroStatistics();
+            calculationService.calculateBracketedHeroStatistics();
             calculationService.calculateRankDistribution();
             calculationService.calculateHeroTrends();
             calculationService.calculateRoleStatistics();
@@ -150,6 +213,29 @@ public class StatisticsController {
                 "status", "error",
                 "message", "Failed to recalculate statistics: " + e.getMessage()
             ));
+        } finally {
+            calculationService.publishRefresh();
+        }
+    }
+    
+    /**
+     * Serve a response from StatisticsResponseCache: the gzip bytes when the client accepts
+     * them, the JSON otherwise. Setting Content-Encoding here keeps server.compression from
+     * compressing again, and Spring answers 304 when If-None-Match still matches the ETag.
+     */
+    private ResponseEntity<byte[]> cached(WebRequest request, String key, Supplier<?> body) {
+        StatisticsResponseCache.CachedResponse response = responseCache.get(key, body);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = response.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+        
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return ok.eTag(response.gzipEtag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(response.gzip());
         }
+        return ok.eTag(response.etag()).body(response.json());
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,17 @@
 package com.owmetagg.controllers;
 
+import com.owmetagg.dtos.PageDTO;
+import com.owmetagg.dtos.RecentlyActivePlayerDTO;
 import com.owmetagg.services.OverFastService;
+import com.owmetagg.services.PlayerService;
 import com.owmetagg.repositories.PlayerRepository;
 import com.owmetagg.repositories.HeroStatsRepository;
-import com.owmetagg.models.Player;
+import com.owmetagg.utils.PageCursor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -21,13 +28,19 @@ TestController {
     private final OverFastService overFastService;
     private final PlayerRepository playerRepository;
     private final HeroStatsRepository heroStatsRepository;
+    private final PlayerService playerService;
+    private final int pageMaxSize;
 
     public TestController(OverFastService overFastService,
                           PlayerRepository playerRepository,
-                          HeroStatsRepository heroStatsRepository) {
+                          HeroStatsRepository heroStatsRepository,
+                          PlayerService playerService,
+                          @Value("${players.page.max-size:100}") int pageMaxSize) {
         this.overFastService = overFastService;
         this.playerRepository = playerRepository;
         this.heroStatsRepository = heroStatsRepository;
+        this.playerService = playerService;
+        this.pageMaxSize = pageMaxSize;
     }
 
     @PostMapping("/fetch-player")
@@ -56,7 +69,11 @@ TestController {
         );
 
         log.info("Starting quick test with {} known players", testPlayers.size());
-        overFastService.fetchAndSendMultiplePlayers(testPlayers);
+        try {
+            overFastService.fetchAndSendMultiplePlayers(testPlayers);
+        } catch (TaskRejectedException e) {
+            return ingestBusy();
+        }
 
         return ResponseEntity.ok(Map.of(
                 "message", "Started processing test players",
@@ -70,7 +87,11 @@ TestController {
     @PostMapping("/fetch-batch")
     public ResponseEntity<Map<String, Object>> fetchBatch(@RequestBody List<String> battletags) {
         log.info("Processing batch of {} players", battletags.size());
-        overFastService.fetchAndSendMultiplePlayers(battletags);
+        try {
+            overFastService.fetchAndSendMultiplePlayers(battletags);
+        } catch (TaskRejectedException e) {
+            return ingestBusy();
+        }
 
         return ResponseEntity.ok(Map.of(
                 "message", "Batch sent to processing queue",
@@ -79,6 +100,17 @@ TestController {
         ));
     }
 
+    // Fetch queue is full: push back on the caller instead of buffering more work
+    private ResponseEntity<Map<String, Object>> ingestBusy() {
+        log.warn("⚠️ Ingest fetch queue is full, rejecting batch");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(Map.of(
+                        "message", "Ingest queue is full, retry later",
+                        "status", "rejected"
+                ));
+    }
+
     @GetMapping("/database-stats")
     public ResponseEntity<Map<String, Object>> getDatabaseStats() {
         long playerCount = playerRepository.count();
@@ -91,12 +123,25 @@ TestController {
         ));
     }
 
+    // Most recently updated players, a page at a time (pass back nextCursor for the next one)
     @GetMapping("/recent-players")
-    public ResponseEntity<List<Player>> getRecentPlayers() {
-        // Using findAll with pagination to get recent players
-        List<Player> players = playerRepository.findAll();
-        log.info("Found {} players in database", players.size());
-        return ResponseEntity.ok(players);
+    public ResponseEntity<PageDTO<RecentlyActivePlayerDTO>> getRecentPlayers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > pageMaxSize) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        PageCursor after;
+        try {
+            after = PageCursor.decode(cursor, PageCursor.Kind.LAST_UPDATED);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        PageDTO<RecentlyActivePlayerDTO> page = playerService.getRecentPlayers(after, limit);
+        log.info("Found {} recent players", page.getItems().size());
+        return ResponseEntity.ok(page);
     }
 
     @GetMapping("/health")
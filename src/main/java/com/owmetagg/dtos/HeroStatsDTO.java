@@ -17,5 +17,8 @@ public class HeroStatsDTO {
     private Double avgDeaths;
     private Double avgAssists;
     private Double avgKda;
+    private Integer timePlayed;
+    private Double damagePer10Min;
+    private Double healingPer10Min;
     private LocalDateTime lastCalculated;
 }
\ No newline at end of file
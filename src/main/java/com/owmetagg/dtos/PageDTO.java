@@ -0,0 +1,16 @@
+package com.owmetagg.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list. nextCursor is null on the last page.
+ */
+@Data
+@Builder
+public class PageDTO<T> {
+    private List<T> items;
+    private String nextCursor;
+}
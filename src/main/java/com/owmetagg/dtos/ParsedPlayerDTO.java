@@ -0,0 +1,53 @@
+package com.owmetagg.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The part of an OverFast player document that ingest stores: profile fields, role ratings
+ * and one row per hero and game mode. Built by OverFastPlayerParser on either side of the
+ * queue, and sent as-is in the player-rows message format (PlayerRowsCodec).
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ParsedPlayerDTO {
+    private String battletag;
+    private String platform;
+    private String username;
+    private String avatarUrl;
+
+    // Estimated SR per role, null when unranked; skillRating is the highest of them
+    private Integer tankRating;
+    private Integer damageRating;
+    private Integer supportRating;
+    private Integer openRating;
+    private Integer skillRating;
+
+    @Builder.Default
+    private List<HeroStatRow> heroStats = new ArrayList<>();
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class HeroStatRow {
+        private String heroKey;
+        private short gameModeId;
+        private int wins;
+        private int losses;
+        private int draws;
+        private int timePlayed; // in minutes
+        private long eliminations;
+        private long deaths;
+        private long assists;
+        private long damageDealt;
+        private long healingDone;
+    }
+}
@@ -0,0 +1,13 @@
+package com.owmetagg.dtos;
+
+import lombok.Data;
+import lombok.Builder;
+
+import java.util.List;
+
+@Data
+@Builder
+public class PlayerBatchDTO {
+    private List<PlayerDTO> players;       // Found players, in request order
+    private List<PlayerRefDTO> notFound;   // Requested players that are not stored
+}
@@ -25,9 +25,6 @@ public class PlayerDTO {
     private String platform;
     private Long totalPlayTime;
     private Long latestSession;
-    
-    // For RabbitMQ processing
-    private String rawPlayerData;
 
     // Nested complex data
     private Map<String, HeroSummaryDTO> playedHeroes;  // All heroes with stats
@@ -0,0 +1,36 @@
+package com.owmetagg.dtos;
+
+import com.owmetagg.utils.PayloadEncoding;
+import com.owmetagg.utils.PayloadFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Player data on the ingest queue: the OverFast response body as fetched (or the rows
+ * extracted from it, see PayloadFormat), plus what is needed to route it. On the wire the body is the AMQP message body and the rest are
+ * headers (see PlayerIngestMessageConverter), so the payload is never JSON inside JSON.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlayerIngestMessage {
+    private String battletag;
+    private String platform;
+    private Instant fetchedAt;
+
+    @Builder.Default
+    private PayloadFormat format = PayloadFormat.RAW_JSON;
+
+    // Body in the given format, compressed as contentEncoding says
+    @Builder.Default
+    private PayloadEncoding contentEncoding = PayloadEncoding.IDENTITY;
+
+    @ToString.Exclude
+    private byte[] body;
+}
@@ -0,0 +1,13 @@
+package com.owmetagg.dtos;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlayerRefDTO {
+    private String battletag;      // "pge-11208", as in GET /api/player/{battletag}
+    private String platform;       // Defaults to "pc"
+}
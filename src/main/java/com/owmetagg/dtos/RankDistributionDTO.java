@@ -7,6 +7,7 @@ import java.time.LocalDate;
 public class RankDistributionDTO {
     private Integer srBracket;
     private String bracketName;
+    private String role; // all, tank, damage, support, open
     private Integer playerCount;
     private Double percentage;
     private LocalDate snapshotDate;
@@ -15,5 +15,6 @@ public class RecentlyActivePlayerDTO {
     private String username;
     private String avatarUrl;
     private LocalDateTime lastUpdated;
+    private String mostPlayedHero;
     private Integer recentGamesPlayed;
 }
\ No newline at end of file
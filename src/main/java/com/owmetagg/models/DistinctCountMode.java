@@ -0,0 +1,13 @@
+package com.owmetagg.models;
+
+/**
+ * How StatisticsCalculationService counts distinct players (statistics.distinct-count.mode)
+ */
+public enum DistinctCountMode {
+    // Union of HyperLogLog sketches (hero_pick_sketches), ~1.6% standard error
+    SKETCH,
+    // COUNT(DISTINCT player_id) over hero_stats
+    EXACT,
+    // Both: exact counts are used, sketch error is logged and published as a metric
+    VERIFY
+}
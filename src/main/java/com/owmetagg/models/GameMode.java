@@ -0,0 +1,50 @@
+package com.owmetagg.models;
+
+import static com.owmetagg.utils.Constants.*;
+
+/**
+ * Game modes as stored in hero_stats.game_mode_id; codes match the game_modes lookup table (V9)
+ * and must never be renumbered.
+ */
+public enum GameMode {
+    COMPETITIVE(1, GAME_MODE_COMPETITIVE),
+    QUICKPLAY(2, GAME_MODE_QUICKPLAY),
+    ARCADE(3, GAME_MODE_ARCADE);
+
+    private static final GameMode[] BY_CODE = new GameMode[4];
+
+    static {
+        for (GameMode gameMode : values()) {
+            BY_CODE[gameMode.code] = gameMode;
+        }
+    }
+
+    private final short code;
+    private final String key;
+
+    GameMode(int code, String key) {
+        this.code = (short) code;
+        this.key = key;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public static GameMode fromCode(int code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    public static GameMode fromKey(String key) {
+        for (GameMode gameMode : values()) {
+            if (gameMode.key.equalsIgnoreCase(key)) {
+                return gameMode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown game mode: " + key);
+    }
+}
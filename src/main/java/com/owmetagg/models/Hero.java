@@ -14,6 +14,10 @@ public class Hero {
     @Column(name = "hero_key", nullable = false)
     private String heroKey;
 
+    // Dense id assigned by the database (V8), used for array lookups in HeroRegistry
+    @Column(name = "hero_id", columnDefinition = "SMALLINT", insertable = false, updatable = false)
+    private Short heroId;
+
     @JsonProperty("name")
     @Column(name = "name", nullable = false)
     private String name;
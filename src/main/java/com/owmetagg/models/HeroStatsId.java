@@ -1,5 +1,6 @@
 package com.owmetagg.models;
 
+import com.owmetagg.services.HeroRegistry;
 import jakarta.persistence.Column;
 import jakarta.persistence.Embeddable;
 import lombok.Data;
@@ -8,28 +9,50 @@ import lombok.NoArgsConstructor;
 import java.io.Serializable;
 import java.util.Objects;
 
+/**
+ * hero_stats key. Hero, platform and game mode are stored as SMALLINT codes (V9):
+ * hero ids come from HeroRegistry, platform and game mode codes from their enums.
+ */
 @Embeddable
 @Data
 @NoArgsConstructor
 public class HeroStatsId implements Serializable {
 
     @Column(name = "player_id")
-    private String playerId;
+    private Long playerId; // players.player_id (V10)
 
-    @Column(name = "hero_key")
-    private String heroKey; // tracer, mercy, reinhardt, etc.
+    @Column(name = "hero_id", columnDefinition = "SMALLINT")
+    private short heroId; // HeroRegistry id
 
-    @Column(name = "platform")
-    private String platform; // pc, console
+    @Column(name = "platform_id", columnDefinition = "SMALLINT")
+    private short platformId; // Platform code
 
-    @Column(name = "game_mode")
-    private String gameMode; // competitive, quickplay
+    @Column(name = "game_mode_id", columnDefinition = "SMALLINT")
+    private short gameModeId; // GameMode code
 
-    public HeroStatsId(String playerId, String heroKey, String platform, String gameMode) {
+    public HeroStatsId(Long playerId, short heroId, short platformId, short gameModeId) {
         this.playerId = playerId;
-        this.heroKey = heroKey;
-        this.platform = platform;
-        this.gameMode = gameMode;
+        this.heroId = heroId;
+        this.platformId = platformId;
+        this.gameModeId = gameModeId;
+    }
+
+    public HeroStatsId(Long playerId, short heroId, Platform platform, GameMode gameMode) {
+        this(playerId, heroId, platform.getCode(), gameMode.getCode());
+    }
+
+    // Decoded views of the coded columns
+    public String getHeroKey() {
+        HeroRegistry heroRegistry = HeroRegistry.get();
+        return heroRegistry != null ? heroRegistry.keyOf(heroId) : null;
+    }
+
+    public Platform getPlatform() {
+        return Platform.fromCode(platformId);
+    }
+
+    public GameMode getGameMode() {
+        return GameMode.fromCode(gameModeId);
     }
 
     @Override
@@ -37,14 +60,16 @@ public class HeroStatsId implements Serializable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         HeroStatsId that = (HeroStatsId) o;
-        return Objects.equals(playerId, that.playerId) &&
-                Objects.equals(heroKey, that.heroKey) &&
-                Objects.equals(platform, that.platform) &&
-                Objects.equals(gameMode, that.gameMode);
+        return heroId == that.heroId &&
+                platformId == that.platformId &&
+                gameModeId == that.gameModeId &&
+                Objects.equals(playerId, that.playerId);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(playerId, heroKey, platform, gameMode);
+        // Codes are small, so pack them instead of boxing through Objects.hash
+        int codes = (heroId << 16) | (platformId << 8) | gameModeId;
+        return 31 * Objects.hashCode(playerId) + codes;
     }
-}
\ No newline at end of file
+}
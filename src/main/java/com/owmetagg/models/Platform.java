@@ -0,0 +1,49 @@
+package com.owmetagg.models;
+
+import static com.owmetagg.utils.Constants.*;
+
+/**
+ * Platforms as stored in hero_stats.platform_id; codes match the platforms lookup table (V9)
+ * and must never be renumbered.
+ */
+public enum Platform {
+    PC(1, PLATFORM_PC),
+    CONSOLE(2, PLATFORM_CONSOLE);
+
+    private static final Platform[] BY_CODE = new Platform[3];
+
+    static {
+        for (Platform platform : values()) {
+            BY_CODE[platform.code] = platform;
+        }
+    }
+
+    private final short code;
+    private final String key;
+
+    Platform(int code, String key) {
+        this.code = (short) code;
+        this.key = key;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public static Platform fromCode(int code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    public static Platform fromKey(String key) {
+        for (Platform platform : values()) {
+            if (platform.key.equalsIgnoreCase(key)) {
+                return platform;
+            }
+        }
+        throw new IllegalArgumentException("Unknown platform: " + key);
+    }
+}
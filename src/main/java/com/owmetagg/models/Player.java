@@ -17,9 +17,11 @@ import static com.owmetagg.utils.Constants.*;
 @NoArgsConstructor
 public class Player {
 
+    // Surrogate key (V10); battletag + platform is the unique natural key
     @Id
-    @Column(name = "player_id", unique = true, nullable = false)
-    private String playerId;
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "player_id", nullable = false)
+    private Long playerId;
 
     @Column(name = "battletag", nullable = false)
     private String battletag;
@@ -39,9 +41,29 @@ public class Player {
     @Column(name = "skill_rating")
     private Integer skillRating;
 
+    // Per-role ratings, SMALLINT columns (SR tops out around 5000); Short so ddl-auto=validate passes
+    @Column(name = "tank_rating", columnDefinition = "SMALLINT")
+    private Short tankRating;
+
+    @Column(name = "damage_rating", columnDefinition = "SMALLINT")
+    private Short damageRating;
+
+    @Column(name = "support_rating", columnDefinition = "SMALLINT")
+    private Short supportRating;
+
+    @Column(name = "open_rating", columnDefinition = "SMALLINT")
+    private Short openRating;
+
     @Column(name = "last_updated")
     private LocalDateTime lastUpdated;
 
+    // Activity summary written by ingest (V13)
+    @Column(name = "most_played_hero_id", columnDefinition = "SMALLINT")
+    private Short mostPlayedHeroId;
+
+    @Column(name = "total_games")
+    private Integer totalGames;
+
     // FIXED: Changed from Map to List since we're using composite key
     @OneToMany(mappedBy = "player", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
     private List<HeroStats> heroStats = new ArrayList<>();
@@ -1,19 +1,99 @@
 package com.owmetagg.models;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
 public enum RankCategory {
-    ALL_RANKS("All Ranks"),
-    CHAMPION("Champion"),
-    GRANDMASTER("Grandmaster"),
-    MASTER("Master"),
-    DIAMOND("Diamond"),
-    PLATINUM("Platinum"),
-    GOLD("Gold"),
-    SILVER("Silver"),
-    BRONZE("Bronze");
+    ALL_RANKS("All Ranks", null, null),
+    CHAMPION("Champion", 4500, null),
+    GRANDMASTER("Grandmaster", 4000, 4500),
+    MASTER("Master", 3500, 4000),
+    DIAMOND("Diamond", 3000, 3500),
+    PLATINUM("Platinum", 2500, 3000),
+    GOLD("Gold", 2000, 2500),
+    SILVER("Silver", 1500, 2000),
+    BRONZE("Bronze", null, 1500);
 
     String category;
 
-    RankCategory(String category) {
+    // SR bounds of the bracket: min inclusive, max exclusive, null = unbounded
+    private final Integer minSkillRating;
+    private final Integer maxSkillRating;
+
+    RankCategory(String category, Integer minSkillRating, Integer maxSkillRating) {
         this.category = category;
+        this.minSkillRating = minSkillRating;
+        this.maxSkillRating = maxSkillRating;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Lower SR bound stored as sr_bracket in rank_distribution (Bronze starts at 1000)
+     */
+    public int getBracketFloor() {
+        return minSkillRating != null ? minSkillRating : 1000;
+    }
+
+    public boolean contains(int skillRating) {
+        if (this == ALL_RANKS) return true;
+        return (minSkillRating == null || skillRating >= minSkillRating)
+                && (maxSkillRating == null || skillRating < maxSkillRating);
+    }
+
+    /**
+     * Actual ranked brackets, lowest first (excludes ALL_RANKS)
+     */
+    public static List<RankCategory> brackets() {
+        return Arrays.stream(values())
+                .filter(category -> category != ALL_RANKS)
+                .sorted((a, b) -> Integer.compare(a.getBracketFloor(), b.getBracketFloor()))
+                .toList();
+    }
+
+    public static RankCategory fromSkillRating(Integer skillRating) {
+        if (skillRating == null) return ALL_RANKS;
+        for (RankCategory category : brackets()) {
+            if (category.contains(skillRating)) {
+                return category;
+            }
+        }
+        return ALL_RANKS;
+    }
+
+    /**
+     * Build a SQL CASE expression mapping an SR column to this enum's brackets,
+     * so the bracket boundaries live in one place instead of in every query.
+     *
+     * @param column SR column or expression to bucket
+     * @param label SQL literal emitted for each bracket
+     */
+    public static String toSqlCase(String column, Function<RankCategory, String> label) {
+        List<RankCategory> brackets = brackets();
+        StringBuilder sql = new StringBuilder("CASE");
+        for (RankCategory category : brackets) {
+            if (category.maxSkillRating == null) continue;
+            sql.append(" WHEN ").append(column).append(" < ").append(category.maxSkillRating)
+                    .append(" THEN ").append(label.apply(category));
+        }
+        RankCategory top = brackets.get(brackets.size() - 1);
+        sql.append(" ELSE ").append(label.apply(top)).append(" END");
+        return sql.toString();
+    }
+
+    // Common labels for toSqlCase
+    public static String floorLiteral(RankCategory category) {
+        return String.valueOf(category.getBracketFloor());
+    }
+
+    public static String categoryLiteral(RankCategory category) {
+        return "'" + category.category + "'";
+    }
+
+    public static String keyLiteral(RankCategory category) {
+        return "'" + category.name() + "'";
     }
 }
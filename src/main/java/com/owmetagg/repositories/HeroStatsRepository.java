@@ -16,36 +16,36 @@ import java.util.Optional;
 public interface HeroStatsRepository extends JpaRepository<HeroStats, HeroStatsId> {
 
     // Basic lookups
-    List<HeroStats> findByIdPlayerId(String playerId);
-    List<HeroStats> findByIdHeroKey(String heroKey);
-    Optional<HeroStats> findByIdPlayerIdAndIdHeroKey(String playerId, String heroKey);
+    List<HeroStats> findByIdPlayerId(Long playerId);
+    List<HeroStats> findByIdHeroId(short heroId);
+    Optional<HeroStats> findByIdPlayerIdAndIdHeroId(Long playerId, short heroId);
 
     // Statistics calculation queries
-    @Query("SELECT COUNT(DISTINCT hs.id.playerId) FROM HeroStats hs WHERE hs.id.heroKey = :heroKey")
-    long countDistinctPlayersByHeroKey(@Param("heroKey") String heroKey);
+    @Query("SELECT COUNT(DISTINCT hs.id.playerId) FROM HeroStats hs WHERE hs.id.heroId = :heroId")
+    long countDistinctPlayersByHeroId(@Param("heroId") short heroId);
 
     // Win rate calculation (adapted from your pattern)
     @Query("SELECT COALESCE(AVG(CAST(hs.wins AS double) / NULLIF(hs.wins + hs.losses + hs.draws, 0) * 100), 0) " +
-            "FROM HeroStats hs WHERE hs.id.heroKey = :heroKey AND hs.id.gameMode = :gameMode " +
+            "FROM HeroStats hs WHERE hs.id.heroId = :heroId AND hs.id.gameModeId = :gameModeId " +
             "AND (hs.wins + hs.losses + hs.draws) >= :minGames")
-    Double calculateWinRateByHeroKey(@Param("heroKey") String heroKey,
-                                     @Param("gameMode") String gameMode,
-                                     @Param("minGames") int minGames);
+    Double calculateWinRateByHeroId(@Param("heroId") short heroId,
+                                    @Param("gameModeId") short gameModeId,
+                                    @Param("minGames") int minGames);
 
     // KDA calculation
     @Query("SELECT COALESCE(AVG(CAST(hs.eliminations + hs.assists AS double) / NULLIF(hs.deaths, 0)), 0) " +
-            "FROM HeroStats hs WHERE hs.id.heroKey = :heroKey AND hs.id.gameMode = :gameMode " +
+            "FROM HeroStats hs WHERE hs.id.heroId = :heroId AND hs.id.gameModeId = :gameModeId " +
             "AND hs.deaths > 0 AND hs.timePlayed >= :minTimePlayed")
-    Double calculateAverageKDAByHeroKey(@Param("heroKey") String heroKey,
-                                        @Param("gameMode") String gameMode,
-                                        @Param("minTimePlayed") int minTimePlayed);
+    Double calculateAverageKDAByHeroId(@Param("heroId") short heroId,
+                                       @Param("gameModeId") short gameModeId,
+                                       @Param("minTimePlayed") int minTimePlayed);
 
     // Top performers for a hero (like your active players query)
-    @Query("SELECT hs FROM HeroStats hs WHERE hs.id.heroKey = :heroKey " +
-            "AND hs.id.gameMode = :gameMode AND hs.timePlayed >= :minTimePlayed " +
+    @Query("SELECT hs FROM HeroStats hs WHERE hs.id.heroId = :heroId " +
+            "AND hs.id.gameModeId = :gameModeId AND hs.timePlayed >= :minTimePlayed " +
             "ORDER BY hs.skillTier DESC, hs.timePlayed DESC")
-    List<HeroStats> findTopPerformersForHero(@Param("heroKey") String heroKey,
-                                             @Param("gameMode") String gameMode,
+    List<HeroStats> findTopPerformersForHero(@Param("heroId") short heroId,
+                                             @Param("gameModeId") short gameModeId,
                                              @Param("minTimePlayed") int minTimePlayed,
                                              PageRequest pageRequest);
 
@@ -56,12 +56,12 @@ public interface HeroStatsRepository extends JpaRepository<HeroStats, HeroStatsI
     List<HeroStats> findRecentlyPlayedHeroes(@Param("limit") int limit);
 
     // Hero popularity by platform
-    @Query("SELECT hs.id.heroKey, COUNT(DISTINCT hs.id.playerId) as playerCount " +
-            "FROM HeroStats hs WHERE hs.id.platform = :platform " +
-            "AND hs.id.gameMode = :gameMode " +
-            "GROUP BY hs.id.heroKey ORDER BY playerCount DESC")
-    List<Object[]> getHeroPopularityByPlatform(@Param("platform") String platform,
-                                               @Param("gameMode") String gameMode);
+    @Query("SELECT hs.id.heroId, COUNT(DISTINCT hs.id.playerId) as playerCount " +
+            "FROM HeroStats hs WHERE hs.id.platformId = :platformId " +
+            "AND hs.id.gameModeId = :gameModeId " +
+            "GROUP BY hs.id.heroId ORDER BY playerCount DESC")
+    List<Object[]> getHeroPopularityByPlatform(@Param("platformId") short platformId,
+                                               @Param("gameModeId") short gameModeId);
 
     // Aggregate statistics for role analysis
     @Query("SELECT h.role, " +
@@ -69,22 +69,22 @@ public interface HeroStatsRepository extends JpaRepository<HeroStats, HeroStatsI
             "AVG(CAST(hs.wins AS double) / NULLIF(hs.wins + hs.losses + hs.draws, 0) * 100) as avgWinRate, " +
             "AVG(CAST(hs.eliminations + hs.assists AS double) / NULLIF(hs.deaths, 0)) as avgKDA " +
             "FROM HeroStats hs " +
-            "JOIN Hero h ON h.heroKey = hs.id.heroKey " +
-            "WHERE hs.id.gameMode = :gameMode AND hs.id.platform = :platform " +
+            "JOIN Hero h ON h.heroId = hs.id.heroId " +
+            "WHERE hs.id.gameModeId = :gameModeId AND hs.id.platformId = :platformId " +
             "GROUP BY h.role")
-    List<Object[]> getRoleStatistics(@Param("gameMode") String gameMode, @Param("platform") String platform);
+    List<Object[]> getRoleStatistics(@Param("gameModeId") short gameModeId, @Param("platformId") short platformId);
 
     // Batch processing support (like your sophisticated queries)
-    @Query("SELECT hs FROM HeroStats hs WHERE hs.id.heroKey IN :heroKeys " +
-            "AND hs.id.gameMode = :gameMode AND hs.timePlayed >= :minTimePlayed")
-    List<HeroStats> findHeroStatsBatch(@Param("heroKeys") List<String> heroKeys,
-                                       @Param("gameMode") String gameMode,
+    @Query("SELECT hs FROM HeroStats hs WHERE hs.id.heroId IN :heroIds " +
+            "AND hs.id.gameModeId = :gameModeId AND hs.timePlayed >= :minTimePlayed")
+    List<HeroStats> findHeroStatsBatch(@Param("heroIds") List<Short> heroIds,
+                                       @Param("gameModeId") short gameModeId,
                                        @Param("minTimePlayed") int minTimePlayed);
 
     // Data quality queries
     @Query("SELECT COUNT(hs) FROM HeroStats hs WHERE hs.wins = 0 AND hs.losses = 0 AND hs.draws = 0")
     long countEmptyStats();
 
-    @Query("SELECT hs.id.heroKey, COUNT(hs) FROM HeroStats hs GROUP BY hs.id.heroKey ORDER BY COUNT(hs) DESC")
+    @Query("SELECT hs.id.heroId, COUNT(hs) FROM HeroStats hs GROUP BY hs.id.heroId ORDER BY COUNT(hs) DESC")
     List<Object[]> getHeroStatsDistribution();
 }
\ No newline at end of file
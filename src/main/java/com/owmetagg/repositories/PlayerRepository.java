@@ -12,7 +12,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PlayerRepository extends JpaRepository<Player, String> {
+public interface PlayerRepository extends JpaRepository<Player, Long> {
 
     // Find player by battletag and platform (primary lookup method)
     @Query("SELECT p FROM Player p WHERE p.battletag = :battletag AND p.platform = :platform")
@@ -50,26 +50,14 @@ public interface PlayerRepository extends JpaRepository<Player, String> {
 
     // Find player ID by battletag (utility method like your polarisId lookup)
     @Query("SELECT p.playerId FROM Player p WHERE p.battletag = :battletag AND p.platform = :platform")
-    Optional<String> findPlayerIdByBattletagAndPlatform(@Param("battletag") String battletag, @Param("platform") String platform);
+    Optional<Long> findPlayerIdByBattletagAndPlatform(@Param("battletag") String battletag, @Param("platform") String platform);
 
     // Find players by region with activity filter
     @Query("SELECT p FROM Player p WHERE p.region = :region " +
             "AND p.lastUpdated > :since ORDER BY p.lastUpdated DESC")
     List<Player> findActivePlayersByRegion(@Param("region") String region, @Param("since") LocalDateTime since);
 
-    // Find players by skill rating range (for leaderboards)
-    @Query("SELECT p FROM Player p WHERE p.skillRating BETWEEN :minRating AND :maxRating " +
-            "AND p.platform = :platform ORDER BY p.skillRating DESC")
-    List<Player> findPlayersBySkillRatingRange(@Param("minRating") Integer minRating,
-                                               @Param("maxRating") Integer maxRating,
-                                               @Param("platform") String platform,
-                                               PageRequest pageRequest);
-
-    // Top players by skill rating (for leaderboards)
-    @Query("SELECT p FROM Player p WHERE p.skillRating IS NOT NULL " +
-            "AND p.platform = :platform " +
-            "ORDER BY p.skillRating DESC")
-    List<Player> findTopPlayersBySkillRating(@Param("platform") String platform, PageRequest pageRequest);
+    // Leaderboards: PlayerService.getLeaderboard (keyset pages, no EAGER hero lists)
 
     // Find players who need data refresh (haven't been updated recently)
     @Query("SELECT p FROM Player p WHERE p.lastUpdated < :threshold ORDER BY p.lastUpdated ASC")
@@ -95,5 +83,5 @@ public interface PlayerRepository extends JpaRepository<Player, String> {
 
     // Batch operations support
     @Query("SELECT p FROM Player p WHERE p.playerId IN :playerIds")
-    List<Player> findPlayersByIds(@Param("playerIds") List<String> playerIds);
+    List<Player> findPlayersByIds(@Param("playerIds") List<Long> playerIds);
 }
\ No newline at end of file
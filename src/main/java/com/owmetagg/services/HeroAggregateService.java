@@ -0,0 +1,220 @@
+package com.owmetagg.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Running hero totals per (game mode, SR bracket, hero) in hero_aggregates (V12).
+ *
+ * Ingest adds what each hero_stats upsert changed to striped LongAdder counters, without locks.
+ * A scheduled flush drains the counters and adds them to the table in one transaction, so the
+ * aggregate write cost is O(heroes) per interval however many messages arrive.
+ *
+ * Every flush carries a sequence number recorded in hero_aggregate_flushes in the same
+ * transaction. A flush whose outcome is unknown is retried with the same sequence and skipped
+ * if it had already committed, so deltas are neither lost nor added twice.
+ */
+@Slf4j
+@Service
+public class HeroAggregateService {
+
+    // Summed columns, in the order of the delta arrays
+    public static final List<String> COLUMNS = List.of(
+            "wins", "losses", "draws", "time_played",
+            "eliminations", "deaths", "assists", "damage_dealt", "healing_done");
+
+    private static final Comparator<AggregateKey> KEY_ORDER = Comparator.comparingInt(AggregateKey::gameModeId)
+            .thenComparing(AggregateKey::srBracket)
+            .thenComparingInt(AggregateKey::heroId);
+
+    private final JdbcTemplate ingestJdbcTemplate;
+    private final TransactionTemplate ingestTransactionTemplate;
+
+    // Identifies this instance's flushes in the ledger
+    private final UUID flusherId = UUID.randomUUID();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Keys are never removed: there are only heroes x modes x brackets of them
+    private final ConcurrentHashMap<AggregateKey, LongAdder[]> pending = new ConcurrentHashMap<>();
+
+    // Last flush that failed, retried as-is before anything new is drained
+    private Flush unconfirmed;
+
+    // Not a monitor: flushes write to the database, which would pin a virtual scheduler thread
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public HeroAggregateService(
+            @Qualifier("ingestJdbcTemplate") JdbcTemplate ingestJdbcTemplate,
+            @Qualifier("ingestTransactionManager") PlatformTransactionManager ingestTransactionManager) {
+        this.ingestJdbcTemplate = ingestJdbcTemplate;
+        this.ingestTransactionTemplate = new TransactionTemplate(ingestTransactionManager);
+    }
+
+    public record AggregateKey(short gameModeId, String srBracket, short heroId) {
+    }
+
+    private record Flush(long sequence, SortedMap<AggregateKey, long[]> deltas) {
+    }
+
+    /**
+     * Add deltas (arrays in COLUMNS order) once the surrounding transaction commits, so
+     * rolled-back writes are never counted; immediately when there is no transaction.
+     */
+    public void addAfterCommit(Map<AggregateKey, long[]> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deltas.forEach(this::add);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deltas.forEach(HeroAggregateService.this::add);
+            }
+        });
+    }
+
+    /**
+     * Book a hero_stats row replacing another into deltas: the new row is added to its bracket
+     * and the previous row, if any, taken out of the bracket it was counted in (the new bracket
+     * when that is unknown). Within one bracket this nets to new minus old; when the player
+     * moved, the old bracket loses the whole previous row and the new one gains the whole new row.
+     */
+    static void addReplacement(Map<AggregateKey, long[]> deltas, short gameModeId, short heroId,
+                               String bracket, long[] row, String previousBracket, long[] previousRow) {
+        long[] added = deltas.computeIfAbsent(new AggregateKey(gameModeId, bracket, heroId),
+                key -> new long[COLUMNS.size()]);
+        for (int i = 0; i < added.length; i++) {
+            added[i] += row[i];
+        }
+        if (previousRow == null) {
+            return;
+        }
+        long[] removed = deltas.computeIfAbsent(
+                new AggregateKey(gameModeId, previousBracket != null ? previousBracket : bracket, heroId),
+                key -> new long[COLUMNS.size()]);
+        for (int i = 0; i < removed.length; i++) {
+            removed[i] -= previousRow[i];
+        }
+    }
+
+    public void add(AggregateKey key, long[] delta) {
+        LongAdder[] counters = pending.computeIfAbsent(key, k -> {
+            LongAdder[] adders = new LongAdder[COLUMNS.size()];
+            Arrays.setAll(adders, i -> new LongAdder());
+            return adders;
+        });
+        for (int i = 0; i < counters.length; i++) {
+            if (delta[i] != 0) counters[i].add(delta[i]);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${statistics.aggregates.flush-interval-ms:10000}")
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (unconfirmed != null) {
+                if (!apply(unconfirmed)) return;
+                unconfirmed = null;
+            }
+
+            // sumThenReset() never loses a concurrent add: it lands in this flush or the next
+            SortedMap<AggregateKey, long[]> deltas = new TreeMap<>(KEY_ORDER);
+            pending.forEach((key, counters) -> {
+                long[] delta = new long[counters.length];
+                boolean changed = false;
+                for (int i = 0; i < counters.length; i++) {
+                    delta[i] = counters[i].sumThenReset();
+                    changed |= delta[i] != 0;
+                }
+                if (changed) deltas.put(key, delta);
+            });
+            if (deltas.isEmpty()) {
+                return;
+            }
+
+            Flush flush = new Flush(sequence.incrementAndGet(), deltas);
+            if (!apply(flush)) {
+                unconfirmed = flush;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private boolean apply(Flush flush) {
+        long startTime = System.currentTimeMillis();
+        try {
+            Boolean applied = ingestTransactionTemplate.execute(status -> {
+                int recorded = ingestJdbcTemplate.update(
+                        "INSERT INTO hero_aggregate_flushes (flusher_id, sequence, key_count) " +
+                                "VALUES (?, ?, ?) ON CONFLICT DO NOTHING",
+                        flusherId, flush.sequence(), flush.deltas().size());
+                if (recorded == 0) {
+                    return false;
+                }
+
+                List<Map.Entry<AggregateKey, long[]>> rows = new ArrayList<>(flush.deltas().entrySet());
+                ingestJdbcTemplate.batchUpdate(upsertSql(), rows, rows.size(), (ps, row) -> {
+                    AggregateKey key = row.getKey();
+                    ps.setShort(1, key.gameModeId());
+                    ps.setString(2, key.srBracket());
+                    ps.setShort(3, key.heroId());
+                    long[] delta = row.getValue();
+                    for (int i = 0; i < delta.length; i++) {
+                        ps.setLong(4 + i, delta[i]);
+                    }
+                });
+
+                // Only the latest sequence can still be retried by this instance
+                ingestJdbcTemplate.update(
+                        "DELETE FROM hero_aggregate_flushes WHERE (flusher_id = ? AND sequence < ?) " +
+                                "OR flushed_at < NOW() - INTERVAL '7 days'",
+                        flusherId, flush.sequence());
+                return true;
+            });
+
+            if (Boolean.TRUE.equals(applied)) {
+                log.debug("⚡ Flushed {} hero aggregate deltas (#{}) in {} ms",
+                        flush.deltas().size(), flush.sequence(), System.currentTimeMillis() - startTime);
+            } else {
+                log.info("↩️ Hero aggregate flush #{} was already applied, skipping", flush.sequence());
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.error("❌ Failed to flush {} hero aggregate deltas (#{}), retrying on next flush",
+                    flush.deltas().size(), flush.sequence(), e);
+            return false;
+        }
+    }
+
+    private static String upsertSql() {
+        String columns = String.join(", ", COLUMNS);
+        String placeholders = String.join(", ", Collections.nCopies(COLUMNS.size(), "?"));
+        StringJoiner increments = new StringJoiner(", ");
+        for (String column : COLUMNS) {
+            increments.add(column + " = hero_aggregates." + column + " + EXCLUDED." + column);
+        }
+        return "INSERT INTO hero_aggregates (game_mode_id, sr_bracket, hero_id, " + columns + ") " +
+                "VALUES (?, ?, ?, " + placeholders + ") " +
+                "ON CONFLICT (game_mode_id, sr_bracket, hero_id) DO UPDATE SET " +
+                increments + ", updated_at = NOW()";
+    }
+}
@@ -0,0 +1,355 @@
+package com.owmetagg.services;
+
+import com.owmetagg.models.RankCategory;
+import com.owmetagg.utils.HyperLogLog;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * HyperLogLog sketches of the players seen per (day, hero, game mode, platform, SR bracket),
+ * stored in hero_pick_sketches (V11). They replace COUNT(DISTINCT player_id) for pick counts:
+ * any window of days and any rollup is a union of sketches.
+ *
+ * Ingest adds to in-memory sketches; a scheduled flush unions them into the table. Adding a
+ * player twice changes nothing, so retried messages and re-fetched players never inflate counts.
+ *
+ * Platform and SR bracket are the player's at ingest time and are never taken back out of a
+ * sketch. A player who climbs (or plays on another platform) is counted in every bracket they
+ * were ingested in, so all-time per-bracket counts are "players who were ever seen in this
+ * bracket". That is a different quantity from the exact COUNT(DISTINCT) by current bracket,
+ * and the HyperLogLog error bound only covers the sketch against its own exact count. Day
+ * sketches are affected only within a day.
+ */
+@Slf4j
+@Service
+public class HeroPickSketchService {
+
+    // sketch_date of the all-time rows
+    public static final LocalDate ALL_TIME = LocalDate.EPOCH;
+
+    // hero_id of the rows counting players of any hero (pick-rate denominators)
+    public static final short ANY_HERO = 0;
+
+    // platform_id / sr_bracket of rolled-up counts
+    public static final short ALL_PLATFORMS = 0;
+    public static final String ALL_BRACKETS = RankCategory.ALL_RANKS.name();
+
+    // Bracket of players without a rating, as in hero_statistics_bracketed
+    public static final String UNRANKED = "UNRANKED";
+
+    private static final int BACKFILL_BATCH_SIZE = 5000;
+
+    private static final Comparator<SketchKey> KEY_ORDER = Comparator.comparing(SketchKey::day)
+            .thenComparingInt(SketchKey::gameModeId)
+            .thenComparingInt(SketchKey::heroId)
+            .thenComparingInt(SketchKey::platformId)
+            .thenComparing(SketchKey::srBracket);
+
+    private final JdbcTemplate ingestJdbcTemplate;
+    private final JdbcTemplate statisticsJdbcTemplate;
+    private final TransactionTemplate ingestTransactionTemplate;
+
+    @Value("${statistics.sketches.retention-days:90}")
+    private int retentionDays;
+
+    private final ConcurrentHashMap<SketchKey, HyperLogLog> pending = new ConcurrentHashMap<>();
+
+    public HeroPickSketchService(
+            @Qualifier("ingestJdbcTemplate") JdbcTemplate ingestJdbcTemplate,
+            @Qualifier("statisticsJdbcTemplate") JdbcTemplate statisticsJdbcTemplate,
+            @Qualifier("ingestTransactionManager") PlatformTransactionManager ingestTransactionManager) {
+        this.ingestJdbcTemplate = ingestJdbcTemplate;
+        this.statisticsJdbcTemplate = statisticsJdbcTemplate;
+        this.ingestTransactionTemplate = new TransactionTemplate(ingestTransactionManager);
+    }
+
+    public record SketchKey(LocalDate day, short heroId, short gameModeId, short platformId, String srBracket) {
+    }
+
+    /**
+     * Sketches loaded for one calculation; counts are unions over groups of rows
+     */
+    public record Sketches(Map<SketchKey, HyperLogLog> rows) {
+
+        /**
+         * Distinct players per group. A row may feed several groups (rollups) or none.
+         */
+        public <K> Map<K, Long> countBy(Function<SketchKey, Collection<K>> groups) {
+            Map<K, HyperLogLog> unions = new HashMap<>();
+            rows.forEach((key, sketch) -> {
+                for (K group : groups.apply(key)) {
+                    unions.computeIfAbsent(group, g -> new HyperLogLog()).merge(sketch);
+                }
+            });
+
+            Map<K, Long> counts = new HashMap<>();
+            unions.forEach((group, union) -> counts.put(group, union.cardinality()));
+            return counts;
+        }
+    }
+
+    public static String bracketOf(Integer skillRating) {
+        return skillRating == null ? UNRANKED : RankCategory.fromSkillRating(skillRating).name();
+    }
+
+    /**
+     * Count a player as having played a hero today (and all-time), plus the any-hero rows
+     */
+    public void record(long playerId, short heroId, short gameModeId, short platformId, String srBracket) {
+        LocalDate today = LocalDate.now();
+        add(new SketchKey(today, heroId, gameModeId, platformId, srBracket), playerId);
+        add(new SketchKey(today, ANY_HERO, gameModeId, platformId, srBracket), playerId);
+        add(new SketchKey(ALL_TIME, heroId, gameModeId, platformId, srBracket), playerId);
+        add(new SketchKey(ALL_TIME, ANY_HERO, gameModeId, platformId, srBracket), playerId);
+    }
+
+    private void add(SketchKey key, long playerId) {
+        // compute() holds the bin lock, so concurrent adds to one sketch never race
+        pending.compute(key, (k, sketch) -> {
+            HyperLogLog target = sketch != null ? sketch : new HyperLogLog();
+            target.add(playerId);
+            return target;
+        });
+    }
+
+    /**
+     * Union the pending sketches into hero_pick_sketches. Sketches that fail to write go
+     * back to pending for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${statistics.sketches.flush-interval-ms:30000}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // remove() is atomic against add(), so nothing recorded meanwhile is lost
+        Map<SketchKey, HyperLogLog> batch = new TreeMap<>(KEY_ORDER);
+        for (SketchKey key : pending.keySet()) {
+            HyperLogLog sketch = pending.remove(key);
+            if (sketch != null) {
+                batch.put(key, sketch);
+            }
+        }
+
+        try {
+            writeSketches(batch);
+        } catch (RuntimeException e) {
+            log.error("❌ Failed to flush {} hero pick sketches, retrying on next flush", batch.size(), e);
+            batch.forEach((key, sketch) -> pending.merge(key, sketch, HyperLogLog::merge));
+        }
+    }
+
+    private void writeSketches(Map<SketchKey, HyperLogLog> batch) {
+        long startTime = System.currentTimeMillis();
+        List<SketchKey> keys = new ArrayList<>(batch.keySet());
+
+        ingestTransactionTemplate.executeWithoutResult(status -> {
+            // New rows are written as they are; keys are sorted so concurrent flushes lock in one order
+            int[] inserted = ingestJdbcTemplate.batchUpdate(
+                    "INSERT INTO hero_pick_sketches " +
+                            "(sketch_date, hero_id, game_mode_id, platform_id, sr_bracket, sketch) " +
+                            "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING",
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            SketchKey key = keys.get(i);
+                            setKey(ps, key);
+                            ps.setBytes(6, batch.get(key).toBytes());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return keys.size();
+                        }
+                    });
+
+            // Existing rows: lock, union, write back. A count other than 1 (conflict, or a
+            // driver that reports no counts) means merge; merging a sketch into itself is harmless.
+            Set<SketchKey> toMerge = new HashSet<>();
+            for (int i = 0; i < keys.size(); i++) {
+                if (inserted[i] != 1) toMerge.add(keys.get(i));
+            }
+            if (toMerge.isEmpty()) {
+                return;
+            }
+
+            // Only the rows being merged are read and locked, by joining the key columns
+            // against unnested arrays of the keys
+            List<SketchKey> mergeKeys = toMerge.stream().sorted(KEY_ORDER).toList();
+            Map<SketchKey, HyperLogLog> merged = new TreeMap<>(KEY_ORDER);
+            ingestJdbcTemplate.query(
+                    "SELECT s.sketch_date, s.hero_id, s.game_mode_id, s.platform_id, s.sr_bracket, s.sketch " +
+                            "FROM hero_pick_sketches s " +
+                            "JOIN unnest(?::date[], ?::smallint[], ?::smallint[], ?::smallint[], ?::text[]) " +
+                            "AS k(sketch_date, hero_id, game_mode_id, platform_id, sr_bracket) " +
+                            "ON s.sketch_date = k.sketch_date AND s.hero_id = k.hero_id " +
+                            "AND s.game_mode_id = k.game_mode_id AND s.platform_id = k.platform_id " +
+                            "AND s.sr_bracket = k.sr_bracket " +
+                            "ORDER BY s.sketch_date, s.game_mode_id, s.hero_id, s.platform_id, s.sr_bracket " +
+                            "FOR UPDATE OF s",
+                    rs -> {
+                        SketchKey key = readKey(rs);
+                        merged.put(key, HyperLogLog.fromBytes(rs.getBytes("sketch")).merge(batch.get(key)));
+                    },
+                    mergeKeys.stream().map(key -> key.day().toString()).toArray(String[]::new),
+                    mergeKeys.stream().map(SketchKey::heroId).toArray(Short[]::new),
+                    mergeKeys.stream().map(SketchKey::gameModeId).toArray(Short[]::new),
+                    mergeKeys.stream().map(SketchKey::platformId).toArray(Short[]::new),
+                    mergeKeys.stream().map(SketchKey::srBracket).toArray(String[]::new));
+
+            List<SketchKey> mergedKeys = new ArrayList<>(merged.keySet());
+            ingestJdbcTemplate.batchUpdate(
+                    "UPDATE hero_pick_sketches SET sketch = ? WHERE sketch_date = ? AND hero_id = ? " +
+                            "AND game_mode_id = ? AND platform_id = ? AND sr_bracket = ?",
+                    mergedKeys, mergedKeys.size(), (ps, key) -> {
+                        ps.setBytes(1, merged.get(key).toBytes());
+                        ps.setDate(2, Date.valueOf(key.day()));
+                        ps.setShort(3, key.heroId());
+                        ps.setShort(4, key.gameModeId());
+                        ps.setShort(5, key.platformId());
+                        ps.setString(6, key.srBracket());
+                    });
+        });
+
+        log.debug("⚡ Flushed {} hero pick sketches in {} ms", batch.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Sketches of every day from {@code from} to today (all-time rows excluded)
+     */
+    public Sketches loadDays(LocalDate from) {
+        return load("sketch_date >= ? AND sketch_date <> ?", Date.valueOf(from), Date.valueOf(ALL_TIME));
+    }
+
+    public Sketches loadAllTime() {
+        return load("sketch_date = ?", Date.valueOf(ALL_TIME));
+    }
+
+    private Sketches load(String condition, Object... args) {
+        Map<SketchKey, HyperLogLog> rows = new HashMap<>();
+        statisticsJdbcTemplate.query(
+                "SELECT sketch_date, hero_id, game_mode_id, platform_id, sr_bracket, sketch " +
+                        "FROM hero_pick_sketches WHERE " + condition,
+                rs -> {
+                    rows.put(readKey(rs), HyperLogLog.fromBytes(rs.getBytes("sketch")));
+                },
+                args);
+        return new Sketches(rows);
+    }
+
+    /**
+     * Drop day sketches past the retention window; all-time rows are kept
+     */
+    @Scheduled(cron = "${statistics.sketches.purge-cron:0 30 3 * * *}")
+    public void purgeExpiredDays() {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        int deleted = ingestJdbcTemplate.update(
+                "DELETE FROM hero_pick_sketches WHERE sketch_date < ? AND sketch_date <> ?",
+                Date.valueOf(cutoff), Date.valueOf(ALL_TIME));
+        if (deleted > 0) {
+            log.info("🧹 Purged {} hero pick sketches older than {}", deleted, cutoff);
+        }
+    }
+
+    /**
+     * First start after V11: build the sketches from hero_stats. Each row counts on its
+     * last_played day, the same window the trend query used before sketches; rows without
+     * playtime are left out, as ingest never records them.
+     * Runs in the readiness phase (StartupWarmup).
+     */
+    public void backfillIfEmpty() {
+        Boolean hasSketches = statisticsJdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM hero_pick_sketches)", Boolean.class);
+        if (Boolean.TRUE.equals(hasSketches)) {
+            return;
+        }
+
+        log.info("🧮 Backfilling hero pick sketches from hero_stats...");
+        long startTime = System.currentTimeMillis();
+        long lastPlayer = 0;
+        long rows = 0;
+
+        while (true) {
+            Long batchEnd = statisticsJdbcTemplate.queryForObject(
+                    "SELECT MAX(player_id) FROM (SELECT player_id FROM players WHERE player_id > ? " +
+                            "ORDER BY player_id LIMIT ?) batch",
+                    Long.class, lastPlayer, BACKFILL_BATCH_SIZE);
+            if (batchEnd == null) {
+                break;
+            }
+
+            Map<SketchKey, HyperLogLog> batch = new TreeMap<>(KEY_ORDER);
+            long[] batchRows = {0};
+            statisticsJdbcTemplate.query("""
+                    SELECT hs.player_id, hs.hero_id, hs.game_mode_id, hs.platform_id,
+                           hs.last_played::date as played_on, p.skill_rating
+                    FROM hero_stats hs
+                    JOIN players p ON p.player_id = hs.player_id
+                    WHERE hs.player_id > ? AND hs.player_id <= ? AND hs.time_played > 0
+                    """,
+                    rs -> {
+                        long playerId = rs.getLong("player_id");
+                        short heroId = rs.getShort("hero_id");
+                        short gameModeId = rs.getShort("game_mode_id");
+                        short platformId = rs.getShort("platform_id");
+                        String bracket = bracketOf(rs.getObject("skill_rating", Integer.class));
+                        Date playedOn = rs.getDate("played_on");
+
+                        List<LocalDate> days = playedOn != null
+                                ? List.of(ALL_TIME, playedOn.toLocalDate()) : List.of(ALL_TIME);
+                        for (LocalDate day : days) {
+                            for (short hero : new short[]{heroId, ANY_HERO}) {
+                                batch.computeIfAbsent(new SketchKey(day, hero, gameModeId, platformId, bracket),
+                                        k -> new HyperLogLog()).add(playerId);
+                            }
+                        }
+                        batchRows[0]++;
+                    },
+                    lastPlayer, batchEnd);
+
+            if (!batch.isEmpty()) {
+                writeSketches(batch);
+            }
+            rows += batchRows[0];
+            lastPlayer = batchEnd;
+        }
+
+        log.info("✅ Backfilled hero pick sketches from {} hero_stats rows in {} ms",
+                rows, System.currentTimeMillis() - startTime);
+    }
+
+    private static void setKey(PreparedStatement ps, SketchKey key) throws SQLException {
+        ps.setDate(1, Date.valueOf(key.day()));
+        ps.setShort(2, key.heroId());
+        ps.setShort(3, key.gameModeId());
+        ps.setShort(4, key.platformId());
+        ps.setString(5, key.srBracket());
+    }
+
+    private static SketchKey readKey(ResultSet rs) throws SQLException {
+        return new SketchKey(
+                rs.getDate("sketch_date").toLocalDate(),
+                rs.getShort("hero_id"),
+                rs.getShort("game_mode_id"),
+                rs.getShort("platform_id"),
+                rs.getString("sr_bracket"));
+    }
+}
@@ -0,0 +1,308 @@
+package com.owmetagg.services;
+
+import com.owmetagg.models.Hero;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import static com.owmetagg.utils.Constants.*;
+
+/**
+ * Single source of hero metadata, loaded from the heroes table and kept in sync with
+ * OverFast /heroes. Every hero has a dense SMALLINT id (heroes.hero_id, V8) that never
+ * changes, so role / name / portrait lookups are plain array reads by id.
+ *
+ * Lookups go through an immutable snapshot that is swapped in one write on reload,
+ * so readers never lock and never see a half-built registry. Writers hold a ReentrantLock
+ * rather than a monitor: they query the database while holding it, and a virtual thread
+ * blocked inside synchronized pins its carrier thread.
+ *
+ * Unknown keys met during ingest are registered on the ingest pool, in the ingest
+ * transaction, and reach the snapshot only once it commits.
+ */
+@Slf4j
+@Service
+public class HeroRegistry implements InitializingBean {
+
+    public static final int UNKNOWN_HERO_ID = -1;
+
+    // Role assumed for a hero seen in player data before OverFast lists it
+    private static final String PROVISIONAL_ROLE = ROLE_DAMAGE;
+
+    // Static handle for code that is not a bean (entities, OverwatchDataMapperUtils)
+    private static volatile HeroRegistry instance;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate ingestJdbcTemplate;
+    private final OverFastService overFastService;
+
+    // Off on API-only instances: the ingest tier keeps the heroes table in sync, they only reload
+    @Value("${heroes.registry.sync-enabled:true}")
+    private boolean syncEnabled;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public HeroRegistry(JdbcTemplate jdbcTemplate,
+                        @Qualifier("ingestJdbcTemplate") JdbcTemplate ingestJdbcTemplate,
+                        OverFastService overFastService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ingestJdbcTemplate = ingestJdbcTemplate;
+        this.overFastService = overFastService;
+    }
+
+    // The snapshot is loaded by StartupWarmup; until then unknown keys still resolve via register()
+    @Override
+    public void afterPropertiesSet() {
+        instance = this;
+    }
+
+    public static HeroRegistry get() {
+        return instance;
+    }
+
+    /**
+     * Pull the roster from OverFast and upsert it, so new heroes show up without a deploy.
+     * Existing hero_ids are kept; new heroes take the next value of the sequence.
+     */
+    @Scheduled(fixedDelayString = "${heroes.registry.sync-interval-ms:3600000}")
+    public void syncFromOverFast() {
+        if (!syncEnabled) {
+            // Pick up heroes the ingest tier has added
+            reload();
+            return;
+        }
+
+        List<Hero> heroes = overFastService.fetchHeroes();
+        if (heroes.isEmpty()) {
+            log.warn("⚠️ OverFast returned no heroes, keeping {} registered heroes", snapshot.size());
+            return;
+        }
+
+        // The first sync can run before StartupWarmup has loaded the registry
+        if (snapshot.size() == 0) {
+            reload();
+        }
+
+        // Update known heroes and insert only new ones: an upsert would draw (and waste)
+        // a sequence value for every existing row on every sync
+        Snapshot current = snapshot;
+        List<Hero> newHeroes = heroes.stream()
+                .filter(hero -> !current.ids.containsKey(hero.getHeroKey()))
+                .toList();
+
+        jdbcTemplate.batchUpdate(
+                "UPDATE heroes SET name = ?, role = ?, portrait_url = ? WHERE hero_key = ?",
+                heroes, heroes.size(), (ps, hero) -> {
+                    ps.setString(1, hero.getDisplayName());
+                    ps.setString(2, hero.getRole());
+                    ps.setString(3, hero.getPortraitUrl());
+                    ps.setString(4, hero.getHeroKey());
+                });
+
+        if (!newHeroes.isEmpty()) {
+            log.info("🆕 OverFast lists {} new heroes: {}", newHeroes.size(),
+                    newHeroes.stream().map(Hero::getHeroKey).toList());
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO heroes (hero_key, name, role, portrait_url) VALUES (?, ?, ?, ?) " +
+                            "ON CONFLICT (hero_key) DO NOTHING",
+                    newHeroes, newHeroes.size(), (ps, hero) -> {
+                        ps.setString(1, hero.getHeroKey());
+                        ps.setString(2, hero.getDisplayName());
+                        ps.setString(3, hero.getRole());
+                        ps.setString(4, hero.getPortraitUrl());
+                    });
+        }
+
+        reload();
+    }
+
+    /**
+     * Rebuild the lookup snapshot from the heroes table
+     */
+    public void reload() {
+        reload(jdbcTemplate);
+    }
+
+    private void reload(JdbcTemplate lookup) {
+        writeLock.lock();
+        try {
+            List<Hero> heroes = lookup.query(
+                    "SELECT hero_id, hero_key, name, role, portrait_url FROM heroes ORDER BY hero_id",
+                    (rs, rowNum) -> {
+                        Hero hero = new Hero();
+                        hero.setHeroId(rs.getShort("hero_id"));
+                        hero.setHeroKey(rs.getString("hero_key"));
+                        hero.setName(rs.getString("name"));
+                        hero.setRole(rs.getString("role"));
+                        hero.setPortraitUrl(rs.getString("portrait_url"));
+                        return hero;
+                    });
+
+            Snapshot previous = snapshot;
+            snapshot = Snapshot.of(heroes);
+
+            if (snapshot.size() != previous.size()) {
+                log.info("🦸 Hero registry loaded {} heroes (was {})", snapshot.size(), previous.size());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Id for a hero key. A key the registry has never seen (new hero in player data before
+     * the next OverFast sync) is registered provisionally so ingest never has to skip it.
+     */
+    public int idOf(String heroKey) {
+        if (heroKey == null || heroKey.isBlank()) {
+            return UNKNOWN_HERO_ID;
+        }
+        Integer id = snapshot.ids.get(heroKey);
+        return id != null ? id : register(heroKey);
+    }
+
+    /**
+     * Insert a provisional hero on the ingest connection (inside the ingest transaction, so no
+     * second connection is taken) and return its id. The snapshot is reloaded after commit:
+     * a rolled back registration never becomes visible. No lock is held on the database call,
+     * since ON CONFLICT may wait for another transaction registering the same key.
+     */
+    private int register(String heroKey) {
+        log.info("🆕 Unknown hero '{}', registering until the next OverFast sync", heroKey);
+        List<Short> inserted = ingestJdbcTemplate.queryForList(
+                "INSERT INTO heroes (hero_key, name, role) VALUES (?, ?, ?) " +
+                        "ON CONFLICT (hero_key) DO NOTHING RETURNING hero_id",
+                Short.class, heroKey, nameFromKey(heroKey), PROVISIONAL_ROLE);
+        List<Short> ids = !inserted.isEmpty() ? inserted : ingestJdbcTemplate.queryForList(
+                "SELECT hero_id FROM heroes WHERE hero_key = ?", Short.class, heroKey);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload(ingestJdbcTemplate);
+                }
+            });
+        } else {
+            reload(ingestJdbcTemplate);
+        }
+
+        return !ids.isEmpty() ? ids.get(0) : UNKNOWN_HERO_ID;
+    }
+
+    public boolean isKnown(int heroId) {
+        return snapshot.contains(heroId);
+    }
+
+    public String keyOf(int heroId) {
+        Snapshot current = snapshot;
+        return current.contains(heroId) ? current.keys[heroId] : null;
+    }
+
+    public String nameOf(int heroId) {
+        Snapshot current = snapshot;
+        return current.contains(heroId) ? current.names[heroId] : null;
+    }
+
+    public String roleOf(int heroId) {
+        Snapshot current = snapshot;
+        return current.contains(heroId) ? current.roles[heroId] : null;
+    }
+
+    public String portraitOf(int heroId) {
+        Snapshot current = snapshot;
+        return current.contains(heroId) ? current.portraits[heroId] : null;
+    }
+
+    /**
+     * Display name for a hero key; falls back to a title-cased key for unregistered heroes
+     */
+    public String nameOf(String heroKey) {
+        if (heroKey == null) return "";
+        Snapshot current = snapshot;
+        Integer id = current.ids.get(heroKey);
+        return id != null ? current.names[id] : nameFromKey(heroKey);
+    }
+
+    public String roleOf(String heroKey) {
+        if (heroKey == null) return null;
+        Snapshot current = snapshot;
+        Integer id = current.ids.get(heroKey);
+        return id != null ? current.roles[id] : null;
+    }
+
+    /**
+     * Hero ids per role, ready to bind as a SQL array (hero_id = ANY(?))
+     */
+    public Map<String, Short[]> heroIdsByRole() {
+        return snapshot.idsByRole;
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * Highest id in use; arrays indexed by hero id need maxId() + 1 slots
+     */
+    public int maxId() {
+        return snapshot.keys.length - 1;
+    }
+
+    private static String nameFromKey(String heroKey) {
+        return Arrays.stream(heroKey.split("-"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word.substring(0, 1).toUpperCase() + word.substring(1))
+                .collect(Collectors.joining(" "));
+    }
+
+    private record Snapshot(String[] keys, String[] names, String[] roles, String[] portraits,
+                            Map<String, Integer> ids, Map<String, Short[]> idsByRole) {
+
+        static final Snapshot EMPTY = new Snapshot(new String[0], new String[0], new String[0],
+                new String[0], Map.of(), Map.of());
+
+        static Snapshot of(List<Hero> heroes) {
+            int length = heroes.stream().mapToInt(Hero::getHeroId).max().orElse(-1) + 1;
+            String[] keys = new String[length];
+            String[] names = new String[length];
+            String[] roles = new String[length];
+            String[] portraits = new String[length];
+            Map<String, Integer> ids = new HashMap<>();
+            Map<String, List<Short>> idsByRole = new HashMap<>();
+
+            for (Hero hero : heroes) {
+                int id = hero.getHeroId();
+                keys[id] = hero.getHeroKey();
+                names[id] = hero.getDisplayName();
+                roles[id] = hero.getRole();
+                portraits[id] = hero.getPortraitUrl();
+                ids.put(hero.getHeroKey(), id);
+                idsByRole.computeIfAbsent(hero.getRole(), role -> new ArrayList<>()).add(hero.getHeroId());
+            }
+
+            Map<String, Short[]> roleArrays = idsByRole.entrySet().stream()
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> e.getValue().toArray(Short[]::new)));
+            return new Snapshot(keys, names, roles, portraits, Map.copyOf(ids), roleArrays);
+        }
+
+        boolean contains(int heroId) {
+            return heroId >= 0 && heroId < keys.length && keys[heroId] != null;
+        }
+
+        int size() {
+            return ids.size();
+        }
+    }
+}
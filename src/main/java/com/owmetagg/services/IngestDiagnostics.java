@@ -0,0 +1,147 @@
+package com.owmetagg.services;
+
+import com.owmetagg.dtos.PlayerIngestMessage;
+import com.owmetagg.utils.PayloadFormat;
+import com.owmetagg.utils.PlayerRowsCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.slf4j.spi.NOPLoggingEventBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cheap logging for the ingest path.
+ *
+ * Per-message INFO lines are sampled per stage (1 in N messages), carrying their fields as
+ * SLF4J key-values so the json-logs profile emits them as structured fields. Raw OverFast
+ * payloads are never logged: they are kept in a bounded ring buffer when processing fails,
+ * or for every message while ingest.logging.dump-payloads is on, and read back through the
+ * actuator endpoint /actuator/ingestpayloads.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "ingestpayloads")
+public class IngestDiagnostics {
+
+    public enum Stage {
+        RECEIVE, EXTRACT, WRITE
+    }
+
+    public record CapturedPayload(LocalDateTime capturedAt, String battletag, String reason,
+                                  int payloadLength, String payload) {
+    }
+
+    private final Map<Stage, Integer> sampleEvery = new EnumMap<>(Stage.class);
+    private final Map<Stage, AtomicLong> seen = new EnumMap<>(Stage.class);
+
+    private final boolean dumpPayloads;
+    private final int bufferSize;
+    private final int payloadMaxChars;
+    private final ArrayDeque<CapturedPayload> payloads = new ArrayDeque<>();
+
+    public IngestDiagnostics(
+            @Value("${ingest.logging.sample-every.receive:100}") int receiveSampleEvery,
+            @Value("${ingest.logging.sample-every.extract:100}") int extractSampleEvery,
+            @Value("${ingest.logging.sample-every.write:100}") int writeSampleEvery,
+            @Value("${ingest.logging.dump-payloads:false}") boolean dumpPayloads,
+            @Value("${ingest.logging.payload-buffer-size:50}") int bufferSize,
+            @Value("${ingest.logging.payload-max-chars:65536}") int payloadMaxChars) {
+        sampleEvery.put(Stage.RECEIVE, Math.max(1, receiveSampleEvery));
+        sampleEvery.put(Stage.EXTRACT, Math.max(1, extractSampleEvery));
+        sampleEvery.put(Stage.WRITE, Math.max(1, writeSampleEvery));
+        for (Stage stage : Stage.values()) {
+            seen.put(stage, new AtomicLong());
+        }
+        this.dumpPayloads = dumpPayloads;
+        this.bufferSize = bufferSize;
+        this.payloadMaxChars = payloadMaxChars;
+
+        if (dumpPayloads) {
+            log.warn("⚠️ ingest.logging.dump-payloads is on: every payload is kept in /actuator/ingestpayloads");
+        }
+    }
+
+    /**
+     * INFO event for one in every N messages of the stage, a no-op builder otherwise.
+     * The returned event already carries stage and (when given) battletag key-values.
+     */
+    public LoggingEventBuilder sample(Logger logger, Stage stage, String battletag) {
+        int every = sampleEvery.get(stage);
+        if (seen.get(stage).getAndIncrement() % every != 0 || !logger.isInfoEnabled()) {
+            return NOPLoggingEventBuilder.singleton();
+        }
+        LoggingEventBuilder event = logger.atInfo()
+                .addKeyValue("stage", stage.name().toLowerCase())
+                .addKeyValue("sampleEvery", every);
+        return battletag != null ? event.addKeyValue("battletag", battletag) : event;
+    }
+
+    public boolean isDumpingPayloads() {
+        return dumpPayloads;
+    }
+
+    /**
+     * Keep a message body: the OverFast JSON as is, player rows decoded to text
+     */
+    public void capture(PlayerIngestMessage message, String reason) {
+        capture(message.getBattletag(), reason, readableBody(message));
+    }
+
+    public void capture(String battletag, String reason, String payload) {
+        if (bufferSize <= 0) {
+            return;
+        }
+        int length = payload != null ? payload.length() : 0;
+        String kept = length > payloadMaxChars ? payload.substring(0, payloadMaxChars) : payload;
+        CapturedPayload captured = new CapturedPayload(LocalDateTime.now(), battletag, reason, length, kept);
+
+        synchronized (payloads) {
+            if (payloads.size() >= bufferSize) {
+                payloads.removeFirst();
+            }
+            payloads.addLast(captured);
+        }
+    }
+
+    private static String readableBody(PlayerIngestMessage message) {
+        try {
+            if (message.getFormat() == PayloadFormat.PLAYER_ROWS) {
+                try (InputStream body = message.getContentEncoding().decode(message.getBody())) {
+                    return PlayerRowsCodec.decode(body).toString();
+                }
+            }
+            return message.getContentEncoding().decodeToString(message.getBody());
+        } catch (IOException e) {
+            return "<undecodable " + message.getContentEncoding().getHeader() + " " + message.getFormat()
+                    + " body: " + e.getMessage() + ">";
+        }
+    }
+
+    @ReadOperation
+    public List<CapturedPayload> recentPayloads() {
+        synchronized (payloads) {
+            return new ArrayList<>(payloads);
+        }
+    }
+
+    @DeleteOperation
+    public void clearPayloads() {
+        synchronized (payloads) {
+            payloads.clear();
+        }
+    }
+}
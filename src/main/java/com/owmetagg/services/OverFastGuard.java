@@ -0,0 +1,178 @@
+package com.owmetagg.services;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker and bulkhead shared by every OverFast call (player fetches, heroes, search,
+ * health probe), so a slow or failing OverFast costs callers a fast OverFastUnavailableException
+ * instead of a blocked thread.
+ *
+ * The breaker opens when, over the last sliding-window-size calls, the share of 5xx responses
+ * and I/O errors (timeouts included) reaches failure-rate-threshold, or the share of calls
+ * slower than slow-call-duration-ms reaches slow-call-rate-threshold. It stays open for
+ * wait-in-open-ms, then lets half-open-calls through to decide whether to close again.
+ * 404 and other 4xx are answers, not failures; 429 is left to OverFastRateLimiter.
+ *
+ * The bulkhead caps concurrent OverFast calls, so request threads (search) queue at most
+ * bulkhead.max-wait-ms behind a stalled upstream.
+ */
+@Slf4j
+@Component
+public class OverFastGuard {
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Duration waitInOpen;
+
+    private final Counter rejectedOpen;
+    private final Counter rejectedFull;
+
+    public OverFastGuard(
+            MeterRegistry meterRegistry,
+            @Value("${overfast.api.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${overfast.api.circuit-breaker.slow-call-rate-threshold:50}") float slowCallRateThreshold,
+            @Value("${overfast.api.circuit-breaker.slow-call-duration-ms:5000}") long slowCallDurationMs,
+            @Value("${overfast.api.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${overfast.api.circuit-breaker.minimum-number-of-calls:10}") int minimumNumberOfCalls,
+            @Value("${overfast.api.circuit-breaker.wait-in-open-ms:30000}") long waitInOpenMs,
+            @Value("${overfast.api.circuit-breaker.half-open-calls:3}") int halfOpenCalls,
+            @Value("${overfast.api.bulkhead.max-concurrent-calls:4}") int maxConcurrentCalls,
+            @Value("${overfast.api.bulkhead.max-wait-ms:0}") long maxWaitMs) {
+        this.waitInOpen = Duration.ofMillis(waitInOpenMs);
+
+        this.circuitBreaker = CircuitBreaker.of("overfast", CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(Math.min(minimumNumberOfCalls, slidingWindowSize))
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMs))
+                .waitDurationInOpenState(waitInOpen)
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .recordExceptions(HttpServerErrorException.class, ResourceAccessException.class)
+                .ignoreExceptions(HttpClientErrorException.TooManyRequests.class)
+                .build());
+        this.bulkhead = Bulkhead.of("overfast", BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ofMillis(maxWaitMs))
+                .build());
+
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            switch (event.getStateTransition().getToState()) {
+                case OPEN -> log.warn("🔌 OverFast circuit opened ({}), failing calls fast for {} ms",
+                        describeMetrics(), waitInOpenMs);
+                case HALF_OPEN -> log.info("🔌 OverFast circuit half-open, probing with {} calls", halfOpenCalls);
+                case CLOSED -> log.info("🔌 OverFast circuit closed, calls flowing again");
+                default -> log.info("🔌 OverFast circuit {}", event.getStateTransition());
+            }
+        });
+
+        Gauge.builder("overfast.circuit.state", circuitBreaker, breaker -> breaker.getState().getOrder())
+                .description("OverFast circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        Gauge.builder("overfast.circuit.failure_rate", circuitBreaker, breaker -> breaker.getMetrics().getFailureRate())
+                .description("Share of failed OverFast calls in the sliding window, -1 until minimum-number-of-calls")
+                .baseUnit("percent")
+                .register(meterRegistry);
+        Gauge.builder("overfast.circuit.slow_call_rate", circuitBreaker, breaker -> breaker.getMetrics().getSlowCallRate())
+                .description("Share of slow OverFast calls in the sliding window, -1 until minimum-number-of-calls")
+                .baseUnit("percent")
+                .register(meterRegistry);
+        Gauge.builder("overfast.bulkhead.available", bulkhead, b -> b.getMetrics().getAvailableConcurrentCalls())
+                .description("OverFast calls that can start right now")
+                .register(meterRegistry);
+        this.rejectedOpen = Counter.builder("overfast.circuit.rejected")
+                .description("OverFast calls refused without being made")
+                .tag("reason", "open")
+                .register(meterRegistry);
+        this.rejectedFull = Counter.builder("overfast.circuit.rejected")
+                .description("OverFast calls refused without being made")
+                .tag("reason", "bulkhead_full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * OverFast refused the call up front: circuit open or too many calls in flight.
+     * retryAfter is how long the circuit stays open, null when the bulkhead was full.
+     * Either way OverFast itself was not called.
+     */
+    public static class OverFastUnavailableException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final Duration retryAfter;
+        private final boolean bulkheadFull;
+
+        OverFastUnavailableException(String message, Duration retryAfter, boolean bulkheadFull) {
+            super(message);
+            this.retryAfter = retryAfter;
+            this.bulkheadFull = bulkheadFull;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        // Our own concurrency cap, not a sign that OverFast is unhealthy
+        public boolean isBulkheadFull() {
+            return bulkheadFull;
+        }
+    }
+
+    /**
+     * Make an OverFast call under the bulkhead and circuit breaker. Exceptions of the call
+     * itself are rethrown unchanged after being recorded.
+     */
+    public <T> T call(Supplier<T> call) {
+        try {
+            return bulkhead.executeSupplier(() -> circuitBreaker.executeSupplier(call));
+        } catch (CallNotPermittedException e) {
+            throw rejectedOpen();
+        } catch (BulkheadFullException e) {
+            rejectedFull.increment();
+            throw new OverFastUnavailableException("Too many OverFast calls in flight", null, true);
+        }
+    }
+
+    /**
+     * Fail fast before spending time on the rate limiter when the circuit is open
+     */
+    public void checkPermitted() {
+        if (circuitBreaker.getState() == CircuitBreaker.State.OPEN
+                || circuitBreaker.getState() == CircuitBreaker.State.FORCED_OPEN) {
+            throw rejectedOpen();
+        }
+    }
+
+    public String getState() {
+        return circuitBreaker.getState().name();
+    }
+
+    private OverFastUnavailableException rejectedOpen() {
+        rejectedOpen.increment();
+        return new OverFastUnavailableException("OverFast circuit open (" + describeMetrics() + ")", waitInOpen, false);
+    }
+
+    private String describeMetrics() {
+        CircuitBreaker.Metrics metrics = circuitBreaker.getMetrics();
+        return String.format("failure rate %.0f%%, slow calls %.0f%%",
+                metrics.getFailureRate(), metrics.getSlowCallRate());
+    }
+}
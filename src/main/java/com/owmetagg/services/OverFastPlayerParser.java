@@ -0,0 +1,201 @@
+package com.owmetagg.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.owmetagg.dtos.ParsedPlayerDTO;
+import com.owmetagg.dtos.ParsedPlayerDTO.HeroStatRow;
+import com.owmetagg.models.GameMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.owmetagg.utils.Constants.*;
+
+/**
+ * Extracts what ingest stores from an OverFast player document: profile, role ranks and
+ * per-hero career stats. Runs in the consumer for raw messages and in OverFastService when
+ * the producer sends player rows, so both formats store exactly the same values.
+ */
+@Slf4j
+@Component
+public class OverFastPlayerParser {
+
+    // OW2 division base ratings (tier 5 is lowest, 1 is highest within each division)
+    private static final Map<String, Integer> DIVISION_BASE_RATINGS = Map.of(
+            "bronze", 1000,
+            "silver", 1500,
+            "gold", 2000,
+            "platinum", 2500,
+            "diamond", 3000,
+            "master", 3500,
+            "grandmaster", 4000,
+            "champion", 4500
+    );
+
+    private static final String[] ROLES = {ROLE_TANK, ROLE_DAMAGE, ROLE_SUPPORT, ROLE_OPEN};
+
+    /**
+     * Parse a player document. Missing or malformed sections are logged and left empty,
+     * so a partial profile is still stored.
+     */
+    public ParsedPlayerDTO parse(JsonNode playerJson, String battletag, String platform) {
+        ParsedPlayerDTO player = ParsedPlayerDTO.builder()
+                .battletag(battletag)
+                .platform(platform)
+                .build();
+
+        try {
+            extractSummary(playerJson.get("summary"), player);
+        } catch (Exception e) {
+            log.warn("⚠️ Could not extract all player data for: {}", battletag, e);
+        }
+
+        try {
+            extractHeroStats(playerJson.get("stats"), player);
+        } catch (Exception e) {
+            log.error("⚠️ Could not extract hero stats for: {}", battletag, e);
+            player.getHeroStats().clear();
+        }
+
+        return player;
+    }
+
+    private void extractSummary(JsonNode summary, ParsedPlayerDTO player) {
+        if (summary == null) {
+            return;
+        }
+        player.setUsername(summary.has("username") ? summary.get("username").asText() : null);
+        player.setAvatarUrl(summary.has("avatar") ? summary.get("avatar").asText() : null);
+
+        // Competitive ranks are in summary.competitive.pc
+        JsonNode pcRanks = summary.path("competitive").get("pc");
+        if (pcRanks == null || pcRanks.isNull()) {
+            return;
+        }
+
+        Integer highestSR = null;
+        for (String role : ROLES) {
+            JsonNode roleRank = pcRanks.get(role);
+            if (roleRank == null || roleRank.isNull()) {
+                continue;
+            }
+
+            String division = roleRank.path("division").asText(null);
+            Integer tier = roleRank.has("tier") ? roleRank.get("tier").asInt() : null;
+
+            Integer roleSR = convertDivisionAndTierToSR(division, tier);
+            switch (role) {
+                case ROLE_TANK -> player.setTankRating(roleSR);
+                case ROLE_DAMAGE -> player.setDamageRating(roleSR);
+                case ROLE_SUPPORT -> player.setSupportRating(roleSR);
+                case ROLE_OPEN -> player.setOpenRating(roleSR);
+            }
+            log.debug("🎯 {} rank: {} {} (SR: {})", role, division, tier, roleSR);
+
+            if (roleSR != null && (highestSR == null || roleSR > highestSR)) {
+                highestSR = roleSR;
+            }
+        }
+
+        player.setSkillRating(highestSR);
+        log.debug("💎 Highest SR for {}: {}", player.getBattletag(), highestSR);
+    }
+
+    private static Integer convertDivisionAndTierToSR(String division, Integer tier) {
+        if (division == null || tier == null) return null;
+
+        Integer baseRating = DIVISION_BASE_RATINGS.get(division.toLowerCase());
+        if (baseRating == null) return null;
+
+        // Each tier is roughly 100 SR, tier 5 = +0, tier 1 = +400
+        return baseRating + (5 - tier) * 100;
+    }
+
+    private void extractHeroStats(JsonNode stats, ParsedPlayerDTO player) {
+        if (stats == null) {
+            log.debug("No stats found for player: {}", player.getBattletag());
+            return;
+        }
+
+        JsonNode platformStats = stats.get(player.getPlatform());
+        if (platformStats == null) {
+            log.warn("No {} stats found for player: {}. Available platforms: {}",
+                    player.getPlatform(), player.getBattletag(), stats.fieldNames());
+            return;
+        }
+
+        for (GameMode gameMode : List.of(GameMode.COMPETITIVE, GameMode.QUICKPLAY)) {
+            JsonNode gameModeStats = platformStats.get(gameMode.getKey());
+            if (gameModeStats == null) {
+                log.debug("No {} stats found for {}", gameMode.getKey(), player.getBattletag());
+                continue;
+            }
+            extractHeroStatsForGameMode(gameModeStats, gameMode, player.getHeroStats());
+        }
+    }
+
+    private void extractHeroStatsForGameMode(JsonNode gameModeStats, GameMode gameMode, List<HeroStatRow> rows) {
+        JsonNode careerStats = gameModeStats.get("career_stats");
+        if (careerStats == null) {
+            log.warn("No career_stats found in {} mode", gameMode.getKey());
+            return;
+        }
+
+        careerStats.fields().forEachRemaining(heroEntry -> {
+            String heroKey = heroEntry.getKey();
+
+            // Skip "all-heroes" as it's aggregate data
+            if ("all-heroes".equals(heroKey)) {
+                return;
+            }
+
+            try {
+                HeroStatRow row = HeroStatRow.builder()
+                        .heroKey(heroKey)
+                        .gameModeId(gameMode.getCode())
+                        .build();
+
+                // Stats are grouped by category; only game, combat and assists are stored
+                for (JsonNode category : heroEntry.getValue()) {
+                    String categoryName = category.get("category").asText();
+                    JsonNode categoryStats = category.get("stats");
+                    if (categoryStats == null) {
+                        continue;
+                    }
+                    for (JsonNode stat : categoryStats) {
+                        setStat(row, categoryName, stat.get("key").asText(), stat.get("value"));
+                    }
+                }
+
+                if (row.getTimePlayed() > 0) {
+                    rows.add(row);
+                    log.debug("📈 Extracted stats for {} ({}): {} min played",
+                            heroKey, gameMode.getKey(), row.getTimePlayed());
+                } else {
+                    log.trace("⏭️ Skipping {} ({}) - no playtime recorded", heroKey, gameMode.getKey());
+                }
+
+            } catch (Exception e) {
+                log.warn("⚠️ Failed to extract stats for hero {} ({}): {}",
+                        heroKey, gameMode.getKey(), e.getMessage());
+            }
+        });
+    }
+
+    private static void setStat(HeroStatRow row, String category, String key, JsonNode value) {
+        switch (category + "." + key) {
+            case "game.games_won" -> row.setWins(value.asInt(0));
+            case "game.games_lost" -> row.setLosses(value.asInt(0));
+            case "game.time_played" -> row.setTimePlayed(value.asInt(0) / 60); // seconds to minutes
+            case "combat.eliminations" -> row.setEliminations(value.asLong(0));
+            case "combat.deaths" -> row.setDeaths(value.asLong(0));
+            case "combat.hero_damage_done" -> row.setDamageDealt(value.asLong(0));
+            case "assists.assists" -> row.setAssists(value.asLong(0));
+            case "assists.healing_done" -> row.setHealingDone(value.asLong(0));
+            default -> {
+                // Not stored
+            }
+        }
+    }
+}
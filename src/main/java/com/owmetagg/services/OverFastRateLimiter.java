@@ -0,0 +1,108 @@
+package com.owmetagg.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side pacing of OverFast calls that adapts to upstream throttling (AIMD).
+ *
+ * Calls are spaced at 1/rate, starting at overfast.api.rate-limit.requests-per-second.
+ * A 429 halves the rate (multiplicative decrease, at most once per Retry-After window) and
+ * holds every call until Retry-After has passed; each success adds additive-increase back,
+ * up to the configured rate. Shared by all fetch threads, so the spacing is global.
+ */
+@Slf4j
+@Component
+public class OverFastRateLimiter {
+
+    private final double maxRate;
+    private final double minRate;
+    private final double additiveIncrease;
+    private final double decreaseFactor;
+
+    private double rate;
+    private long nextCallNanos = System.nanoTime();
+    private long pausedUntilNanos = System.nanoTime();
+
+    private final Counter throttled;
+
+    public OverFastRateLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${overfast.api.rate-limit.requests-per-second:5}") double maxRate,
+            @Value("${overfast.api.rate-limit.min-requests-per-second:0.2}") double minRate,
+            @Value("${overfast.api.rate-limit.additive-increase:0.05}") double additiveIncrease,
+            @Value("${overfast.api.rate-limit.decrease-factor:0.5}") double decreaseFactor) {
+        this.maxRate = maxRate;
+        this.minRate = Math.min(minRate, maxRate);
+        this.additiveIncrease = additiveIncrease;
+        this.decreaseFactor = decreaseFactor;
+        this.rate = maxRate;
+
+        Gauge.builder("overfast.ratelimit.rate", this, OverFastRateLimiter::getRate)
+                .description("Current OverFast request rate allowed by the adaptive limiter")
+                .baseUnit("requests_per_second")
+                .register(meterRegistry);
+        this.throttled = Counter.builder("overfast.ratelimit.throttled")
+                .description("OverFast responses with status 429")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Block until this caller may make the next OverFast call
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long slot = Math.max(Math.max(nextCallNanos, pausedUntilNanos), now);
+                nextCallNanos = slot + intervalNanos();
+                waitNanos = slot - now;
+            }
+            if (waitNanos > 0) {
+                log.debug("⏱️ Rate limiting: sleeping for {} ms", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+            // A 429 seen while sleeping pushes this call past the new pause
+            synchronized (this) {
+                if (System.nanoTime() >= pausedUntilNanos) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public synchronized void onSuccess() {
+        rate = Math.min(maxRate, rate + additiveIncrease);
+    }
+
+    /**
+     * Upstream said 429: pause everyone for retryAfter and slow down
+     */
+    public synchronized void onThrottled(Duration retryAfter) {
+        throttled.increment();
+        long now = System.nanoTime();
+        // One burst of 429s is one signal: only the first in a pause window lowers the rate
+        if (now >= pausedUntilNanos) {
+            rate = Math.max(minRate, rate * decreaseFactor);
+        }
+        pausedUntilNanos = Math.max(pausedUntilNanos, now + retryAfter.toNanos());
+        log.warn("🐢 OverFast throttled us: pausing {} ms, rate now {} req/s",
+                retryAfter.toMillis(), String.format("%.2f", rate));
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    private long intervalNanos() {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+}
@@ -1,37 +1,83 @@
 package com.owmetagg.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.util.UriComponentsBuilder;
-import com.owmetagg.dtos.PlayerDTO;
-import com.owmetagg.configurations.RabbitMQConfig;
-
+import com.owmetagg.dtos.ParsedPlayerDTO;
+import com.owmetagg.dtos.PlayerIngestMessage;
+import com.owmetagg.dtos.PlayerSearchResultDTO;
+import com.owmetagg.models.Hero;
+import com.owmetagg.services.OverFastGuard.OverFastUnavailableException;
+import com.owmetagg.utils.PayloadFormat;
+import com.owmetagg.utils.PlayerRowsCodec;
+
+import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
-import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
+import static com.owmetagg.utils.Constants.ERROR_CODE_429_MESSAGE;
+
 @Slf4j
 @Service
 public class OverFastService implements InitializingBean {
 
     private static final int DEFAULT_RATE_LIMIT_DELAY_MS = 200; // 5 requests per second
-    private static final int API_TIMEOUT_MS = 30000; // 30 seconds
-    private static final String TIMESTAMP_HEADER = "fetch-timestamp";
 
-    private final RabbitTemplate rabbitTemplate;
-    private final RabbitMQConfig rabbitMQConfig;
+    private final PlayerMessagePublisher playerMessagePublisher;
+    private final PlayerRefreshDeduplicator refreshDeduplicator;
     private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final OverFastPlayerParser playerParser;
+    private final OverFastRateLimiter rateLimiter;
+    private final OverFastGuard overFastGuard;
+
+    // Last OverFast answer per search query, served while OverFast is unavailable
+    private final Map<String, List<PlayerSearchResultDTO>> searchFallback;
+    private final Counter searchFallbackHits;
+    private final Counter searchFallbackMisses;
+
+    // Players whose fetch was throttled or failed transiently wait here for their delay; the
+    // fetch itself then runs on the ingest fetch executor, like batch fetches
+    private final ScheduledThreadPoolExecutor requeueScheduler;
+    private final TaskExecutor fetchExecutor;
+    private final int retryMaxPending;
+    private final Counter requeued;
+    private final Counter requeueExhausted;
+    private final Counter requeueDropped;
 
     @Value("${overfast.api.base-url:https://overfast-api.tekrop.fr}")
     private String overfastApiUrl;
@@ -39,19 +85,82 @@ public class OverFastService implements InitializingBean {
     @Value("${overfast.api.rate-limit.requests-per-second:5}")
     private int rateLimitRequestsPerSecond;
 
+    // raw: publish the OverFast document; rows: extract the stored fields first (PlayerRowsCodec)
+    @Value("${rabbitmq.message.format:raw}")
+    private String messageFormat;
+
     @Value("${spring.profiles.active:}")
     private String activeProfile;
 
-    private long lastApiCallTimestamp = 0;
+    @Value("${overfast.api.retry.max-attempts:6}")
+    private int retryMaxAttempts;
+
+    // Doubled per attempt when OverFast gives no Retry-After (5xx, timeouts)
+    @Value("${overfast.api.retry.base-delay-ms:2000}")
+    private long retryBaseDelayMs;
+
+    @Value("${overfast.api.retry.max-delay-ms:300000}")
+    private long retryMaxDelayMs;
+
+    // Used for a 429 without a (readable) Retry-After header
+    @Value("${overfast.api.retry.default-retry-after-ms:5000}")
+    private long defaultRetryAfterMs;
 
     public OverFastService(
-            RabbitTemplate rabbitTemplate,
-            RabbitMQConfig rabbitMQConfig,
-            RestTemplate restTemplate
+            PlayerMessagePublisher playerMessagePublisher,
+            PlayerRefreshDeduplicator refreshDeduplicator,
+            RestTemplate restTemplate,
+            ObjectMapper objectMapper,
+            OverFastPlayerParser playerParser,
+            OverFastRateLimiter rateLimiter,
+            OverFastGuard overFastGuard,
+            MeterRegistry meterRegistry,
+            @Qualifier("ingestFetchExecutor") TaskExecutor fetchExecutor,
+            @Value("${overfast.api.search-fallback.max-size:1000}") int searchFallbackMaxSize,
+            @Value("${overfast.api.retry.max-pending:1000}") int retryMaxPending
     ) {
-        this.rabbitTemplate = rabbitTemplate;
-        this.rabbitMQConfig = rabbitMQConfig;
+        this.playerMessagePublisher = playerMessagePublisher;
+        this.refreshDeduplicator = refreshDeduplicator;
         this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.playerParser = playerParser;
+        this.rateLimiter = rateLimiter;
+        this.overFastGuard = overFastGuard;
+
+        this.searchFallback = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<PlayerSearchResultDTO>> eldest) {
+                return size() > searchFallbackMaxSize;
+            }
+        };
+        this.searchFallbackHits = Counter.builder("overfast.search.fallback")
+                .description("Player searches answered without OverFast")
+                .tag("result", "cached")
+                .register(meterRegistry);
+        this.searchFallbackMisses = Counter.builder("overfast.search.fallback")
+                .description("Player searches answered without OverFast")
+                .tag("result", "empty")
+                .register(meterRegistry);
+
+        this.fetchExecutor = fetchExecutor;
+        this.retryMaxPending = retryMaxPending;
+        this.requeueScheduler = (ScheduledThreadPoolExecutor) Executors.newScheduledThreadPool(1, runnable -> {
+            Thread thread = new Thread(runnable, "overfast-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("overfast.requeue.pending", requeueScheduler, executor -> executor.getQueue().size())
+                .description("Players waiting to be fetched again")
+                .register(meterRegistry);
+        this.requeued = Counter.builder("overfast.requeue.scheduled")
+                .description("Player fetches scheduled again after a 429, 5xx or timeout")
+                .register(meterRegistry);
+        this.requeueExhausted = Counter.builder("overfast.requeue.exhausted")
+                .description("Players given up after overfast.api.retry.max-attempts")
+                .register(meterRegistry);
+        this.requeueDropped = Counter.builder("overfast.requeue.dropped")
+                .description("Player retries dropped because overfast.api.retry.max-pending were already waiting")
+                .register(meterRegistry);
     }
 
     @Override
@@ -64,21 +173,25 @@ public class OverFastService implements InitializingBean {
             log.info("Initializing OverFastService");
             log.info("OverFast API URL: {}", overfastApiUrl);
             log.info("Rate limit: {} requests/second", rateLimitRequestsPerSecond);
+            log.info("Player message format: {}", PayloadFormat.fromConfig(messageFormat));
             log.info("Active profile: {}", activeProfile);
 
-            // Test API connectivity
-            boolean isHealthy = checkOverFastAPIHealth();
-            if (isHealthy) {
-                log.info("OverFast API connection test successful");
-            } else {
-                log.warn("OverFast API connection test failed - service will continue but may have issues");
-            }
+            // Test API connectivity off the startup thread: a slow OverFast must not hold up boot
+            fetchExecutor.execute(this::probeOverFastAPI);
 
         } catch (Exception e) {
             log.error("Error initializing OverFastService: {}", e.getMessage(), e);
         }
     }
 
+    private void probeOverFastAPI() {
+        if (checkOverFastAPIHealth()) {
+            log.info("OverFast API connection test successful");
+        } else {
+            log.warn("OverFast API connection test failed - service will continue but may have issues");
+        }
+    }
+
     /**
      * Fetch single player data and send to RabbitMQ
      */
@@ -87,31 +200,61 @@ public class OverFastService implements InitializingBean {
     }
 
     public void fetchAndSendPlayerData(String battletag, String platform) {
+        fetchAndSendPlayerData(battletag, platform, 1);
+    }
+
+    private void fetchAndSendPlayerData(String battletag, String platform, int attempt) {
+        // Duplicates are dropped here, before they wait on the rate limiter
+        Instant requestedAt = Instant.now();
+        if (!refreshDeduplicator.tryAcquire(PlayerRefreshDeduplicator.Stage.FETCH, battletag, platform, requestedAt)) {
+            return;
+        }
+
         log.info("🎮 Fetching player data for: {} ({})", battletag, platform);
 
+        boolean queued = false;
         try {
+            // No point waiting on the rate limiter for a call the circuit breaker will refuse
+            overFastGuard.checkPermitted();
+
             // Apply rate limiting
             enforceRateLimit();
 
             // Fetch player data from API
-            String playerData = fetchPlayerFromApi(battletag);
+            byte[] playerData = fetchPlayerFromApi(battletag);
 
-            if (playerData != null && !playerData.isEmpty()) {
+            if (playerData != null && playerData.length > 0) {
                 // Process and send to RabbitMQ
                 processApiResponse(battletag, platform, playerData);
+                queued = true;
                 log.info("Successfully processed player: {}", battletag);
             } else {
                 log.warn("No data received for player: {}", battletag);
             }
 
+        } catch (RetryableFetchException e) {
+            requeue(battletag, platform, attempt, e.retryAfter, e.getMessage());
+        } catch (OverFastUnavailableException e) {
+            if (e.isBulkheadFull()) {
+                // Never reached OverFast: try the same attempt again shortly, without using one up
+                log.debug("Bulkhead full, fetching {} again in {} ms", battletag, retryBaseDelayMs);
+                schedule(battletag, platform, attempt, jittered(retryBaseDelayMs));
+            } else {
+                // Users keep seeing the stored profile; the refresh comes once the circuit closes
+                requeue(battletag, platform, attempt, e.getRetryAfter(), e.getMessage());
+            }
         } catch (Exception e) {
             log.error("Failed to process player data for: {}", battletag, e);
+        } finally {
+            refreshDeduplicator.finish(PlayerRefreshDeduplicator.Stage.FETCH, battletag, platform, requestedAt, queued);
         }
     }
 
     /**
-     * Fetch multiple players in batch (like your WavuService batch processing)
+     * Fetch multiple players in batch (like your WavuService batch processing).
+     * Runs on the bounded ingest fetch executor; throws TaskRejectedException when it is full.
      */
+    @Async("ingestFetchExecutor")
     public void fetchAndSendMultiplePlayers(List<String> battletags) {
         log.info("Processing batch of {} players", battletags.size());
 
@@ -134,7 +277,8 @@ public class OverFastService implements InitializingBean {
         log.info("Completed batch processing of {} players", battletags.size());
     }
 
-    private String fetchPlayerFromApi(String battletag) {
+    // Raw body bytes: they go to the queue as they are, never decoded into a String
+    private byte[] fetchPlayerFromApi(String battletag) {
         try {
             String url = UriComponentsBuilder.fromUriString(overfastApiUrl)
                     .path("/players/{battletag}")
@@ -143,84 +287,249 @@ public class OverFastService implements InitializingBean {
 
             log.debug("Calling OverFast API: {}", url);
 
-            ResponseEntity<String> response = restTemplate.exchange(
+            ResponseEntity<byte[]> response = overFastGuard.call(() -> restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     null,
-                    new ParameterizedTypeReference<String>() {}
-            );
+                    byte[].class
+            ));
 
             if (!response.getStatusCode().is2xxSuccessful()) {
                 throw new RuntimeException("API request failed with status: " + response.getStatusCode());
             }
 
+            rateLimiter.onSuccess();
             return response.getBody();
 
+        } catch (HttpClientErrorException.NotFound e) {
+            log.warn("Player not found: {} (404)", battletag);
+            return null;
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            Duration retryAfter = retryAfterOf(e);
+            rateLimiter.onThrottled(retryAfter);
+            throw new RetryableFetchException(ERROR_CODE_429_MESSAGE, retryAfter);
+        } catch (HttpServerErrorException | ResourceAccessException e) {
+            throw new RetryableFetchException("OverFast API error: " + e.getMessage(), null);
         } catch (RestClientException e) {
-            if (e.getMessage() != null && e.getMessage().contains("404")) {
-                log.warn("Player not found: {} (404)", battletag);
-            } else {
-                log.error("OverFast API error for {}: {}", battletag, e.getMessage());
-            }
+            log.error("OverFast API error for {}: {}", battletag, e.getMessage());
             return null;
         }
     }
 
-    private void processApiResponse(String battletag, String platform, String playerData) {
+    // Worth fetching again later: throttled (with the wait OverFast asked for), 5xx or unreachable
+    private static class RetryableFetchException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final Duration retryAfter;
+
+        RetryableFetchException(String message, Duration retryAfter) {
+            super(message);
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    /**
+     * Fetch the player again after Retry-After (or exponential backoff), plus up to 50% jitter
+     * so a throttled batch does not come back as one burst
+     */
+    private void requeue(String battletag, String platform, int attempt, Duration retryAfter, String cause) {
+        if (attempt >= retryMaxAttempts) {
+            requeueExhausted.increment();
+            log.error("❌ Giving up on {} ({}) after {} attempts: {}", battletag, platform, attempt, cause);
+            return;
+        }
+
+        long backoffMs = retryAfter != null
+                ? retryAfter.toMillis()
+                : Math.min(retryMaxDelayMs, retryBaseDelayMs << Math.min(attempt - 1, 20));
+        long delayMs = jittered(backoffMs);
+
+        requeued.increment();
+        log.warn("🔁 Fetching {} again in {} ms (attempt {}): {}", battletag, delayMs, attempt + 1, cause);
+        schedule(battletag, platform, attempt + 1, delayMs);
+    }
+
+    private static long jittered(long delayMs) {
+        return delayMs + ThreadLocalRandom.current().nextLong(delayMs / 2 + 1);
+    }
+
+    // The retry thread only waits out the delay; rate limiter and HTTP call run on the fetch executor
+    private void schedule(String battletag, String platform, int attempt, long delayMs) {
+        if (requeueScheduler.getQueue().size() >= retryMaxPending) {
+            requeueDropped.increment();
+            log.error("❌ Dropping retry of {} ({}): {} player fetches already waiting",
+                    battletag, platform, retryMaxPending);
+            return;
+        }
+        requeueScheduler.schedule(() -> handOff(battletag, platform, attempt), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void handOff(String battletag, String platform, int attempt) {
+        try {
+            fetchExecutor.execute(() -> fetchAndSendPlayerData(battletag, platform, attempt));
+        } catch (TaskRejectedException e) {
+            // Fetch queue full: the attempt has not run, so it waits again rather than counting
+            schedule(battletag, platform, attempt, retryBaseDelayMs);
+        }
+    }
+
+    // Retry-After is either delta-seconds or an HTTP date
+    private Duration retryAfterOf(HttpStatusCodeException e) {
+        String header = e.getResponseHeaders() != null
+                ? e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER)
+                : null;
+        if (header != null) {
+            try {
+                return Duration.ofSeconds(Math.max(0, Long.parseLong(header.trim())));
+            } catch (NumberFormatException notSeconds) {
+                try {
+                    Duration until = Duration.between(Instant.now(),
+                            ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+                    return until.isNegative() ? Duration.ZERO : until;
+                } catch (DateTimeParseException notDate) {
+                    log.debug("Unreadable Retry-After header: {}", header);
+                }
+            }
+        }
+        return Duration.ofMillis(defaultRetryAfterMs);
+    }
+
+    @PreDestroy
+    void stopRequeues() {
+        List<Runnable> pending = requeueScheduler.shutdownNow();
+        if (!pending.isEmpty()) {
+            log.warn("⚠️ Stopping with {} player fetches still waiting to be retried", pending.size());
+        }
+    }
+
+    /**
+     * Fetch the current hero roster (key, name, role, portrait) for the hero registry
+     */
+    public List<Hero> fetchHeroes() {
+        try {
+            enforceRateLimit();
+
+            String url = UriComponentsBuilder.fromUriString(overfastApiUrl)
+                    .path("/heroes")
+                    .toUriString();
+
+            ResponseEntity<List<Hero>> response = overFastGuard.call(() -> restTemplate.exchange(
+                    url,
+                    HttpMethod.GET,
+                    null,
+                    new ParameterizedTypeReference<List<Hero>>() {}
+            ));
+
+            List<Hero> heroes = response.getBody();
+            return heroes != null ? heroes : List.of();
+
+        } catch (OverFastUnavailableException e) {
+            log.warn("⚠️ Skipping hero roster fetch: {}", e.getMessage());
+            return List.of();
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            rateLimiter.onThrottled(retryAfterOf(e));
+            log.error("OverFast API error fetching heroes: {}", ERROR_CODE_429_MESSAGE);
+            return List.of();
+        } catch (RestClientException e) {
+            log.error("OverFast API error fetching heroes: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Search OverFast for players by name. When OverFast is unavailable (circuit open, bulkhead
+     * full, error) the last result for the same query is served, or an empty list.
+     */
+    public List<PlayerSearchResultDTO> searchPlayers(String query, int limit) {
+        String cacheKey = query.toLowerCase(Locale.ROOT);
+        try {
+            String url = UriComponentsBuilder.fromUriString(overfastApiUrl)
+                    .path("/players")
+                    .queryParam("name", query)
+                    .queryParam("limit", limit)
+                    .toUriString();
+
+            String response = overFastGuard.call(() -> restTemplate.getForObject(url, String.class));
+            JsonNode results = objectMapper.readTree(response).get("results");
+
+            List<PlayerSearchResultDTO> players = new ArrayList<>();
+            if (results != null && results.isArray()) {
+                for (JsonNode player : results) {
+                    players.add(PlayerSearchResultDTO.builder()
+                            .playerId(player.get("player_id").asText())
+                            .battletag(player.get("name").asText().replace("#", "-"))
+                            .name(player.get("name").asText())
+                            .avatarUrl(player.get("avatar").asText())
+                            .platform("pc")
+                            .build());
+                }
+            }
+
+            synchronized (searchFallback) {
+                searchFallback.put(cacheKey, List.copyOf(players));
+            }
+            return players;
+
+        } catch (Exception e) {
+            List<PlayerSearchResultDTO> cached;
+            synchronized (searchFallback) {
+                cached = searchFallback.get(cacheKey);
+            }
+            if (cached == null) {
+                searchFallbackMisses.increment();
+                log.warn("⚠️ OverFast search for '{}' failed, no earlier result to serve: {}", query, e.getMessage());
+                return List.of();
+            }
+            searchFallbackHits.increment();
+            log.warn("⚠️ OverFast search for '{}' failed, serving the last result: {}", query, e.getMessage());
+            return cached.subList(0, Math.min(limit, cached.size()));
+        }
+    }
+
+    private void processApiResponse(String battletag, String platform, byte[] playerData) throws IOException {
         log.debug("📊 Processing API response for: {}", battletag);
         long startTime = System.currentTimeMillis();
 
-        // Create message (similar to your Battle processing)
-        PlayerDTO message = PlayerDTO.builder()
+        // Envelope: the body as fetched, routing fields become headers (PlayerIngestMessageConverter)
+        PlayerIngestMessage.PlayerIngestMessageBuilder message = PlayerIngestMessage.builder()
                 .battletag(battletag)
                 .platform(platform)
-                .rawPlayerData(playerData)
-                .build();
+                .fetchedAt(Instant.now())
+                .body(playerData);
+
+        // Rows mode: parse here and send only what the consumer stores, a few KB instead of tens
+        if (PayloadFormat.fromConfig(messageFormat) == PayloadFormat.PLAYER_ROWS) {
+            ParsedPlayerDTO player = playerParser.parse(objectMapper.readTree(playerData), battletag, platform);
+            message.format(PayloadFormat.PLAYER_ROWS).body(PlayerRowsCodec.encode(player));
+        }
 
         // Send to RabbitMQ (same pattern as your WavuService)
-        sendToRabbitMQ(message, getCurrentTimestamp());
+        sendToRabbitMQ(message.build());
 
-        log.debug("📨 Sending data to RabbitMQ took {} ms", (System.currentTimeMillis() - startTime));
+        log.debug("📨 Queueing data for RabbitMQ took {} ms", (System.currentTimeMillis() - startTime));
     }
 
-    void sendToRabbitMQ(PlayerDTO message, String timestamp) {
+    // Buffered: the publisher sends it to the player data exchange and handles confirms
+    void sendToRabbitMQ(PlayerIngestMessage message) {
         try {
-            rabbitTemplate.convertAndSend(
-                    rabbitMQConfig.getPlayerDataQueue(), // Direct queue name
-                    message,
-                    msg -> {
-                        msg.getMessageProperties()
-                                .setHeader(TIMESTAMP_HEADER, timestamp);
-                        return msg;
-                    }
-            );
-            log.debug("📨 Sent message to queue: {}", message.getBattletag());
+            playerMessagePublisher.publish(message);
+            log.debug("📨 Queued message for publishing: {}", message.getBattletag());
         } catch (Exception e) {
-            log.error("📨 Failed to send message to queue: {}", message.getBattletag(), e);
+            log.error("📨 Failed to queue message for publishing: {}", message.getBattletag(), e);
             throw e;
         }
     }
 
     /**
-     * Rate limiting (similar to your backpressure handling)
+     * Rate limiting (similar to your backpressure handling), adaptive: see OverFastRateLimiter
      */
     private void enforceRateLimit() {
-        long currentTime = System.currentTimeMillis();
-        long timeSinceLastCall = currentTime - lastApiCallTimestamp;
-        long minInterval = 1000 / rateLimitRequestsPerSecond; // ms between calls
-
-        if (timeSinceLastCall < minInterval) {
-            long sleepTime = minInterval - timeSinceLastCall;
-            try {
-                log.debug("⏱️ Rate limiting: sleeping for {} ms", sleepTime);
-                Thread.sleep(sleepTime);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.warn("⚠️ Rate limiting interrupted", e);
-            }
+        try {
+            rateLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("⚠️ Rate limiting interrupted", e);
         }
-
-        lastApiCallTimestamp = System.currentTimeMillis();
     }
 
     /**
@@ -232,22 +541,21 @@ public class OverFastService implements InitializingBean {
                     .path("/heroes")
                     .toUriString();
 
-            ResponseEntity<String> response = restTemplate.exchange(
+            ResponseEntity<String> response = overFastGuard.call(() -> restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     null,
                     new ParameterizedTypeReference<String>() {}
-            );
+            ));
 
             return response.getStatusCode().is2xxSuccessful();
 
+        } catch (OverFastUnavailableException e) {
+            log.warn("❌ OverFast API health check skipped: {}", e.getMessage());
+            return false;
         } catch (Exception e) {
             log.error("❌ OverFast API health check failed", e);
             return false;
         }
     }
-
-    private String getCurrentTimestamp() {
-        return ZonedDateTime.now(ZoneId.of("UTC")).toString();
-    }
 }
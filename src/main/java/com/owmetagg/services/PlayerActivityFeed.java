@@ -0,0 +1,161 @@
+package com.owmetagg.services;
+
+import com.owmetagg.dtos.RecentlyActivePlayerDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * The most recently processed players, newest first, with their most played hero and total
+ * games already attached, so listing them costs no database work.
+ *
+ * Ingest adds each player once its transaction commits. The feed also reloads the newest
+ * players from the players table every players.activity-feed.sync-interval-ms (one indexed
+ * query on last_updated, using the summary columns of V13), which fills it after a restart,
+ * on API-only instances, and with players processed by other instances.
+ * At most players.activity-feed.size players are kept.
+ */
+@Slf4j
+@Service
+public class PlayerActivityFeed {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HeroRegistry heroRegistry;
+    private final int capacity;
+
+    // Newest first, one entry per player
+    private final ArrayDeque<Activity> feed = new ArrayDeque<>();
+
+    public PlayerActivityFeed(JdbcTemplate jdbcTemplate,
+                              HeroRegistry heroRegistry,
+                              @Value("${players.activity-feed.size:100}") int capacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.heroRegistry = heroRegistry;
+        this.capacity = capacity;
+    }
+
+    /**
+     * A processed player. mostPlayedHeroId is null for players without hero stats.
+     */
+    public record Activity(long playerId, String battletag, String platform, String username, String avatarUrl,
+                           Integer skillRating, LocalDateTime lastUpdated, Short mostPlayedHeroId, int totalGames) {
+    }
+
+    /**
+     * Add players once the surrounding transaction commits, so rolled-back writes never
+     * show up; immediately when there is no transaction.
+     */
+    public void addAfterCommit(List<Activity> activities) {
+        if (activities.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(activities);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(activities);
+            }
+        });
+    }
+
+    public void add(Collection<Activity> activities) {
+        synchronized (feed) {
+            for (Activity activity : activities) {
+                feed.removeIf(existing -> existing.playerId() == activity.playerId());
+                feed.addFirst(activity);
+            }
+            while (feed.size() > capacity) {
+                feed.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Reload the newest players from the database and merge them in
+     */
+    @Scheduled(fixedDelayString = "${players.activity-feed.sync-interval-ms:30000}")
+    public void sync() {
+        List<Activity> latest;
+        try {
+            latest = jdbcTemplate.query("""
+                    SELECT player_id, battletag, platform, username, avatar_url, skill_rating, last_updated,
+                           most_played_hero_id, total_games
+                    FROM players
+                    WHERE last_updated IS NOT NULL
+                    ORDER BY last_updated DESC
+                    LIMIT ?
+                    """, (rs, rowNum) -> new Activity(
+                    rs.getLong("player_id"),
+                    rs.getString("battletag"),
+                    rs.getString("platform"),
+                    rs.getString("username"),
+                    rs.getString("avatar_url"),
+                    rs.getObject("skill_rating", Integer.class),
+                    rs.getTimestamp("last_updated").toLocalDateTime(),
+                    rs.getObject("most_played_hero_id", Short.class),
+                    rs.getInt("total_games")), capacity);
+        } catch (Exception e) {
+            log.warn("⚠️ Could not reload the activity feed, keeping {} players: {}", size(), e.getMessage());
+            return;
+        }
+
+        synchronized (feed) {
+            // Newest copy of each player wins, whichever side it came from
+            Map<Long, Activity> merged = new HashMap<>();
+            for (Activity activity : feed) {
+                merged.put(activity.playerId(), activity);
+            }
+            for (Activity activity : latest) {
+                merged.merge(activity.playerId(), activity,
+                        (current, loaded) -> loaded.lastUpdated().isAfter(current.lastUpdated()) ? loaded : current);
+            }
+
+            feed.clear();
+            merged.values().stream()
+                    .sorted(Comparator.comparing(Activity::lastUpdated).reversed())
+                    .limit(capacity)
+                    .forEach(feed::addLast);
+        }
+    }
+
+    /**
+     * The newest limit players
+     */
+    public List<RecentlyActivePlayerDTO> recent(int limit) {
+        List<Activity> activities;
+        synchronized (feed) {
+            activities = feed.stream().limit(limit).toList();
+        }
+
+        return activities.stream()
+                .map(activity -> RecentlyActivePlayerDTO.builder()
+                        .playerId(String.valueOf(activity.playerId()))
+                        .battletag(activity.battletag())
+                        .username(activity.username())
+                        .avatarUrl(activity.avatarUrl())
+                        .platform(activity.platform())
+                        .skillRating(activity.skillRating())
+                        .lastUpdated(activity.lastUpdated())
+                        .mostPlayedHero(activity.mostPlayedHeroId() != null
+                                ? heroRegistry.keyOf(activity.mostPlayedHeroId()) : null)
+                        .recentGamesPlayed(activity.totalGames())
+                        .build())
+                .toList();
+    }
+
+    public int size() {
+        synchronized (feed) {
+            return feed.size();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.owmetagg.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Player exports as NDJSON (one JSON object per line), written while the rows are read.
+ *
+ * The query runs in a read-only transaction (replica-routed when enabled) with
+ * players.export.fetch-size set, so the Postgres driver reads through a server-side cursor
+ * that many rows at a time instead of loading the whole result. Each row is written straight
+ * to the response, so memory stays flat whatever the table size.
+ *
+ * An export holds its transaction and pooled connection for as long as the client takes to
+ * read it, so a bulkhead caps concurrent exports (players.export.max-concurrent) and refuses
+ * the rest rather than letting slow downloads drain the API pool.
+ */
+@Slf4j
+@Service
+public class PlayerExportService {
+
+    private final JdbcTemplate exportJdbcTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final HeroRegistry heroRegistry;
+    private final Bulkhead bulkhead;
+
+    public PlayerExportService(DataSource dataSource,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               HeroRegistry heroRegistry,
+                               @Value("${players.export.fetch-size:1000}") int fetchSize,
+                               @Value("${players.export.max-concurrent:2}") int maxConcurrent) {
+        this.exportJdbcTemplate = new JdbcTemplate(dataSource);
+        this.exportJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.heroRegistry = heroRegistry;
+        this.bulkhead = Bulkhead.of("playerExport", BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrent)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+    }
+
+    /**
+     * players.export.max-concurrent exports are already running; nothing was read or written
+     */
+    public static class ExportsBusyException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ExportsBusyException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Write every player (of platform, all when null) to out, by player id. Returns the row count.
+     * Throws ExportsBusyException, before touching out, when too many exports are running.
+     */
+    public long exportPlayers(String platform, OutputStream out) throws IOException {
+        if (!bulkhead.tryAcquirePermission()) {
+            throw new ExportsBusyException("Too many player exports running");
+        }
+        try {
+            return writePlayers(platform, out);
+        } finally {
+            bulkhead.onComplete();
+        }
+    }
+
+    private long writePlayers(String platform, OutputStream out) throws IOException {
+        String sql = """
+            SELECT player_id, battletag, platform, region, username, avatar_url, skill_rating,
+                   tank_rating, damage_rating, support_rating, open_rating, last_updated,
+                   most_played_hero_id, total_games
+            FROM players
+            """ + (platform != null ? "WHERE platform = ?\n" : "") + "ORDER BY player_id";
+        List<Object> args = new ArrayList<>(1);
+        if (platform != null) {
+            args.add(platform);
+        }
+
+        long startTime = System.currentTimeMillis();
+        long[] rows = {0};
+        try (JsonGenerator json = objectMapper.createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            readOnlyTransactionTemplate.executeWithoutResult(status -> exportJdbcTemplate.query(sql, rs -> {
+                try {
+                    Timestamp lastUpdated = rs.getTimestamp("last_updated");
+                    Short mostPlayedHeroId = rs.getObject("most_played_hero_id", Short.class);
+
+                    json.writeStartObject();
+                    json.writeNumberField("playerId", rs.getLong("player_id"));
+                    json.writeStringField("battletag", rs.getString("battletag"));
+                    json.writeStringField("platform", rs.getString("platform"));
+                    json.writeStringField("region", rs.getString("region"));
+                    json.writeStringField("username", rs.getString("username"));
+                    json.writeStringField("avatarUrl", rs.getString("avatar_url"));
+                    json.writeObjectField("skillRating", rs.getObject("skill_rating", Integer.class));
+                    json.writeObjectField("tankRating", rs.getObject("tank_rating", Integer.class));
+                    json.writeObjectField("damageRating", rs.getObject("damage_rating", Integer.class));
+                    json.writeObjectField("supportRating", rs.getObject("support_rating", Integer.class));
+                    json.writeObjectField("openRating", rs.getObject("open_rating", Integer.class));
+                    json.writeObjectField("lastUpdated", lastUpdated != null ? lastUpdated.toLocalDateTime() : null);
+                    json.writeStringField("mostPlayedHero",
+                            mostPlayedHeroId != null ? heroRegistry.keyOf(mostPlayedHeroId) : null);
+                    json.writeObjectField("totalGames", rs.getObject("total_games", Integer.class));
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                    rows[0]++;
+                } catch (IOException e) {
+                    // Client went away: stop reading rows
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        log.info("📤 Exported {} players in {} ms", rows[0], System.currentTimeMillis() - startTime);
+        return rows[0];
+    }
+}
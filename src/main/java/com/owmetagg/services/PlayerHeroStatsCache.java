@@ -0,0 +1,148 @@
+package com.owmetagg.services;
+
+import com.owmetagg.dtos.HeroStatsDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-player hero stats query results, by player id and query (game mode).
+ *
+ * Ingest evicts a player once the transaction writing their hero_stats commits, so this
+ * instance never serves a player's stats older than their last processed profile. Writes by
+ * other instances are picked up when an entry expires (players.hero-stats-cache.ttl).
+ * Concurrent misses on the same query share one load; a load that races with an eviction
+ * lands in the evicted entry, which later requests no longer see.
+ *
+ * Least recently used players are evicted past players.hero-stats-cache.max-size.
+ */
+@Service
+public class PlayerHeroStatsCache {
+
+    private final long ttlNanos;
+    private final Map<Long, PlayerEntry> cache;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public PlayerHeroStatsCache(MeterRegistry meterRegistry,
+                                @Value("${players.hero-stats-cache.max-size:10000}") int maxSize,
+                                @Value("${players.hero-stats-cache.ttl:5m}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        this.cache = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, PlayerEntry> eldest) {
+                return size() > maxSize;
+            }
+        };
+
+        Gauge.builder("players.hero.stats.cache.size", this, PlayerHeroStatsCache::size)
+                .description("Players whose hero stats are held in memory")
+                .register(meterRegistry);
+        this.hits = Counter.builder("players.hero.stats.cache")
+                .description("Player hero stats served from memory, or queried")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("players.hero.stats.cache")
+                .description("Player hero stats served from memory, or queried")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    // Results of one player's queries, dropped as a whole on eviction or expiry
+    private static final class PlayerEntry {
+        final long loadedAt = System.nanoTime();
+        final Map<String, CompletableFuture<List<HeroStatsDTO>>> results = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Rows of query for playerId, running load() on a miss. Other requests for the same query
+     * wait for that load rather than running their own. The load runs outside any map lock
+     * (computeIfAbsent would hold a bin lock through the query and pin a virtual thread's
+     * carrier); a failed load is removed so the next request retries it.
+     */
+    public List<HeroStatsDTO> get(long playerId, String query, Supplier<List<HeroStatsDTO>> load) {
+        PlayerEntry entry;
+        synchronized (cache) {
+            entry = cache.get(playerId);
+            if (entry == null || System.nanoTime() - entry.loadedAt > ttlNanos) {
+                entry = new PlayerEntry();
+                cache.put(playerId, entry);
+            }
+        }
+
+        CompletableFuture<List<HeroStatsDTO>> rows = entry.results.get(query);
+        if (rows == null) {
+            CompletableFuture<List<HeroStatsDTO>> loading = new CompletableFuture<>();
+            rows = entry.results.putIfAbsent(query, loading);
+            if (rows == null) {
+                misses.increment();
+                try {
+                    List<HeroStatsDTO> loaded = List.copyOf(load.get());
+                    loading.complete(loaded);
+                    return loaded;
+                } catch (RuntimeException | Error e) {
+                    entry.results.remove(query, loading);
+                    loading.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+
+        hits.increment();
+        try {
+            return rows.join();
+        } catch (CompletionException e) {
+            // The loading request's own exception, as that request got it
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Evict players once the surrounding transaction commits; immediately when there is
+     * no transaction.
+     */
+    public void evictAfterCommit(Collection<Long> playerIds) {
+        if (playerIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(playerIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(playerIds);
+            }
+        });
+    }
+
+    public void evict(Collection<Long> playerIds) {
+        synchronized (cache) {
+            for (Long playerId : playerIds) {
+                cache.remove(playerId);
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
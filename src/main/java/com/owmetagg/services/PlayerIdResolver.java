@@ -0,0 +1,112 @@
+package com.owmetagg.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps a battletag/platform pair to its numeric players.player_id (V10).
+ *
+ * Ids never change once assigned, so entries never go stale. The ingest upsert feeds
+ * the cache from its RETURNING clause once its transaction commits, so an id that was
+ * rolled back is never handed out; misses fall back to the (battletag, platform) unique index.
+ * Least recently used entries are evicted past players.id-cache.max-size.
+ */
+@Slf4j
+@Service
+public class PlayerIdResolver {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<PlayerKey, Long> cache;
+
+    public PlayerIdResolver(JdbcTemplate jdbcTemplate,
+                            @Value("${players.id-cache.max-size:100000}") int maxSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PlayerKey, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Player id for a battletag/platform pair, or null if the player has never been stored
+     */
+    public Long resolve(String battletag, String platform) {
+        if (battletag == null || platform == null) {
+            return null;
+        }
+
+        PlayerKey key = new PlayerKey(battletag, platform);
+        Long playerId;
+        synchronized (cache) {
+            playerId = cache.get(key);
+        }
+        if (playerId != null) {
+            return playerId;
+        }
+
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT player_id FROM players WHERE battletag = ? AND platform = ?",
+                Long.class, battletag, platform);
+        if (ids.isEmpty()) {
+            log.debug("No player id for {} ({})", battletag, platform);
+            return null;
+        }
+
+        remember(battletag, platform, ids.get(0));
+        return ids.get(0);
+    }
+
+    /**
+     * Record an id the caller already has (e.g. from an upsert's RETURNING clause)
+     */
+    public void remember(String battletag, String platform, long playerId) {
+        synchronized (cache) {
+            cache.put(new PlayerKey(battletag, platform), playerId);
+        }
+    }
+
+    /**
+     * Record ids once the surrounding transaction commits; immediately when there is
+     * no transaction
+     */
+    public void rememberAfterCommit(Map<PlayerKey, Long> playerIds) {
+        if (playerIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remember(playerIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remember(playerIds);
+            }
+        });
+    }
+
+    private void remember(Map<PlayerKey, Long> playerIds) {
+        synchronized (cache) {
+            cache.putAll(playerIds);
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public record PlayerKey(String battletag, String platform) {
+    }
+}
@@ -0,0 +1,275 @@
+package com.owmetagg.services;
+
+import com.owmetagg.configurations.RabbitMQConfig;
+import com.owmetagg.dtos.PlayerIngestMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Publishes player messages to the player data exchange without blocking the fetch thread.
+ *
+ * publish() only appends to a bounded buffer. A dedicated thread drains it in batches over
+ * one channel, each message with its own correlation so the broker's confirm (or nack, or
+ * return as unroutable) settles it asynchronously. Nacked, returned and unconfirmed messages
+ * are retried with a growing delay. After rabbitmq.publisher.max-attempts the message is
+ * given up, logged as an error, counted and kept in /actuator/ingestpayloads.
+ *
+ * Delivery is at least once: a confirm lost on a dropped connection means a retry of a
+ * message the broker may already hold. Replaying a player snapshot is harmless downstream.
+ */
+@Slf4j
+@Service
+public class PlayerMessagePublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final RabbitMQConfig rabbitMQConfig;
+    private final IngestDiagnostics ingestDiagnostics;
+
+    private final int batchSize;
+    private final long bufferWaitMs;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final long confirmTimeoutMs;
+
+    private final BlockingQueue<Pending> buffer;
+    private final DelayQueue<Pending> retries = new DelayQueue<>();
+    // Sent and waiting for a confirm, by correlation id; whoever removes an entry settles it
+    private final Map<String, Pending> outstanding = new ConcurrentHashMap<>();
+
+    private final Timer confirmLatency;
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter rejected;
+
+    private volatile boolean running;
+    private Thread publisherThread;
+
+    public PlayerMessagePublisher(
+            RabbitTemplate rabbitTemplate,
+            RabbitMQConfig rabbitMQConfig,
+            IngestDiagnostics ingestDiagnostics,
+            MeterRegistry meterRegistry,
+            @Value("${rabbitmq.publisher.buffer-capacity:10000}") int bufferCapacity,
+            @Value("${rabbitmq.publisher.batch-size:100}") int batchSize,
+            @Value("${rabbitmq.publisher.buffer-wait-ms:1000}") long bufferWaitMs,
+            @Value("${rabbitmq.publisher.max-attempts:5}") int maxAttempts,
+            @Value("${rabbitmq.publisher.retry-backoff-ms:1000}") long retryBackoffMs,
+            @Value("${rabbitmq.publisher.confirm-timeout-ms:30000}") long confirmTimeoutMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.rabbitMQConfig = rabbitMQConfig;
+        this.ingestDiagnostics = ingestDiagnostics;
+        this.batchSize = Math.max(1, batchSize);
+        this.bufferWaitMs = bufferWaitMs;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = retryBackoffMs;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.buffer = new LinkedBlockingQueue<>(bufferCapacity);
+
+        Gauge.builder("rabbitmq.publisher.outstanding_confirms", outstanding, Map::size)
+                .description("Published player messages the broker has not confirmed yet")
+                .register(meterRegistry);
+        Gauge.builder("rabbitmq.publisher.buffered", this, publisher -> publisher.buffer.size() + publisher.retries.size())
+                .description("Player messages waiting to be published, including retries")
+                .register(meterRegistry);
+        this.confirmLatency = Timer.builder("rabbitmq.publisher.confirm_latency")
+                .description("Time from publish to broker confirm")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.retried = Counter.builder("rabbitmq.publisher.retried")
+                .description("Player messages nacked, returned or unconfirmed and published again")
+                .register(meterRegistry);
+        this.failed = Counter.builder("rabbitmq.publisher.failed")
+                .description("Player messages given up after max-attempts")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("rabbitmq.publisher.rejected")
+                .description("Player messages refused because the publish buffer was full")
+                .register(meterRegistry);
+    }
+
+    private static final class Pending implements Delayed {
+        private final PlayerIngestMessage message;
+        private int attempts;
+        private long sentAtNanos;
+        private long retryAtNanos;
+
+        private Pending(PlayerIngestMessage message) {
+            this.message = message;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(retryAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(retryAtNanos, ((Pending) other).retryAtNanos);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        publisherThread = new Thread(this::run, "rabbit-publisher");
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+        log.info("📨 Player message publisher started: exchange={}, routing key={}, batch size={}",
+                rabbitMQConfig.getPlayerDataExchange(), rabbitMQConfig.getPlayerDataRoutingKey(), batchSize);
+    }
+
+    /**
+     * Queue a message for publishing. Waits at most buffer-wait-ms for buffer space, then
+     * throws, so the caller knows the fetched payload was not accepted.
+     */
+    public void publish(PlayerIngestMessage message) {
+        try {
+            if (buffer.offer(new Pending(message), bufferWaitMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.increment();
+        throw new IllegalStateException("Publish buffer full (" + buffer.size() + " messages), player "
+                + message.getBattletag() + " not queued");
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                // Due retries first, then new messages
+                retries.drainTo(batch, batchSize);
+                if (batch.isEmpty()) {
+                    Pending next = buffer.poll(100, TimeUnit.MILLISECONDS);
+                    if (next != null) batch.add(next);
+                }
+                buffer.drainTo(batch, batchSize - batch.size());
+
+                if (!batch.isEmpty()) {
+                    publishBatch(batch);
+                    batch.clear();
+                }
+                expireUnconfirmed();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("❌ Player message publisher loop failed", e);
+                batch.clear();
+            }
+        }
+    }
+
+    private void publishBatch(List<Pending> batch) {
+        batch.forEach(pending -> pending.attempts++);
+        int[] sent = {0};
+        try {
+            // One channel for the whole batch instead of a checkout per message
+            rabbitTemplate.invoke(operations -> {
+                for (Pending pending : batch) {
+                    send(operations, pending);
+                    sent[0]++;
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            // No channel, or it broke mid-batch: whatever was not handed over is retried
+            log.warn("⚠️ Publishing {} player messages failed after {}: {}", batch.size(), sent[0], e.getMessage());
+            for (Pending pending : batch.subList(sent[0], batch.size())) {
+                retryOrFail(pending, e.toString());
+            }
+        }
+        log.debug("📨 Published {} player messages, {} awaiting confirms", sent[0], outstanding.size());
+    }
+
+    private void send(RabbitOperations operations, Pending pending) {
+        CorrelationData correlation = new CorrelationData();
+        pending.sentAtNanos = System.nanoTime();
+        outstanding.put(correlation.getId(), pending);
+        correlation.getFuture().whenComplete((confirm, error) -> {
+            if (!outstanding.remove(correlation.getId(), pending)) {
+                return; // already timed out and retried
+            }
+            if (error == null && confirm.isAck() && correlation.getReturned() == null) {
+                confirmLatency.record(System.nanoTime() - pending.sentAtNanos, TimeUnit.NANOSECONDS);
+            } else if (correlation.getReturned() != null) {
+                retryOrFail(pending, "returned: " + correlation.getReturned().getReplyText());
+            } else {
+                retryOrFail(pending, error != null ? error.toString() : "nack: " + confirm.getReason());
+            }
+        });
+
+        try {
+            operations.convertAndSend(rabbitMQConfig.getPlayerDataExchange(),
+                    rabbitMQConfig.getPlayerDataRoutingKey(), pending.message, correlation);
+        } catch (RuntimeException e) {
+            // Not sent, so no confirm will come; the batch handler retries it
+            outstanding.remove(correlation.getId(), pending);
+            throw e;
+        }
+    }
+
+    private void expireUnconfirmed() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        outstanding.forEach((id, pending) -> {
+            if (pending.sentAtNanos - cutoff < 0 && outstanding.remove(id, pending)) {
+                retryOrFail(pending, "no confirm within " + confirmTimeoutMs + " ms");
+            }
+        });
+    }
+
+    private void retryOrFail(Pending pending, String cause) {
+        if (pending.attempts >= maxAttempts) {
+            failed.increment();
+            log.error("❌ Giving up publishing player {} after {} attempts: {}",
+                    pending.message.getBattletag(), pending.attempts, cause);
+            ingestDiagnostics.capture(pending.message, "publish failed: " + cause);
+            return;
+        }
+        retried.increment();
+        log.warn("⚠️ Republishing player {} (attempt {}): {}", pending.message.getBattletag(), pending.attempts + 1, cause);
+        pending.retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryBackoffMs * pending.attempts);
+        retries.add(pending);
+    }
+
+    /**
+     * Publish what is buffered and wait for its confirms, before the connection factory closes
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        publisherThread.join(confirmTimeoutMs);
+
+        long deadline = System.currentTimeMillis() + confirmTimeoutMs;
+        while (!outstanding.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        int unsent = buffer.size() + retries.size();
+        if (unsent > 0 || !outstanding.isEmpty()) {
+            log.error("❌ Stopping with {} player messages unpublished and {} unconfirmed",
+                    unsent, outstanding.size());
+            buffer.forEach(pending -> ingestDiagnostics.capture(pending.message, "unpublished at shutdown"));
+            retries.forEach(pending -> ingestDiagnostics.capture(pending.message, "unpublished at shutdown"));
+            outstanding.values().forEach(pending -> ingestDiagnostics.capture(pending.message, "unconfirmed at shutdown"));
+        } else {
+            log.info("📨 Player message publisher stopped, all messages confirmed");
+        }
+    }
+}
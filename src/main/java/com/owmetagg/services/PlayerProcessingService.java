@@ -1,16 +1,22 @@
 package com.owmetagg.services;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.owmetagg.dtos.PlayerDTO;
+import com.owmetagg.dtos.ParsedPlayerDTO;
+import com.owmetagg.dtos.PlayerIngestMessage;
 import com.owmetagg.events.PlayerDataProcessedEvent;
+import com.owmetagg.models.GameMode;
+import com.owmetagg.models.Platform;
+import com.owmetagg.utils.PlayerRowsCodec;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.*;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -21,6 +27,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static com.owmetagg.utils.Constants.*;
+
 @Slf4j
 @Service
 public class PlayerProcessingService {
@@ -28,6 +36,14 @@ public class PlayerProcessingService {
     private final JdbcTemplate jdbcTemplate;
     private final ApplicationEventPublisher eventPublisher;
     private final ObjectMapper objectMapper;
+    private final HeroRegistry heroRegistry;
+    private final OverFastPlayerParser playerParser;
+    private final PlayerIdResolver playerIdResolver;
+    private final HeroPickSketchService heroPickSketchService;
+    private final HeroAggregateService heroAggregateService;
+    private final IngestDiagnostics ingestDiagnostics;
+    private final PlayerActivityFeed activityFeed;
+    private final PlayerHeroStatsCache heroStatsCache;
 
     // Event publishing cooldown (like your Tekken service)
     private static final long COOLDOWN_PERIOD = TimeUnit.MINUTES.toMillis(2); // 2 minute cooldown
@@ -35,36 +51,57 @@ public class PlayerProcessingService {
     private final AtomicBoolean isPublishing = new AtomicBoolean(false);
 
     public PlayerProcessingService(
-            JdbcTemplate jdbcTemplate,
+            @Qualifier("ingestJdbcTemplate") JdbcTemplate jdbcTemplate,
             ApplicationEventPublisher eventPublisher,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            HeroRegistry heroRegistry,
+            OverFastPlayerParser playerParser,
+            PlayerIdResolver playerIdResolver,
+            HeroPickSketchService heroPickSketchService,
+            HeroAggregateService heroAggregateService,
+            IngestDiagnostics ingestDiagnostics,
+            PlayerActivityFeed activityFeed,
+            PlayerHeroStatsCache heroStatsCache) {
         this.jdbcTemplate = jdbcTemplate;
         this.eventPublisher = eventPublisher;
         this.objectMapper = objectMapper;
+        this.heroRegistry = heroRegistry;
+        this.playerParser = playerParser;
+        this.playerIdResolver = playerIdResolver;
+        this.heroPickSketchService = heroPickSketchService;
+        this.heroAggregateService = heroAggregateService;
+        this.ingestDiagnostics = ingestDiagnostics;
+        this.activityFeed = activityFeed;
+        this.heroStatsCache = heroStatsCache;
+    }
+
+    // Primary key of a hero_stats row
+    private record HeroStatsKey(long playerId, short heroId, short gameModeId, short platformId) {
     }
 
-    @Transactional(rollbackFor = Exception.class)
-    public void processPlayerDataAsync(PlayerDTO message) throws JsonProcessingException {
-        log.info("🔄 Processing player data for: {}", message.getBattletag());
+    @Transactional(transactionManager = "ingestTransactionManager", rollbackFor = Exception.class)
+    public void processPlayerDataAsync(PlayerIngestMessage message) throws IOException {
+        log.debug("🔄 Processing player data for: {}", message.getBattletag());
 
         try {
-            // Parse player data from OverFast API response
-            JsonNode playerJson = objectMapper.readTree(message.getRawPlayerData());
+            // Parse player data from OverFast API response (or the rows extracted from it)
+            ParsedPlayerDTO player = readPlayer(message);
 
             // Extract and process player information
-            Map<String, Object> playerData = extractPlayerData(playerJson, message);
-            Map<String, Object> heroStatsData = extractHeroStats(playerJson, message);
+            Map<String, Object> playerData = extractPlayerData(player);
+            Map<String, Object> heroStatsData = extractHeroStats(player);
+            tagSkillBracket(heroStatsData, playerData);
 
             // Execute bulk database operations (like your Tekken pattern)
-            Set<String> insertedPlayerIds = executePlayerBulkWrite(Arrays.asList(playerData));
-            executeHeroStatsBulkOperations(heroStatsData);
+            Map<PlayerIdResolver.PlayerKey, Long> playerIds = executePlayerBulkWrite(Arrays.asList(playerData));
+            executeHeroStatsBulkOperations(heroStatsData, playerIds);
 
-            if (!insertedPlayerIds.isEmpty()) {
+            if (!playerIds.isEmpty()) {
                 // Publish event for statistics recalculation (with cooldown like Tekken)
                 tryPublishEvent(message.getBattletag());
             }
 
-            log.info("✅ Successfully processed player: {}", message.getBattletag());
+            log.debug("✅ Successfully processed player: {}", message.getBattletag());
 
         } catch (Exception e) {
             log.error("❌ Failed to process player data for: {}", message.getBattletag(), e);
@@ -72,8 +109,8 @@ public class PlayerProcessingService {
         }
     }
 
-    @Transactional(rollbackFor = Exception.class)
-    public void processPlayerBatchAsync(List<PlayerDTO> messages) throws JsonProcessingException {
+    @Transactional(transactionManager = "ingestTransactionManager", rollbackFor = Exception.class)
+    public void processPlayerBatchAsync(List<PlayerIngestMessage> messages) throws IOException {
         log.info("🔄 Processing batch of {} players", messages.size());
 
         try {
@@ -81,12 +118,14 @@ public class PlayerProcessingService {
             List<Map<String, Object>> allHeroStatsList = new ArrayList<>();  // Changed: collect all hero stats in one list
 
             // Extract data from all messages
-            for (PlayerDTO message : messages) {
-                JsonNode playerJson = objectMapper.readTree(message.getRawPlayerData());
-                playersData.add(extractPlayerData(playerJson, message));
+            for (PlayerIngestMessage message : messages) {
+                ParsedPlayerDTO player = readPlayer(message);
+                Map<String, Object> playerData = extractPlayerData(player);
+                playersData.add(playerData);
 
                 // Changed: Extract the heroStats list from the map and add all to the combined list
-                Map<String, Object> heroStatsData = extractHeroStats(playerJson, message);
+                Map<String, Object> heroStatsData = extractHeroStats(player);
+                tagSkillBracket(heroStatsData, playerData);
                 @SuppressWarnings("unchecked")
                 List<Map<String, Object>> heroStats = (List<Map<String, Object>>) heroStatsData.get("heroStats");
                 if (heroStats != null && !heroStats.isEmpty()) {
@@ -95,12 +134,12 @@ public class PlayerProcessingService {
             }
 
             // Bulk operations
-            Set<String> insertedPlayerIds = executePlayerBulkWrite(playersData);
+            Map<PlayerIdResolver.PlayerKey, Long> playerIds = executePlayerBulkWrite(playersData);
 
             // Changed: Wrap the combined list in a Map as expected by the method
             Map<String, Object> combinedHeroStatsData = new HashMap<>();
             combinedHeroStatsData.put("heroStats", allHeroStatsList);
-            executeHeroStatsBulkOperations(combinedHeroStatsData);
+            executeHeroStatsBulkOperations(combinedHeroStatsData, playerIds);
 
             log.info("✅ Successfully processed batch of {} players", messages.size());
 
@@ -111,332 +150,235 @@ public class PlayerProcessingService {
     }
 
     /**
-     * Bulk player insert/update (adapted from your executePlayerBulkOperations)
+     * Read the body straight from the (decompressing) stream: OverFast JSON is parsed here,
+     * player rows were already extracted by the producer
+     */
+    private ParsedPlayerDTO readPlayer(PlayerIngestMessage message) throws IOException {
+        // Payloads are tens of KB: keep them out of the log, dump only when asked to
+        if (ingestDiagnostics.isDumpingPayloads()) {
+            ingestDiagnostics.capture(message, "dump-payloads");
+        }
+
+        ParsedPlayerDTO player;
+        try (InputStream body = message.getContentEncoding().decode(message.getBody())) {
+            player = switch (message.getFormat()) {
+                case RAW_JSON -> playerParser.parse(
+                        objectMapper.readTree(body), message.getBattletag(), message.getPlatform());
+                case PLAYER_ROWS -> PlayerRowsCodec.decode(body);
+            };
+        }
+
+        ingestDiagnostics.sample(log, IngestDiagnostics.Stage.EXTRACT, message.getBattletag())
+                .addKeyValue("format", message.getFormat())
+                .addKeyValue("heroStats", player.getHeroStats().size())
+                .log("📊 Extracted {} hero stats entries for: {}", player.getHeroStats().size(), message.getBattletag());
+        return player;
+    }
+
+    /**
+     * Bracket each hero stats entry by its player's SR for the pick-count sketches
+     */
+    private void tagSkillBracket(Map<String, Object> heroStatsData, Map<String, Object> playerData) {
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> heroStatsList = (List<Map<String, Object>>) heroStatsData.get("heroStats");
+        if (heroStatsList == null) return;
+
+        String srBracket = HeroPickSketchService.bracketOf((Integer) playerData.get("skillRating"));
+        for (Map<String, Object> heroStats : heroStatsList) {
+            heroStats.put("srBracket", srBracket);
+        }
+    }
+
+    /**
+     * Bulk player insert/update (adapted from your executePlayerBulkOperations); the ids of
+     * the upserted players, for the writes later in this transaction
      */
-    private Set<String> executePlayerBulkWrite(List<Map<String, Object>> playersData) {
+    private Map<PlayerIdResolver.PlayerKey, Long> executePlayerBulkWrite(List<Map<String, Object>> playersData) {
         if (playersData.isEmpty()) {
             log.debug("Player data list is empty, skipping");
-            return Collections.emptySet();
+            return Collections.emptyMap();
         }
 
         long startTime = System.currentTimeMillis();
 
         String sql =
                 "INSERT INTO players " +
-                        "(player_id, battletag, platform, region, last_updated, skill_rating, username, avatar_url) " +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+                        "(battletag, platform, region, last_updated, skill_rating, " +
+                        "tank_rating, damage_rating, support_rating, open_rating, username, avatar_url, " +
+                        "most_played_hero_id, total_games) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
                         "ON CONFLICT (battletag, platform) DO UPDATE SET " +
                         "region = CASE WHEN EXCLUDED.last_updated > players.last_updated " +
                         "THEN EXCLUDED.region ELSE players.region END, " +
                         "skill_rating = CASE WHEN EXCLUDED.last_updated > players.last_updated " +
                         "THEN EXCLUDED.skill_rating ELSE players.skill_rating END, " +
+                        "tank_rating = CASE WHEN EXCLUDED.last_updated > players.last_updated " +
+                        "THEN EXCLUDED.tank_rating ELSE players.tank_rating END, " +
+                        "damage_rating = CASE WHEN EXCLUDED.last_updated > players.last_updated " +
+                        "THEN EXCLUDED.damage_rating ELSE players.damage_rating END, " +
+                        "support_rating = CASE WHEN EXCLUDED.last_updated > players.last_updated " +
+                        "THEN EXCLUDED.support_rating ELSE players.support_rating END, " +
+                        "open_rating = CASE WHEN EXCLUDED.last_updated > players.last_updated " +
+                        "THEN EXCLUDED.open_rating ELSE players.open_rating END, " +
                         "username = CASE WHEN EXCLUDED.last_updated > players.last_updated " +
                         "THEN EXCLUDED.username ELSE players.username END, " +
                         "avatar_url = CASE WHEN EXCLUDED.last_updated > players.last_updated " +
                         "THEN EXCLUDED.avatar_url ELSE players.avatar_url END, " +
+                        "most_played_hero_id = CASE WHEN EXCLUDED.last_updated > players.last_updated " +
+                        "THEN EXCLUDED.most_played_hero_id ELSE players.most_played_hero_id END, " +
+                        "total_games = CASE WHEN EXCLUDED.last_updated > players.last_updated " +
+                        "THEN EXCLUDED.total_games ELSE players.total_games END, " +
                         "last_updated = CASE WHEN EXCLUDED.last_updated > players.last_updated " +
                         "THEN EXCLUDED.last_updated ELSE players.last_updated END " +
-                        "RETURNING battletag";
+                        "RETURNING player_id, battletag, platform";
 
-        Set<String> insertedPlayerIds = jdbcTemplate.execute(
-                (Connection con) -> con.prepareStatement(sql, new String[]{"battletag"}),
+        Map<String, Map<String, Object>> playersByKey = new HashMap<>();
+        for (Map<String, Object> playerData : playersData) {
+            playersByKey.put(playerData.get("battletag") + "|" + playerData.get("platform"), playerData);
+        }
+        List<PlayerActivityFeed.Activity> activities = new ArrayList<>();
+
+        Map<PlayerIdResolver.PlayerKey, Long> playerIds = jdbcTemplate.execute(
+                (Connection con) -> con.prepareStatement(sql, new String[]{"player_id", "battletag", "platform"}),
                 (PreparedStatement ps) -> {
                     for (Map<String, Object> playerData : playersData) {
                         int i = 1;
-                        ps.setString(i++, (String) playerData.get("playerId"));
                         ps.setString(i++, (String) playerData.get("battletag"));
                         ps.setString(i++, (String) playerData.get("platform"));
                         ps.setString(i++, (String) playerData.get("region"));
                         ps.setTimestamp(i++, Timestamp.valueOf((LocalDateTime) playerData.get("lastUpdated")));
                         setNullableInt(ps, i++, (Integer) playerData.get("skillRating"));
+                        setNullableSmallInt(ps, i++, (Integer) playerData.get("tankRating"));
+                        setNullableSmallInt(ps, i++, (Integer) playerData.get("damageRating"));
+                        setNullableSmallInt(ps, i++, (Integer) playerData.get("supportRating"));
+                        setNullableSmallInt(ps, i++, (Integer) playerData.get("openRating"));
                         ps.setString(i++, (String) playerData.get("username"));
                         ps.setString(i++, (String) playerData.get("avatarUrl"));
+                        setNullableSmallInt(ps, i++, (Integer) playerData.get("mostPlayedHeroId"));
+                        ps.setInt(i++, (Integer) playerData.get("totalGames"));
                         ps.addBatch();
                     }
 
                     ps.executeBatch();
 
-                    Set<String> ids = new HashSet<>();
+                    // Every upserted row comes back with its id, so the hero_stats write that
+                    // follows needs no lookup
+                    Map<PlayerIdResolver.PlayerKey, Long> ids = new HashMap<>();
                     try (ResultSet rs = ps.getGeneratedKeys()) {
                         while (rs != null && rs.next()) {
-                            ids.add(rs.getString(1));
+                            long playerId = rs.getLong("player_id");
+                            ids.put(new PlayerIdResolver.PlayerKey(rs.getString("battletag"), rs.getString("platform")),
+                                    playerId);
+                            activities.add(toActivity(playerId,
+                                    playersByKey.get(rs.getString("battletag") + "|" + rs.getString("platform"))));
                         }
                     }
                     return ids;
                 });
 
-        log.info("⚡ Player Bulk Upsert: {} ms, Processed Players: {}",
-                (System.currentTimeMillis() - startTime), playersData.size());
+        // Listed as recently active, their ids cached and their cached hero stats dropped,
+        // only once this transaction commits
+        activityFeed.addAfterCommit(activities);
+        playerIdResolver.rememberAfterCommit(playerIds);
+        heroStatsCache.evictAfterCommit(playerIds.values());
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        ingestDiagnostics.sample(log, IngestDiagnostics.Stage.WRITE, null)
+                .addKeyValue("table", "players")
+                .addKeyValue("rows", playersData.size())
+                .addKeyValue("elapsedMs", elapsed)
+                .log("⚡ Player Bulk Upsert: {} ms, Processed Players: {}", elapsed, playersData.size());
 
-        return insertedPlayerIds;
+        return playerIds;
     }
 
     /**
-     * Extract player data from OverFast JSON (like your setPlayerStatsWithBattle)
+     * Player row for the bulk upsert (like your setPlayerStatsWithBattle)
      */
-    private Map<String, Object> extractPlayerData(JsonNode playerJson, PlayerDTO message) {
+    private Map<String, Object> extractPlayerData(ParsedPlayerDTO player) {
         Map<String, Object> playerData = new HashMap<>();
-
-        try {
-            String playerId = generatePlayerId(message.getBattletag(), message.getPlatform());
-            playerData.put("playerId", playerId);
-            playerData.put("battletag", message.getBattletag());
-            playerData.put("platform", message.getPlatform());
-            playerData.put("lastUpdated", LocalDateTime.now());
-
-            // Extract from OverFast API response
-            JsonNode summary = playerJson.get("summary");
-            if (summary != null) {
-                playerData.put("username", summary.has("username") ? summary.get("username").asText() : null);
-                playerData.put("avatarUrl", summary.has("avatar") ? summary.get("avatar").asText() : null);
-
-                // Extract competitive ranks - they're in summary.competitive.pc
-                if (summary.has("competitive")) {
-                    JsonNode competitive = summary.get("competitive");
-                    JsonNode pcRanks = competitive.get("pc");  // or use message.getPlatform()
-
-                    if (pcRanks != null) {
-                        Integer highestSR = null;
-
-                        // Check each role
-                        String[] roles = {"tank", "damage", "support", "open"};
-                        for (String role : roles) {
-                            if (pcRanks.has(role)) {
-                                JsonNode roleRank = pcRanks.get(role);
-                                String division = roleRank.get("division").asText();
-                                Integer tier = roleRank.get("tier").asInt();
-
-                                Integer roleSR = convertDivisionAndTierToSR(division, tier);
-                                log.info("🎯 {} rank: {} {} (SR: {})", role, division, tier, roleSR);
-
-                                if (roleSR != null && (highestSR == null || roleSR > highestSR)) {
-                                    highestSR = roleSR;
-                                }
-                            }
-                        }
-
-                        playerData.put("skillRating", highestSR);
-                        log.info("💎 Highest SR for {}: {}", message.getBattletag(), highestSR);
-                    }
-                }
-            }
-
-            playerData.put("region", "us"); // Default region
-
-        } catch (Exception e) {
-            log.warn("⚠️ Could not extract all player data for: {}", message.getBattletag(), e);
+        playerData.put("battletag", player.getBattletag());
+        playerData.put("platform", player.getPlatform());
+        playerData.put("lastUpdated", LocalDateTime.now());
+        playerData.put("username", player.getUsername());
+        playerData.put("avatarUrl", player.getAvatarUrl());
+        playerData.put("tankRating", player.getTankRating());
+        playerData.put("damageRating", player.getDamageRating());
+        playerData.put("supportRating", player.getSupportRating());
+        playerData.put("openRating", player.getOpenRating());
+        playerData.put("skillRating", player.getSkillRating());
+        playerData.put("region", "us"); // Default region
+
+        // Activity summary: hero with the most time played across modes, games across all heroes
+        Map<String, Integer> timePlayedByHero = new HashMap<>();
+        int totalGames = 0;
+        for (ParsedPlayerDTO.HeroStatRow row : player.getHeroStats()) {
+            timePlayedByHero.merge(row.getHeroKey(), row.getTimePlayed(), Integer::sum);
+            totalGames += row.getWins() + row.getLosses();
         }
-
+        Integer mostPlayedHeroId = timePlayedByHero.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(entry -> heroRegistry.idOf(entry.getKey()))
+                .filter(heroId -> heroId != HeroRegistry.UNKNOWN_HERO_ID)
+                .orElse(null);
+        playerData.put("mostPlayedHeroId", mostPlayedHeroId);
+        playerData.put("totalGames", totalGames);
         return playerData;
     }
 
-    // New method to convert OW2 division/tier to SR estimate
-    private Integer convertDivisionAndTierToSR(String division, Integer tier) {
-        if (division == null || tier == null) return null;
-
-        // OW2 Rank Structure (tier 5 is lowest, 1 is highest within each division)
-        Map<String, Integer> divisionBaseRatings = new HashMap<>();
-        divisionBaseRatings.put("bronze", 1000);
-        divisionBaseRatings.put("silver", 1500);
-        divisionBaseRatings.put("gold", 2000);
-        divisionBaseRatings.put("platinum", 2500);
-        divisionBaseRatings.put("diamond", 3000);
-        divisionBaseRatings.put("master", 3500);
-        divisionBaseRatings.put("grandmaster", 4000);
-        divisionBaseRatings.put("champion", 4500);
-
-        Integer baseRating = divisionBaseRatings.get(division.toLowerCase());
-        if (baseRating == null) return null;
-
-        // Each tier is roughly 100 SR, tier 5 = +0, tier 1 = +400
-        int tierBonus = (5 - tier) * 100;
-
-        return baseRating + tierBonus;
+    private PlayerActivityFeed.Activity toActivity(long playerId, Map<String, Object> playerData) {
+        Integer mostPlayedHeroId = (Integer) playerData.get("mostPlayedHeroId");
+        return new PlayerActivityFeed.Activity(
+                playerId,
+                (String) playerData.get("battletag"),
+                (String) playerData.get("platform"),
+                (String) playerData.get("username"),
+                (String) playerData.get("avatarUrl"),
+                (Integer) playerData.get("skillRating"),
+                (LocalDateTime) playerData.get("lastUpdated"),
+                mostPlayedHeroId != null ? mostPlayedHeroId.shortValue() : null,
+                (Integer) playerData.get("totalGames"));
     }
 
     /**
-     * Extract hero stats from OverFast API response
+     * Hero stats rows for the bulk upsert, one per hero and game mode
      */
-    private Map<String, Object> extractHeroStats(JsonNode playerJson, PlayerDTO message) {
-        Map<String, Object> heroStatsData = new HashMap<>();
+    private Map<String, Object> extractHeroStats(ParsedPlayerDTO player) {
         List<Map<String, Object>> heroStatsList = new ArrayList<>();
+        LocalDateTime lastPlayed = LocalDateTime.now();
 
-        try {
-            // ADD: Log the entire player JSON structure
-            log.info("🔍 Full player JSON for {}: {}", message.getBattletag(), playerJson.toString());
-
-            JsonNode stats = playerJson.get("stats");
-            if (stats == null) {
-                log.debug("No stats found for player: {}", message.getBattletag());
-                return Map.of("heroStats", heroStatsList);
+        for (ParsedPlayerDTO.HeroStatRow row : player.getHeroStats()) {
+            GameMode gameMode = GameMode.fromCode(row.getGameModeId());
+            if (gameMode == null) {
+                log.warn("Skipping {} stats with unknown game mode {}", row.getHeroKey(), row.getGameModeId());
+                continue;
             }
 
-            // ADD: Log what's in stats
-            log.info("📊 Stats structure for {}: {}", message.getBattletag(), stats.toString());
-
-            // ADD: Log available platforms
-            log.info("🎮 Available platforms in stats: {}", stats.fieldNames());
-
-            // Process PC stats (adjust platform as needed)
-            String platform = message.getPlatform();
-            JsonNode platformStats = stats.get(platform);
-            if (platformStats == null) {
-                // ADD: More detailed logging
-                log.warn("No {} stats found for player: {}. Available platforms: {}",
-                        platform, message.getBattletag(), stats.fieldNames());
-                return Map.of("heroStats", heroStatsList);
-            }
-
-            // ADD: Log what game modes are available
-            log.info("🎯 Available game modes for {}: {}", message.getBattletag(), platformStats.fieldNames());
-
-            // Process competitive stats
-            if (platformStats.has("competitive")) {
-                JsonNode competitive = platformStats.get("competitive");
-                log.info("💪 Processing competitive stats for {}", message.getBattletag());
-                extractHeroStatsForGameMode(competitive, heroStatsList, message, "competitive");
-            } else {
-                log.info("No competitive stats found for {}", message.getBattletag());
-            }
-
-            // Process quickplay stats
-            if (platformStats.has("quickplay")) {
-                JsonNode quickplay = platformStats.get("quickplay");
-                log.info("⚡ Processing quickplay stats for {}", message.getBattletag());
-                extractHeroStatsForGameMode(quickplay, heroStatsList, message, "quickplay");
-            } else {
-                log.info("No quickplay stats found for {}", message.getBattletag());
-            }
-
-            heroStatsData.put("heroStats", heroStatsList);
-            log.info("📊 Extracted {} hero stats entries for: {}", heroStatsList.size(), message.getBattletag());
-
-        } catch (Exception e) {
-            log.error("⚠️ Could not extract hero stats for: {}", message.getBattletag(), e);
-            heroStatsData.put("heroStats", heroStatsList); // Return empty list on error
+            Map<String, Object> heroStatsMap = new HashMap<>();
+            heroStatsMap.put("battletag", player.getBattletag());
+            heroStatsMap.put("heroKey", row.getHeroKey());
+            heroStatsMap.put("heroId", heroRegistry.idOf(row.getHeroKey())); // registers heroes newer than the last sync
+            heroStatsMap.put("platform", player.getPlatform());
+            heroStatsMap.put("gameMode", gameMode.getKey());
+            heroStatsMap.put("lastPlayed", lastPlayed);
+            heroStatsMap.put("wins", row.getWins());
+            heroStatsMap.put("losses", row.getLosses());
+            heroStatsMap.put("draws", row.getDraws());
+            heroStatsMap.put("timePlayed", row.getTimePlayed());
+            heroStatsMap.put("eliminations", row.getEliminations());
+            heroStatsMap.put("deaths", row.getDeaths());
+            heroStatsMap.put("assists", row.getAssists());
+            heroStatsMap.put("damageDealt", row.getDamageDealt());
+            heroStatsMap.put("healingDone", row.getHealingDone());
+            heroStatsMap.put("skillTier", 0);
+            heroStatsList.add(heroStatsMap);
         }
 
+        Map<String, Object> heroStatsData = new HashMap<>();
+        heroStatsData.put("heroStats", heroStatsList);
         return heroStatsData;
     }
 
-    /**
-     * Extract hero stats for a specific game mode
-     */
-    private void extractHeroStatsForGameMode(JsonNode gameModeStats, List<Map<String, Object>> heroStatsList,
-                                             PlayerDTO message, String gameMode) {
-        try {
-            // Look for career_stats instead of heroes
-            JsonNode careerStats = gameModeStats.get("career_stats");
-            if (careerStats == null) {
-                log.warn("No career_stats found in {} mode", gameMode);
-                return;
-            }
-
-            // Iterate through each hero in career_stats
-            careerStats.fields().forEachRemaining(heroEntry -> {
-                String heroKey = heroEntry.getKey();
-
-                // Skip "all-heroes" as it's aggregate data
-                if ("all-heroes".equals(heroKey)) {
-                    return;
-                }
-
-                JsonNode heroData = heroEntry.getValue();
-
-                try {
-                    Map<String, Object> heroStatsMap = new HashMap<>();
-
-                    // KEEP: Your existing identifiers
-                    heroStatsMap.put("playerId", generatePlayerId(message.getBattletag(), message.getPlatform()));
-                    heroStatsMap.put("heroKey", heroKey);
-                    heroStatsMap.put("platform", message.getPlatform());
-                    heroStatsMap.put("gameMode", gameMode);
-                    heroStatsMap.put("lastPlayed", LocalDateTime.now());
-
-                    // NEW: Parse the category-based structure
-                    for (JsonNode category : heroData) {
-                        String categoryName = category.get("category").asText();
-                        JsonNode stats = category.get("stats");
-
-                        if ("game".equals(categoryName) && stats != null) {
-                            // Extract game stats (wins, losses, time_played)
-                            for (JsonNode stat : stats) {
-                                String key = stat.get("key").asText();
-                                JsonNode valueNode = stat.get("value");
-
-                                switch (key) {
-                                    case "games_won":
-                                        heroStatsMap.put("wins", valueNode.asInt(0));
-                                        break;
-                                    case "games_lost":
-                                        heroStatsMap.put("losses", valueNode.asInt(0));
-                                        break;
-                                    case "time_played":
-                                        // Convert seconds to minutes
-                                        heroStatsMap.put("timePlayed", valueNode.asInt(0) / 60);
-                                        break;
-                                }
-                            }
-                        } else if ("combat".equals(categoryName) && stats != null) {
-                            // Extract combat stats
-                            for (JsonNode stat : stats) {
-                                String key = stat.get("key").asText();
-                                JsonNode valueNode = stat.get("value");
-
-                                switch (key) {
-                                    case "eliminations":
-                                        heroStatsMap.put("eliminations", valueNode.asLong(0));
-                                        break;
-                                    case "deaths":
-                                        heroStatsMap.put("deaths", valueNode.asLong(0));
-                                        break;
-                                    case "hero_damage_done":
-                                        heroStatsMap.put("damageDealt", valueNode.asLong(0));
-                                        break;
-                                }
-                            }
-                        } else if ("assists".equals(categoryName) && stats != null) {
-                            // Extract assist stats
-                            for (JsonNode stat : stats) {
-                                String key = stat.get("key").asText();
-                                JsonNode valueNode = stat.get("value");
-
-                                switch (key) {
-                                    case "assists":
-                                        heroStatsMap.put("assists", valueNode.asLong(0));
-                                        break;
-                                    case "healing_done":
-                                        heroStatsMap.put("healingDone", valueNode.asLong(0));
-                                        break;
-                                }
-                            }
-                        }
-                    }
-
-                    // KEEP: Set defaults for missing values
-                    setDefaultValues(heroStatsMap);
-
-                    Integer timePlayed = (Integer) heroStatsMap.get("timePlayed");
-
-                    if (timePlayed != null && timePlayed > 0) {
-                        heroStatsList.add(heroStatsMap);
-                        log.debug("📈 Extracted stats for {} ({}): {} min played",
-                                heroKey, gameMode, timePlayed);
-                    } else {
-                        log.trace("⏭️ Skipping {} ({}) - no playtime recorded", heroKey, gameMode);
-                    }
-
-                } catch (Exception e) {
-                    log.warn("⚠️ Failed to extract stats for hero {} ({}): {}",
-                            heroKey, gameMode, e.getMessage());
-                }
-            });
-
-        } catch (Exception e) {
-            log.warn("⚠️ Failed to extract hero stats for game mode {}: {}", gameMode, e.getMessage());
-        }
-    }
-
     /**
      * Event publishing with cooldown (copied from your tryPublishEvent)
      */
@@ -479,6 +421,14 @@ public class PlayerProcessingService {
         }
     }
 
+    private static void setNullableSmallInt(PreparedStatement ps, int idx, Integer val) throws SQLException {
+        if (val == null) {
+            ps.setNull(idx, Types.SMALLINT);
+        } else {
+            ps.setShort(idx, val.shortValue());
+        }
+    }
+
     /**
      * Extract skill rating from competitive stats
      */
@@ -552,7 +502,8 @@ public class PlayerProcessingService {
     /**
      * Bulk hero stats insert/update (adapted from your Tekken executeCharacterStatsBulkOperations)
      */
-    private void executeHeroStatsBulkOperations(Map<String, Object> allHeroStatsData) {
+    private void executeHeroStatsBulkOperations(Map<String, Object> allHeroStatsData,
+                                                Map<PlayerIdResolver.PlayerKey, Long> playerIds) {
         @SuppressWarnings("unchecked")
         List<Map<String, Object>> heroStatsList = (List<Map<String, Object>>) allHeroStatsData.get("heroStats");
 
@@ -565,10 +516,11 @@ public class PlayerProcessingService {
 
         String sql =
                 "INSERT INTO hero_stats " +
-                        "(player_id, hero_key, platform, game_mode, last_played, wins, losses, draws, " +
-                        "time_played, eliminations, deaths, assists, damage_dealt, healing_done, skill_tier) " +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
-                        "ON CONFLICT (player_id, hero_key, platform, game_mode) DO UPDATE SET " +
+                        "(player_id, hero_id, game_mode_id, platform_id, last_played, wins, losses, draws, " +
+                        "time_played, eliminations, deaths, assists, damage_dealt, healing_done, skill_tier, " +
+                        "aggregate_bracket) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                        "ON CONFLICT (player_id, hero_id, game_mode_id, platform_id) DO UPDATE SET " +
 
                         "last_played = CASE WHEN EXCLUDED.last_played > hero_stats.last_played " +
                         "THEN EXCLUDED.last_played ELSE hero_stats.last_played END, " +
@@ -601,15 +553,29 @@ public class PlayerProcessingService {
                         "THEN EXCLUDED.healing_done ELSE hero_stats.healing_done END, " +
 
                         "skill_tier = CASE WHEN EXCLUDED.last_played > hero_stats.last_played " +
-                        "THEN EXCLUDED.skill_tier ELSE hero_stats.skill_tier END";
+                        "THEN EXCLUDED.skill_tier ELSE hero_stats.skill_tier END, " +
+
+                        "aggregate_bracket = CASE WHEN EXCLUDED.last_played > hero_stats.last_played " +
+                        "THEN EXCLUDED.aggregate_bracket ELSE hero_stats.aggregate_bracket END";
 
         List<Object[]> batchArgs = new ArrayList<>();
         for (Map<String, Object> heroStats : heroStatsList) {
+            int heroId = (Integer) heroStats.get("heroId");
+            if (heroId == HeroRegistry.UNKNOWN_HERO_ID) {
+                log.warn("Skipping hero stats without a hero id: {}", heroStats.get("heroKey"));
+                continue;
+            }
+            Long playerId = playerIds.get(new PlayerIdResolver.PlayerKey(
+                    (String) heroStats.get("battletag"), (String) heroStats.get("platform")));
+            if (playerId == null) {
+                log.warn("Skipping hero stats for unknown player: {}", heroStats.get("battletag"));
+                continue;
+            }
             Object[] args = new Object[]{
-                    heroStats.get("playerId"),
-                    heroStats.get("heroKey"),
-                    heroStats.get("platform"),
-                    heroStats.get("gameMode"),
+                    playerId,
+                    (short) heroId,
+                    GameMode.fromKey((String) heroStats.get("gameMode")).getCode(),
+                    Platform.fromKey((String) heroStats.get("platform")).getCode(),
                     Timestamp.valueOf((LocalDateTime) heroStats.get("lastPlayed")),
                     heroStats.get("wins"),
                     heroStats.get("losses"),
@@ -620,24 +586,107 @@ public class PlayerProcessingService {
                     heroStats.get("assists"),
                     heroStats.get("damageDealt"),
                     heroStats.get("healingDone"),
-                    heroStats.get("skillTier") != null ? heroStats.get("skillTier") : 0
+                    heroStats.get("skillTier") != null ? heroStats.get("skillTier") : 0,
+                    heroStats.getOrDefault("srBracket", HeroPickSketchService.UNRANKED)
             };
             batchArgs.add(args);
         }
 
         // Sort to prevent deadlocks (like your Tekken pattern)
-        batchArgs.sort(Comparator.comparing((Object[] args) -> (String) args[0]) // player_id
-                .thenComparing(args -> (String) args[1]) // hero_key
-                .thenComparing(args -> (String) args[2])); // platform
+        batchArgs.sort(Comparator.comparingLong((Object[] args) -> (Long) args[0]) // player_id
+                .thenComparingInt(args -> (Short) args[1]) // hero_id
+                .thenComparingInt(args -> (Short) args[2]) // game_mode_id
+                .thenComparingInt(args -> (Short) args[3])); // platform_id
+
+        // Rows about to be replaced, locked so the deltas match what the upsert overwrites
+        Map<HeroStatsKey, Object[]> previous = selectHeroStatsForUpdate(batchArgs);
 
         jdbcTemplate.batchUpdate(sql, batchArgs);
 
-        log.info("⚡ HeroStats Bulk Upsert: {} ms, Processed HeroStats: {}",
-                (System.currentTimeMillis() - startTime), heroStatsList.size());
+        Map<HeroAggregateService.AggregateKey, long[]> deltas = new HashMap<>();
+        for (Object[] args : batchArgs) {
+            addHeroStatsDelta(deltas, args, previous.get(heroStatsKey(args)));
+        }
+        heroAggregateService.addAfterCommit(deltas);
+
+        // Adding a player twice is a no-op, so a retried message does not inflate pick counts
+        for (Object[] args : batchArgs) {
+            heroPickSketchService.record((Long) args[0], (Short) args[1], (Short) args[2], (Short) args[3],
+                    (String) args[15]);
+        }
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        ingestDiagnostics.sample(log, IngestDiagnostics.Stage.WRITE, null)
+                .addKeyValue("table", "hero_stats")
+                .addKeyValue("rows", heroStatsList.size())
+                .addKeyValue("elapsedMs", elapsed)
+                .log("⚡ HeroStats Bulk Upsert: {} ms, Processed HeroStats: {}", elapsed, heroStatsList.size());
+    }
+
+    private static HeroStatsKey heroStatsKey(Object[] args) {
+        return new HeroStatsKey((Long) args[0], (Short) args[1], (Short) args[2], (Short) args[3]);
     }
 
-    private String generatePlayerId(String battletag, String platform) {
-        return battletag.replace("#", "_") + "_" + platform.toLowerCase();
+    /**
+     * Current hero_stats rows for the batch, as (last_played, wins ... healing_done,
+     * aggregate_bracket) in the column order of the upsert arguments. Locked in primary key
+     * order, like the upsert.
+     */
+    private Map<HeroStatsKey, Object[]> selectHeroStatsForUpdate(List<Object[]> batchArgs) {
+        Long[] playerIds = batchArgs.stream().map(args -> (Long) args[0]).toArray(Long[]::new);
+        Short[] heroIds = batchArgs.stream().map(args -> (Short) args[1]).toArray(Short[]::new);
+        Short[] gameModeIds = batchArgs.stream().map(args -> (Short) args[2]).toArray(Short[]::new);
+        Short[] platformIds = batchArgs.stream().map(args -> (Short) args[3]).toArray(Short[]::new);
+
+        Map<HeroStatsKey, Object[]> rows = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT player_id, hero_id, game_mode_id, platform_id, last_played, wins, losses, draws, " +
+                        "time_played, eliminations, deaths, assists, damage_dealt, healing_done, aggregate_bracket " +
+                        "FROM hero_stats WHERE (player_id, hero_id, game_mode_id, platform_id) IN " +
+                        "(SELECT * FROM unnest(?::bigint[], ?::smallint[], ?::smallint[], ?::smallint[])) " +
+                        "ORDER BY player_id, hero_id, game_mode_id, platform_id FOR UPDATE",
+                rs -> {
+                    Object[] row = new Object[2 + HeroAggregateService.COLUMNS.size()];
+                    row[0] = rs.getTimestamp("last_played");
+                    for (int i = 0; i < HeroAggregateService.COLUMNS.size(); i++) {
+                        row[i + 1] = rs.getLong(HeroAggregateService.COLUMNS.get(i));
+                    }
+                    row[row.length - 1] = rs.getString("aggregate_bracket");
+                    rows.put(new HeroStatsKey(rs.getLong("player_id"), rs.getShort("hero_id"),
+                            rs.getShort("game_mode_id"), rs.getShort("platform_id")), row);
+                },
+                playerIds, heroIds, gameModeIds, platformIds);
+        return rows;
+    }
+
+    /**
+     * What one upsert adds to the hero aggregates: the new row in the player's current bracket,
+     * minus the replaced row in the bracket it was counted in; nothing when the stored row is
+     * newer (the upsert keeps it)
+     */
+    private static void addHeroStatsDelta(Map<HeroAggregateService.AggregateKey, long[]> deltas,
+                                          Object[] args, Object[] previous) {
+        Timestamp lastPlayed = (Timestamp) args[4];
+        if (previous != null && previous[0] != null && !lastPlayed.after((Timestamp) previous[0])) {
+            return;
+        }
+
+        // args[5..13] are wins ... healing_done, in COLUMNS order
+        long[] row = new long[HeroAggregateService.COLUMNS.size()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = args[5 + i] != null ? ((Number) args[5 + i]).longValue() : 0;
+        }
+        long[] previousRow = null;
+        String previousBracket = null;
+        if (previous != null) {
+            previousRow = new long[row.length];
+            for (int i = 0; i < row.length; i++) {
+                previousRow[i] = (Long) previous[i + 1];
+            }
+            previousBracket = (String) previous[previous.length - 1];
+        }
+        HeroAggregateService.addReplacement(deltas, (Short) args[2], (Short) args[1],
+                (String) args[15], row, previousBracket, previousRow);
     }
 
     private int parseTimePlayedToMinutes(JsonNode timePlayedNode) {
@@ -672,13 +721,4 @@ public class PlayerProcessingService {
         Integer timePlayed = (Integer) heroStatsMap.get("timePlayed");
         return timePlayed != null ? timePlayed.doubleValue() / 10.0 : 0.0; // Convert to 10-minute intervals
     }
-
-    private void setDefaultValues(Map<String, Object> heroStatsMap) {
-        heroStatsMap.putIfAbsent("eliminations", 0L);
-        heroStatsMap.putIfAbsent("deaths", 0L);
-        heroStatsMap.putIfAbsent("assists", 0L);
-        heroStatsMap.putIfAbsent("damageDealt", 0L);
-        heroStatsMap.putIfAbsent("healingDone", 0L);
-        heroStatsMap.putIfAbsent("skillTier", 0);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,129 @@
+package com.owmetagg.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collapses repeated refreshes of the same player (battletag + platform) at two points:
+ * before the OverFast call and rate limiter (FETCH), and before the database write (WRITE).
+ *
+ * A refresh is skipped when one for the same player is already in flight, when it is not
+ * newer than the last one completed (a redelivered or out-of-order message), or when it comes
+ * less than ingest.dedup.min-refresh-interval-ms after it. State is per instance, so with
+ * several producers the WRITE check is what catches their duplicates.
+ *
+ * Suppressions are counted in ingest.dedup.suppressed, tagged with stage and reason.
+ */
+@Slf4j
+@Service
+public class PlayerRefreshDeduplicator {
+
+    public enum Stage {
+        FETCH, WRITE
+    }
+
+    // Stale copies can sit in player.data.queue for its whole message TTL
+    private static final Duration MIN_RETENTION = Duration.ofHours(1);
+
+    private final Duration minRefreshInterval;
+    private final Duration retention;
+
+    private final Map<Stage, Map<PlayerKey, Instant>> inFlight = new EnumMap<>(Stage.class);
+    private final Map<Stage, Map<PlayerKey, Instant>> completed = new EnumMap<>(Stage.class);
+
+    private final Map<Stage, Counter> accepted = new EnumMap<>(Stage.class);
+    private final Map<Stage, Map<String, Counter>> suppressed = new EnumMap<>(Stage.class);
+
+    public PlayerRefreshDeduplicator(
+            MeterRegistry meterRegistry,
+            @Value("${ingest.dedup.min-refresh-interval-ms:600000}") long minRefreshIntervalMs) {
+        this.minRefreshInterval = Duration.ofMillis(Math.max(0, minRefreshIntervalMs));
+        this.retention = minRefreshInterval.compareTo(MIN_RETENTION) > 0 ? minRefreshInterval : MIN_RETENTION;
+
+        for (Stage stage : Stage.values()) {
+            String stageTag = stage.name().toLowerCase();
+            inFlight.put(stage, new ConcurrentHashMap<>());
+            completed.put(stage, new ConcurrentHashMap<>());
+            accepted.put(stage, Counter.builder("ingest.dedup.accepted")
+                    .description("Player refreshes let through")
+                    .tag("stage", stageTag)
+                    .register(meterRegistry));
+
+            Map<String, Counter> reasons = new ConcurrentHashMap<>();
+            for (String reason : new String[]{"in_flight", "stale", "recent"}) {
+                reasons.put(reason, Counter.builder("ingest.dedup.suppressed")
+                        .description("Duplicate player refreshes dropped")
+                        .tag("stage", stageTag)
+                        .tag("reason", reason)
+                        .register(meterRegistry));
+            }
+            suppressed.put(stage, reasons);
+        }
+    }
+
+    private record PlayerKey(String battletag, String platform) {
+    }
+
+    /**
+     * Claim a refresh of the player's data as of the given time. When this returns true the
+     * caller owns the refresh and must call finish(); false means it is a duplicate.
+     */
+    public boolean tryAcquire(Stage stage, String battletag, String platform, Instant asOf) {
+        PlayerKey key = new PlayerKey(battletag, platform);
+        if (inFlight.get(stage).putIfAbsent(key, asOf) != null) {
+            return suppress(stage, key, "in_flight");
+        }
+
+        Instant last = completed.get(stage).get(key);
+        if (last != null && !asOf.isAfter(last)) {
+            inFlight.get(stage).remove(key);
+            return suppress(stage, key, "stale");
+        }
+        if (last != null && asOf.isBefore(last.plus(minRefreshInterval))) {
+            inFlight.get(stage).remove(key);
+            return suppress(stage, key, "recent");
+        }
+
+        accepted.get(stage).increment();
+        return true;
+    }
+
+    /**
+     * Release a claimed refresh; only a successful one holds off the next refresh
+     */
+    public void finish(Stage stage, String battletag, String platform, Instant asOf, boolean succeeded) {
+        PlayerKey key = new PlayerKey(battletag, platform);
+        if (succeeded) {
+            completed.get(stage).merge(key, asOf, (previous, current) -> current.isAfter(previous) ? current : previous);
+        }
+        inFlight.get(stage).remove(key);
+    }
+
+    private boolean suppress(Stage stage, PlayerKey key, String reason) {
+        suppressed.get(stage).get(reason).increment();
+        log.debug("⏭️ Skipping duplicate {} of {} ({}): {}", stage.name().toLowerCase(),
+                key.battletag(), key.platform(), reason);
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${ingest.dedup.cleanup-interval-ms:300000}")
+    public void evictExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        int before = completed.values().stream().mapToInt(Map::size).sum();
+        completed.values().forEach(entries -> entries.values().removeIf(last -> last.isBefore(cutoff)));
+        int after = completed.values().stream().mapToInt(Map::size).sum();
+        if (before != after) {
+            log.debug("🧹 Evicted {} expired player refresh entries, {} left", before - after, after);
+        }
+    }
+}
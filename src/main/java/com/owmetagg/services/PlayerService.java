@@ -1,64 +1,109 @@
 package com.owmetagg.services;
 
 import com.owmetagg.dtos.*;
-import lombok.RequiredArgsConstructor;
+import com.owmetagg.models.GameMode;
+import com.owmetagg.utils.PageCursor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static com.owmetagg.utils.Constants.GAME_MODE_COMPETITIVE;
+
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class PlayerService {
 
     private final JdbcTemplate jdbcTemplate;
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private final OverFastService overFastService;
+    private final HeroRegistry heroRegistry;
+    private final PlayerIdResolver playerIdResolver;
+    private final PlayerActivityFeed activityFeed;
+    private final PlayerHeroStatsCache heroStatsCache;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    public PlayerService(JdbcTemplate jdbcTemplate,
+                         OverFastService overFastService,
+                         HeroRegistry heroRegistry,
+                         PlayerIdResolver playerIdResolver,
+                         PlayerActivityFeed activityFeed,
+                         PlayerHeroStatsCache heroStatsCache,
+                         PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.overFastService = overFastService;
+        this.heroRegistry = heroRegistry;
+        this.playerIdResolver = playerIdResolver;
+        this.activityFeed = activityFeed;
+        this.heroStatsCache = heroStatsCache;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
 
     /**
      * Get player stats/profile from database
      */
+    @Transactional(readOnly = true)
     public PlayerDTO getPlayerStats(String battletag, String platform) {  // Changed return type
+        PlayerRefDTO player = new PlayerRefDTO(battletag, platform);
+        return getPlayerStats(List.of(player)).get(player);
+    }
+
+    /**
+     * Profiles of many players in two set-based queries: players by (battletag, platform),
+     * then per-hero totals of all of them. Keyed by the requested pair, in request order;
+     * players that are not stored have no entry.
+     */
+    @Transactional(readOnly = true)
+    public Map<PlayerRefDTO, PlayerDTO> getPlayerStats(Collection<PlayerRefDTO> players) {
+        Map<PlayerRefDTO, PlayerDTO> profiles = new LinkedHashMap<>();
+        if (players.isEmpty()) {
+            return profiles;
+        }
+
         String sql = """
-        SELECT p.*, 
-               (SELECT COUNT(DISTINCT hero_key) FROM hero_stats WHERE player_id = p.player_id) as heroes_played,
-               (SELECT SUM(wins) FROM hero_stats WHERE player_id = p.player_id) as total_wins,
-               (SELECT SUM(losses) FROM hero_stats WHERE player_id = p.player_id) as total_losses,
-               (SELECT SUM(time_played) FROM hero_stats WHERE player_id = p.player_id) as total_play_time
-        FROM players p
-        WHERE p.battletag = ? AND p.platform = ?
-    """;
+            SELECT p.player_id, p.battletag, p.username, p.avatar_url, p.platform, p.skill_rating, p.last_updated
+            FROM players p
+            JOIN unnest(?::text[], ?::text[]) AS k(battletag, platform)
+                ON p.battletag = k.battletag AND p.platform = k.platform
+        """;
 
-        return jdbcTemplate.query(sql, new Object[]{battletag, platform}, rs -> {
-            if (rs.next()) {
-                Integer totalWins = rs.getInt("total_wins");
-                Integer totalLosses = rs.getInt("total_losses");
-                double winRate = totalWins + totalLosses > 0 ?
-                        (double) totalWins / (totalWins + totalLosses) * 100 : 0;
+        String[] battletags = players.stream().map(PlayerRefDTO::getBattletag).toArray(String[]::new);
+        String[] platforms = players.stream().map(PlayerRefDTO::getPlatform).toArray(String[]::new);
+        Map<PlayerRefDTO, Long> playerIds = new HashMap<>();
+        Map<PlayerRefDTO, PlayerDTO> found = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            PlayerRefDTO key = new PlayerRefDTO(rs.getString("battletag"), rs.getString("platform"));
+            playerIds.put(key, rs.getLong("player_id"));
+            found.put(key, PlayerDTO.builder()
+                    .battletag(key.getBattletag())
+                    .username(rs.getString("username"))
+                    .avatarUrl(rs.getString("avatar_url"))
+                    .platform(key.getPlatform())
+                    .skillRating(rs.getObject("skill_rating", Integer.class))
+                    .latestSession(rs.getTimestamp("last_updated").getTime())
+                    .build());
+        }, battletags, platforms);
 
-                // Build the full PlayerDTO with nested data
-                return PlayerDTO.builder()
-                        .battletag(rs.getString("battletag"))
-                        .username(rs.getString("username"))
-                        .avatarUrl(rs.getString("avatar_url"))
-                        .platform(rs.getString("platform"))
-                        .skillRating(rs.getObject("skill_rating", Integer.class))
-                        .totalPlayTime(rs.getLong("total_play_time"))
-                        .latestSession(rs.getTimestamp("last_updated").getTime())
-                        // Add nested complex data here
-                        .playedHeroes(getPlayedHeroesMap(battletag, platform))
-                        .build();
+        Map<Long, Map<String, HeroSummaryDTO>> heroes = getPlayedHeroesMaps(playerIds.values());
+        for (PlayerRefDTO player : players) {
+            PlayerDTO profile = found.get(player);
+            if (profile == null) {
+                continue;
             }
-            return null;
-        });
+            Map<String, HeroSummaryDTO> playedHeroes = heroes.getOrDefault(playerIds.get(player), new HashMap<>());
+            profile.setPlayedHeroes(playedHeroes);
+            profile.setTotalPlayTime(playedHeroes.values().stream().mapToLong(HeroSummaryDTO::getTimePlayed).sum());
+            profiles.put(player, profile);
+        }
+        return profiles;
     }
 
     /**
@@ -92,48 +137,27 @@ public class PlayerService {
             return dbResults;
         }
 
-        // Otherwise, search OverFast API
-        try {
-            String url = String.format("https://overfast-api.tekrop.fr/players?name=%s&limit=%d", query, limit);
-            String response = restTemplate.getForObject(url, String.class);
-
-            JsonNode json = objectMapper.readTree(response);
-            JsonNode results = json.get("results");
-
-            List<PlayerSearchResultDTO> apiResults = new ArrayList<>();
-            if (results != null && results.isArray()) {
-                for (JsonNode player : results) {
-                    apiResults.add(PlayerSearchResultDTO.builder()
-                            .playerId(player.get("player_id").asText())
-                            .battletag(player.get("name").asText().replace("#", "-"))
-                            .name(player.get("name").asText())
-                            .avatarUrl(player.get("avatar").asText())
-                            .platform("pc")
-                            .build());
-                }
-            }
+        // Otherwise, search OverFast API (last cached result, or nothing, while it is unavailable)
+        List<PlayerSearchResultDTO> apiResults = overFastService.searchPlayers(query, limit);
 
-            // Combine and deduplicate results
-            Set<String> existingBattletags = dbResults.stream()
-                    .map(PlayerSearchResultDTO::getBattletag)
-                    .collect(Collectors.toSet());
+        // Combine and deduplicate results
+        Set<String> existingBattletags = dbResults.stream()
+                .map(PlayerSearchResultDTO::getBattletag)
+                .collect(Collectors.toSet());
 
-            for (PlayerSearchResultDTO apiResult : apiResults) {
-                if (!existingBattletags.contains(apiResult.getBattletag()) && dbResults.size() < limit) {
-                    dbResults.add(apiResult);
-                }
+        for (PlayerSearchResultDTO apiResult : apiResults) {
+            if (!existingBattletags.contains(apiResult.getBattletag()) && dbResults.size() < limit) {
+                dbResults.add(apiResult);
             }
-
-            return dbResults;
-        } catch (Exception e) {
-            log.error("Error searching OverFast API", e);
-            return dbResults; // Return what we have from DB
         }
+
+        return dbResults;
     }
 
     /**
      * Get player metadata
      */
+    @Transactional(readOnly = true)
     public PlayerMetadataDTO getPlayerMetadata(String battletag, String platform) {
         String sql = """
             SELECT battletag, username, avatar_url, skill_rating, last_updated
@@ -157,67 +181,200 @@ public class PlayerService {
     }
 
     /**
-     * Get recently active players
+     * Get recently active players, from the in-memory activity feed
      */
     public List<RecentlyActivePlayerDTO> getRecentlyActivePlayers() {
+        return activityFeed.recent(20);
+    }
+
+    /**
+     * Leaderboard page: highest skill rating first, ties by player id, the rows after cursor
+     * (first page when null). A keyset page is one range scan of idx_players_platform_sr_id (V14)
+     * from the cursor, however deep it is.
+     */
+    @Transactional(readOnly = true)
+    public PageDTO<PlayerSearchResultDTO> getLeaderboard(String platform, PageCursor cursor, int limit) {
         String sql = """
-            SELECT p.*, 
-                   (SELECT hero_key FROM hero_stats 
-                    WHERE player_id = p.player_id 
-                    ORDER BY time_played DESC LIMIT 1) as most_played_hero,
-                   (SELECT SUM(wins + losses) FROM hero_stats 
-                    WHERE player_id = p.player_id) as total_games
-            FROM players p
-            ORDER BY p.last_updated DESC
-            LIMIT 20
-        """;
+            SELECT player_id, battletag, username, avatar_url, platform, skill_rating
+            FROM players
+            WHERE platform = ? AND skill_rating IS NOT NULL
+            """ + (cursor != null ? "AND (skill_rating, player_id) < (?, ?)\n" : "") + """
+            ORDER BY skill_rating DESC, player_id DESC
+            LIMIT ?
+            """;
 
-        return jdbcTemplate.query(sql, (rs, rowNum) ->
-                RecentlyActivePlayerDTO.builder()
-                        .playerId(rs.getString("player_id"))
-                        .battletag(rs.getString("battletag"))
-                        .username(rs.getString("username"))
-                        .avatarUrl(rs.getString("avatar_url"))
-                        .platform(rs.getString("platform"))
-                        .skillRating(rs.getObject("skill_rating", Integer.class))
-                        .lastUpdated(rs.getTimestamp("last_updated").toLocalDateTime())
-                        .recentGamesPlayed(rs.getInt("total_games"))
-                        .build()
-        );
+        List<Object> args = new ArrayList<>(4);
+        args.add(platform);
+        if (cursor != null) {
+            args.add(cursor.skillRating());
+            args.add(cursor.playerId());
+        }
+        args.add(limit + 1); // one extra row tells whether there is a next page
+
+        List<PlayerSearchResultDTO> rows = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Integer skillRating = rs.getObject("skill_rating", Integer.class);
+            return PlayerSearchResultDTO.builder()
+                    .playerId(rs.getString("player_id"))
+                    .battletag(rs.getString("battletag"))
+                    .name(rs.getString("username"))
+                    .username(rs.getString("username"))
+                    .avatarUrl(rs.getString("avatar_url"))
+                    .platform(rs.getString("platform"))
+                    .skillRating(skillRating)
+                    .rank(convertSRToRank(skillRating))
+                    .build();
+        }, args.toArray());
+
+        return page(rows, limit, last -> PageCursor.of(last.getSkillRating(), Long.parseLong(last.getPlayerId())));
+    }
+
+    /**
+     * Players page: most recently updated first, ties by player id, the rows after cursor
+     * (first page when null). One range scan of idx_players_last_updated_id (V14).
+     */
+    @Transactional(readOnly = true)
+    public PageDTO<RecentlyActivePlayerDTO> getRecentPlayers(PageCursor cursor, int limit) {
+        String sql = """
+            SELECT player_id, battletag, platform, region, username, avatar_url, skill_rating, last_updated,
+                   most_played_hero_id, total_games
+            FROM players
+            WHERE last_updated IS NOT NULL
+            """ + (cursor != null ? "AND (last_updated, player_id) < (?, ?)\n" : "") + """
+            ORDER BY last_updated DESC, player_id DESC
+            LIMIT ?
+            """;
+
+        List<Object> args = new ArrayList<>(3);
+        if (cursor != null) {
+            args.add(Timestamp.valueOf(cursor.lastUpdated()));
+            args.add(cursor.playerId());
+        }
+        args.add(limit + 1);
+
+        List<RecentlyActivePlayerDTO> rows = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Short mostPlayedHeroId = rs.getObject("most_played_hero_id", Short.class);
+            return RecentlyActivePlayerDTO.builder()
+                    .playerId(rs.getString("player_id"))
+                    .battletag(rs.getString("battletag"))
+                    .platform(rs.getString("platform"))
+                    .region(rs.getString("region"))
+                    .username(rs.getString("username"))
+                    .avatarUrl(rs.getString("avatar_url"))
+                    .skillRating(rs.getObject("skill_rating", Integer.class))
+                    .lastUpdated(rs.getTimestamp("last_updated").toLocalDateTime())
+                    .mostPlayedHero(mostPlayedHeroId != null ? heroRegistry.keyOf(mostPlayedHeroId) : null)
+                    .recentGamesPlayed(rs.getInt("total_games"))
+                    .build();
+        }, args.toArray());
+
+        return page(rows, limit, last -> PageCursor.of(last.getLastUpdated(), Long.parseLong(last.getPlayerId())));
+    }
+
+    // First limit rows, with a cursor after the last of them when the query found more
+    private static <T> PageDTO<T> page(List<T> rows, int limit, Function<T, PageCursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return PageDTO.<T>builder().items(rows).build();
+        }
+        List<T> items = rows.subList(0, limit);
+        return PageDTO.<T>builder()
+                .items(items)
+                .nextCursor(cursorOf.apply(items.get(limit - 1)).encode())
+                .build();
     }
 
     /**
      * Get player ID from battletag
      */
-    public String getPlayerIdFromBattletag(String battletag, String platform) {
-        return battletag.replace("#", "_") + "_" + platform.toLowerCase();
+    public Long getPlayerIdFromBattletag(String battletag, String platform) {
+        return playerIdResolver.resolve(battletag, platform);
     }
 
     /**
-     * Get hero stats
+     * Get hero stats: all modes when gameMode is null
      */
     public List<HeroStatsDTO> getHeroStats(String battletag, String platform, String gameMode) {
-        // Implementation from earlier
-        return new ArrayList<>();
+        return getHeroStats(battletag, platform, gameMode, null);
+    }
+
+    /**
+     * A player's heroes, most played first, at most limit of them (all when null). One query on
+     * the hero_stats primary key (player_id leads it) with win rate, KDA and per-10-minute
+     * damage and healing derived in SQL, cached per player and game mode until ingest writes
+     * that player; limit only slices the cached list, so it adds no cache entries.
+     * Only a miss opens a (read-only, so replica-routed) transaction: a hit takes no connection.
+     */
+    public List<HeroStatsDTO> getHeroStats(String battletag, String platform, String gameMode, Integer limit) {
+        GameMode mode = gameMode == null || gameMode.isBlank() ? null : GameMode.fromKey(gameMode);
+        Long playerId = playerIdResolver.resolve(battletag, platform);
+        if (playerId == null) {
+            return List.of();
+        }
+
+        String query = mode != null ? mode.getKey() : "all";
+        List<HeroStatsDTO> heroStats = heroStatsCache.get(playerId, query,
+                () -> readOnlyTransactionTemplate.execute(status -> queryHeroStats(playerId, mode)));
+        return limit != null && limit < heroStats.size() ? heroStats.subList(0, limit) : heroStats;
+    }
+
+    private List<HeroStatsDTO> queryHeroStats(long playerId, GameMode mode) {
+        String sql = """
+            SELECT hero_id, game_mode_id, wins, losses, time_played,
+                   wins + losses + draws AS games_played,
+                   CASE WHEN wins + losses + draws > 0
+                        THEN wins * 100.0 / (wins + losses + draws) ELSE 0 END AS win_rate,
+                   (eliminations + assists)::float8 / GREATEST(deaths, 1) AS kda,
+                   CASE WHEN time_played > 0 THEN damage_dealt * 10.0 / time_played ELSE 0 END AS damage_per_10_min,
+                   CASE WHEN time_played > 0 THEN healing_done * 10.0 / time_played ELSE 0 END AS healing_per_10_min
+            FROM hero_stats
+            WHERE player_id = ?
+            """ + (mode != null ? "AND game_mode_id = ?\n" : "")
+                + "ORDER BY time_played DESC, hero_id, game_mode_id";
+
+        List<Object> args = new ArrayList<>(2);
+        args.add(playerId);
+        if (mode != null) {
+            args.add(mode.getCode());
+        }
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            int wins = rs.getInt("wins");
+            int losses = rs.getInt("losses");
+            GameMode rowMode = GameMode.fromCode(rs.getShort("game_mode_id"));
+
+            HeroStatsDTO dto = new HeroStatsDTO();
+            dto.setHeroKey(heroRegistry.keyOf(rs.getShort("hero_id")));
+            dto.setGameMode(rowMode != null ? rowMode.getKey() : null);
+            dto.setTotalGamesPlayed(rs.getLong("games_played"));
+            dto.setTotalWins((long) wins);
+            dto.setTotalLosses((long) losses);
+            dto.setWinRate(rs.getDouble("win_rate"));
+            dto.setAvgKda(rs.getDouble("kda"));
+            dto.setTimePlayed(rs.getInt("time_played"));
+            dto.setDamagePer10Min(rs.getDouble("damage_per_10_min"));
+            dto.setHealingPer10Min(rs.getDouble("healing_per_10_min"));
+            return dto;
+        }, args.toArray());
     }
 
     /**
-     * Get top heroes
+     * Get top heroes: the limit most played competitive heroes
      */
     public List<HeroStatsDTO> getTopHeroes(String battletag, String platform, int limit) {
-        List<HeroStatsDTO> allHeroes = getHeroStats(battletag, platform, "competitive");
-        return allHeroes.stream()
-                .limit(limit)
-                .collect(Collectors.toList());
+        return getHeroStats(battletag, platform, GAME_MODE_COMPETITIVE, limit);
     }
 
     /**
-     * Get played heroes map for a player
+     * Played heroes maps of many players, by player id
      */
-    private Map<String, HeroSummaryDTO> getPlayedHeroesMap(String battletag, String platform) {
-        String playerId = getPlayerIdFromBattletag(battletag, platform);
+    private Map<Long, Map<String, HeroSummaryDTO>> getPlayedHeroesMaps(Collection<Long> playerIds) {
+        Map<Long, Map<String, HeroSummaryDTO>> heroesMaps = new HashMap<>();
+        if (playerIds.isEmpty()) {
+            return heroesMaps;
+        }
+
         String sql = """
-            SELECT hero_key, 
+            SELECT player_id,
+                   hero_id, 
                    SUM(wins) as wins,
                    SUM(losses) as losses,
                    SUM(time_played) as time_played,
@@ -225,36 +382,34 @@ public class PlayerService {
                    SUM(deaths) as deaths,
                    SUM(assists) as assists
             FROM hero_stats
-            WHERE player_id = ?
-            GROUP BY hero_key
+            WHERE player_id = ANY(?)
+            GROUP BY player_id, hero_id
         """;
         
-        Map<String, HeroSummaryDTO> heroesMap = new HashMap<>();
-        jdbcTemplate.query(sql, new Object[]{playerId}, rs -> {
-            while (rs.next()) {
-                String heroKey = rs.getString("hero_key");
-                int wins = rs.getInt("wins");
-                int losses = rs.getInt("losses");
-                int timePlayed = rs.getInt("time_played");
-                long eliminations = rs.getLong("eliminations");
-                long deaths = rs.getLong("deaths");
-                long assists = rs.getLong("assists");
-                
-                HeroSummaryDTO summary = new HeroSummaryDTO();
-                summary.setHeroKey(heroKey);
-                summary.setHeroName(formatHeroName(heroKey));
-                summary.setTimePlayed(timePlayed);
-                summary.setGamesPlayed(wins + losses);
-                summary.setWins(wins);
-                summary.setLosses(losses);
-                summary.setWinRate(wins + losses > 0 ? (double) wins / (wins + losses) * 100 : 0);
-                summary.setKda(deaths > 0 ? (double)(eliminations + assists) / deaths : eliminations + assists);
-                
-                heroesMap.put(heroKey, summary);
-            }
-        });
+        jdbcTemplate.query(sql, rs -> {
+            int heroId = rs.getInt("hero_id");
+            String heroKey = heroRegistry.keyOf(heroId);
+            int wins = rs.getInt("wins");
+            int losses = rs.getInt("losses");
+            int timePlayed = rs.getInt("time_played");
+            long eliminations = rs.getLong("eliminations");
+            long deaths = rs.getLong("deaths");
+            long assists = rs.getLong("assists");
+            
+            HeroSummaryDTO summary = new HeroSummaryDTO();
+            summary.setHeroKey(heroKey);
+            summary.setHeroName(heroRegistry.nameOf(heroId));
+            summary.setTimePlayed(timePlayed);
+            summary.setGamesPlayed(wins + losses);
+            summary.setWins(wins);
+            summary.setLosses(losses);
+            summary.setWinRate(wins + losses > 0 ? (double) wins / (wins + losses) * 100 : 0);
+            summary.setKda(deaths > 0 ? (double)(eliminations + assists) / deaths : eliminations + assists);
+            
+            heroesMaps.computeIfAbsent(rs.getLong("player_id"), id -> new HashMap<>()).put(heroKey, summary);
+        }, (Object) playerIds.toArray(Long[]::new));
         
-        return heroesMap;
+        return heroesMaps;
     }
 
     // Helper methods
@@ -270,23 +425,4 @@ public class PlayerService {
         if (sr >= 1500) return "Silver " + (5 - (sr - 1500) / 100);
         return "Bronze " + (5 - (sr - 1000) / 100);
     }
-
-    private String formatHeroName(String heroKey) {
-        if (heroKey == null) return "";
-
-        Map<String, String> specialNames = Map.of(
-                "dva", "D.Va",
-                "junker-queen", "Junker Queen",
-                "soldier-76", "Soldier: 76",
-                "wrecking-ball", "Wrecking Ball"
-        );
-
-        if (specialNames.containsKey(heroKey)) {
-            return specialNames.get(heroKey);
-        }
-
-        return Arrays.stream(heroKey.split("-"))
-                .map(word -> word.substring(0, 1).toUpperCase() + word.substring(1))
-                .collect(Collectors.joining(" "));
-    }
-}
\ No newline at end of file
+}
@@ -1,46 +1,62 @@
 package com.owmetagg.services;
 
-import com.owmetagg.dtos.PlayerDTO;
+import com.owmetagg.dtos.PlayerIngestMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
-import static com.owmetagg.utils.Constants.TIMESTAMP_HEADER;
-
 @Slf4j
 @Service
 public class RabbitService {
 
     private final PlayerProcessingService playerProcessingService;
+    private final IngestDiagnostics ingestDiagnostics;
+    private final PlayerRefreshDeduplicator refreshDeduplicator;
 
-    public RabbitService(PlayerProcessingService playerProcessingService) {
+    public RabbitService(PlayerProcessingService playerProcessingService, IngestDiagnostics ingestDiagnostics,
+                         PlayerRefreshDeduplicator refreshDeduplicator) {
         this.playerProcessingService = playerProcessingService;
+        this.ingestDiagnostics = ingestDiagnostics;
+        this.refreshDeduplicator = refreshDeduplicator;
     }
 
     @RabbitListener(
             queues = "#{rabbitMQConfig.playerDataQueue}",
             containerFactory = "rabbitListenerContainerFactory"
     )
-    public void receivePlayerData(
-            PlayerDTO playerMessage,
-            @Header(TIMESTAMP_HEADER) String timestamp) {
+    public void receivePlayerData(PlayerIngestMessage playerMessage) {
+
+        log.debug("Received player data from RabbitMQ: {}, fetched at: {}",
+                playerMessage.getBattletag(), playerMessage.getFetchedAt());
 
-        log.info("Received player data from RabbitMQ: {}, timestamp: {}",
-                playerMessage.getBattletag(), timestamp);
+        // Redelivered, stale or too-soon copies are acked without touching the database
+        if (!refreshDeduplicator.tryAcquire(PlayerRefreshDeduplicator.Stage.WRITE,
+                playerMessage.getBattletag(), playerMessage.getPlatform(), playerMessage.getFetchedAt())) {
+            return;
+        }
 
         long start = System.currentTimeMillis();
 
+        boolean written = false;
         try {
             playerProcessingService.processPlayerDataAsync(playerMessage);
+            written = true;
         } catch (Exception e) {
             log.error("Failed to process player data for: {}", playerMessage.getBattletag(), e);
+            ingestDiagnostics.capture(playerMessage, "failed: " + e);
             throw new RuntimeException("Failed to process player data", e);
+        } finally {
+            refreshDeduplicator.finish(PlayerRefreshDeduplicator.Stage.WRITE,
+                    playerMessage.getBattletag(), playerMessage.getPlatform(), playerMessage.getFetchedAt(), written);
         }
 
-        log.info("Total operation time: {} ms", System.currentTimeMillis() - start);
+        long elapsed = System.currentTimeMillis() - start;
+        ingestDiagnostics.sample(log, IngestDiagnostics.Stage.RECEIVE, playerMessage.getBattletag())
+                .addKeyValue("fetchedAt", playerMessage.getFetchedAt())
+                .addKeyValue("elapsedMs", elapsed)
+                .log("📥 Processed player data from RabbitMQ: {} in {} ms", playerMessage.getBattletag(), elapsed);
     }
 
     // For future batch processing (like your List<Battle> pattern)
@@ -50,10 +66,9 @@ public class RabbitService {
             containerFactory = "rabbitListenerContainerFactory"
     )
     public void receivePlayerBatch(
-            List<PlayerDTO> players,
-            @Header(TIMESTAMP_HEADER) String timestamp) {
+            List<PlayerIngestMessage> players) {
 
-        log.info("Received {} players from RabbitMQ, timestamp: {}", players.size(), timestamp);
+        log.info("Received {} players from RabbitMQ", players.size());
 
         long start = System.currentTimeMillis();
 
@@ -67,4 +82,4 @@ public class RabbitService {
         log.info("Total operation time: {} ms", System.currentTimeMillis() - start);
     }
     */
-}
\ No newline at end of file
+}
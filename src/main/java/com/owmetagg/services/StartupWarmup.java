@@ -0,0 +1,102 @@
+package com.owmetagg.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Readiness phase: work that used to run during startup and is not needed to accept
+ * connections runs here, on a background thread once the application has started.
+ *
+ * Steps: load the hero registry, backfill hero pick sketches on the first start after V11,
+ * and fill the statistics caches for the default requests of each configured game mode.
+ * Until every step has run this is OUT_OF_SERVICE, and it is part of the readiness group
+ * (/actuator/health/readiness), so traffic is only routed once the caches are warm.
+ * A failed step is reported in the details but does not hold readiness back.
+ */
+@Slf4j
+@Component
+public class StartupWarmup implements HealthIndicator {
+
+    private final HeroRegistry heroRegistry;
+    private final HeroPickSketchService heroPickSketchService;
+    private final StatisticsService statisticsService;
+
+    @Value("${app.warmup.statistics.game-modes:competitive,quickplay}")
+    private List<String> statisticsGameModes;
+
+    @Value("${app.warmup.statistics.top-heroes-limit:10}")
+    private int topHeroesLimit;
+
+    private final Map<String, String> steps = new LinkedHashMap<>();
+    private volatile boolean finished;
+    private volatile long durationMs;
+
+    public StartupWarmup(HeroRegistry heroRegistry,
+                         HeroPickSketchService heroPickSketchService,
+                         StatisticsService statisticsService) {
+        this.heroRegistry = heroRegistry;
+        this.heroPickSketchService = heroPickSketchService;
+        this.statisticsService = statisticsService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread warmup = new Thread(this::run, "startup-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
+
+    private void run() {
+        log.info("🔥 Warming up before accepting traffic...");
+        long startTime = System.currentTimeMillis();
+
+        step("heroRegistry", heroRegistry::reload);
+        step("heroPickSketches", heroPickSketchService::backfillIfEmpty);
+        for (String gameMode : statisticsGameModes) {
+            step("statistics." + gameMode, () -> {
+                statisticsService.getTopHeroes(gameMode, "pickrate", topHeroesLimit);
+                statisticsService.getHeroPickRates(gameMode);
+                statisticsService.getRoleStatistics(gameMode);
+                statisticsService.getMetaReport(gameMode, null);
+            });
+        }
+
+        durationMs = System.currentTimeMillis() - startTime;
+        finished = true;
+        log.info("✅ Warmup completed in {} ms, ready for traffic", durationMs);
+    }
+
+    private void step(String name, Runnable step) {
+        long startTime = System.currentTimeMillis();
+        try {
+            step.run();
+            record(name, (System.currentTimeMillis() - startTime) + " ms");
+        } catch (Exception e) {
+            log.error("❌ Warmup step {} failed", name, e);
+            record(name, "failed: " + e.getMessage());
+        }
+    }
+
+    private void record(String name, String result) {
+        synchronized (steps) {
+            steps.put(name, result);
+        }
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health = finished ? Health.up().withDetail("durationMs", durationMs) : Health.outOfService();
+        synchronized (steps) {
+            return health.withDetail("steps", new LinkedHashMap<>(steps)).build();
+        }
+    }
+}
@@ -1,164 +1,378 @@
 package com.owmetagg.services;
 
 import com.owmetagg.events.PlayerDataProcessedEvent;
+import com.owmetagg.models.DistinctCountMode;
+import com.owmetagg.models.RankCategory;
+import com.owmetagg.utils.HyperLogLog;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.event.EventListener;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.owmetagg.services.HeroPickSketchService.*;
 
 @Slf4j
 @Service
 public class StatisticsCalculationService {
 
     private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+    private final HeroRegistry heroRegistry;
+    private final HeroPickSketchService heroPickSketchService;
+    private final DistinctCountMode distinctCountMode;
     
     // Minimum games threshold for statistics (lowered for testing)
     private static final int MIN_GAMES_FOR_STATS = 1;
     
-    public StatisticsCalculationService(JdbcTemplate jdbcTemplate) {
+    // Days of activity behind each hero_trends snapshot
+    private static final int TREND_WINDOW_DAYS = 7;
+    
+    // Materialized views refreshed by this service (see V7 migration)
+    public static final String HERO_STATISTICS_VIEW = "hero_statistics";
+    public static final String BRACKETED_HERO_STATISTICS_VIEW = "hero_statistics_bracketed";
+    
+    // Caches serving data derived from the views and statistics tables, cleared once a
+    // recalculation has finished
+    private static final List<String> STATISTICS_CACHES = List.of(
+            "heroStatistics", "bracketedHeroStatistics", "heroWinRates", "heroPickRates", "metaReport",
+            "rankDistribution", "heroTrends", "allHeroTrends", "roleStatistics");
+    
+    // Last refresh per view, exposed through /api/statistics/refresh-status
+    private final Map<String, Map<String, Object>> lastRefreshes = new ConcurrentHashMap<>();
+    
+    // Bumped once the caches are cleared after a recalculation; keys StatisticsResponseCache entries
+    private final AtomicLong generation = new AtomicLong();
+    
+    // Last statistics_refreshes.generation seen (V15), -1 before the first poll
+    private final AtomicLong sharedGeneration = new AtomicLong(-1);
+    
+    public StatisticsCalculationService(
+            @Qualifier("statisticsJdbcTemplate") JdbcTemplate jdbcTemplate,
+            CacheManager cacheManager,
+            MeterRegistry meterRegistry,
+            HeroRegistry heroRegistry,
+            HeroPickSketchService heroPickSketchService,
+            @Value("${statistics.distinct-count.mode:sketch}") DistinctCountMode distinctCountMode) {
         this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+        this.meterRegistry = meterRegistry;
+        this.heroRegistry = heroRegistry;
+        this.heroPickSketchService = heroPickSketchService;
+        this.distinctCountMode = distinctCountMode;
     }
     
-    @Async
+    // Distinct-player count for one hero (ANY_HERO = any), game mode, platform and bracket
+    private record PickCountKey(short heroId, short gameModeId, short platformId, String srBracket) {
+    }
+    
+    @Async("statisticsExecutor")
     @EventListener
     public void handlePlayerDataProcessedEvent(PlayerDataProcessedEvent event) {
         log.info("📊 Statistics calculation triggered by player update: {}", event.getBattletag());
         
         try {
             // Calculate all statistics in parallel
+            calculatePickCounts();
             calculateHeroStatistics();
+            calculateBracketedHeroStatistics();
             calculateRankDistribution();
             calculateHeroTrends();
             
             log.info("✅ Statistics calculation completed successfully");
         } catch (Exception e) {
             log.error("❌ Failed to calculate statistics", e);
+        } finally {
+            // Steps that did finish may have changed what the caches hold
+            publishRefresh();
         }
     }
     
-    @Transactional
-    public void calculateHeroStatistics() {
-        log.info("🎮 Calculating hero statistics...");
+    /**
+     * Distinct players per hero, game mode, platform and bracket (plus rollups) into
+     * hero_pick_counts, where both views read pick_count and pick-rate denominators.
+     * Run before refreshing the views.
+     */
+    public void calculatePickCounts() {
+        log.info("🧮 Calculating pick counts ({})...", distinctCountMode);
         long startTime = System.currentTimeMillis();
         
-        // Calculate aggregate hero stats across all players
+        Map<PickCountKey, Long> counts = distinctCounts("hero_pick_counts",
+                () -> heroPickSketchService.loadAllTime().countBy(key -> List.of(
+                        new PickCountKey(key.heroId(), key.gameModeId(), key.platformId(), key.srBracket()),
+                        new PickCountKey(key.heroId(), key.gameModeId(), ALL_PLATFORMS, key.srBracket()),
+                        new PickCountKey(key.heroId(), key.gameModeId(), key.platformId(), ALL_BRACKETS),
+                        new PickCountKey(key.heroId(), key.gameModeId(), ALL_PLATFORMS, ALL_BRACKETS))),
+                this::countPickCountsExactly);
+        
+        if (counts.isEmpty()) {
+            log.warn("⚠️ No pick counts calculated, keeping the previous ones");
+            return;
+        }
+        
+        Timestamp calculatedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<PickCountKey, Long>> rows = new ArrayList<>(counts.entrySet());
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO hero_pick_counts (game_mode_id, platform_id, sr_bracket, hero_id, pick_count, calculated_at)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT (game_mode_id, platform_id, sr_bracket, hero_id) DO UPDATE SET
+                    pick_count = EXCLUDED.pick_count,
+                    calculated_at = EXCLUDED.calculated_at
+                """, rows, 1000, (ps, row) -> {
+                    PickCountKey key = row.getKey();
+                    ps.setShort(1, key.gameModeId());
+                    ps.setShort(2, key.platformId());
+                    ps.setString(3, key.srBracket());
+                    ps.setShort(4, key.heroId());
+                    ps.setInt(5, row.getValue().intValue());
+                    ps.setTimestamp(6, calculatedAt);
+                });
+        
+        // Combinations nobody has played since
+        jdbcTemplate.update("DELETE FROM hero_pick_counts WHERE calculated_at < ?", calculatedAt);
+        
+        log.info("⚡ Pick counts calculation completed in {} ms. Updated {} counts",
+                System.currentTimeMillis() - startTime, rows.size());
+    }
+    
+    private Map<PickCountKey, Long> countPickCountsExactly() {
         String sql = """
-            INSERT INTO hero_statistics (
-                hero_key, 
-                game_mode,
-                total_games_played, 
-                total_wins, 
-                total_losses,
-                pick_count,
-                pick_rate,
-                win_rate,
-                avg_eliminations,
-                avg_deaths,
-                avg_assists,
-                avg_kda,
-                last_calculated
+            WITH bracketed AS (
+                SELECT 
+                    hs.player_id,
+                    hs.hero_id,
+                    hs.game_mode_id,
+                    hs.platform_id,
+                    sr_bracket_of(p.skill_rating) as sr_bracket
+                FROM hero_stats hs
+                JOIN players p ON p.player_id = hs.player_id
+                WHERE hs.time_played > 0
             )
             SELECT 
-                hero_key,
-                game_mode,
-                SUM(COALESCE(wins, 0) + COALESCE(losses, 0) + COALESCE(draws, 0)) as total_games_played,
-                SUM(COALESCE(wins, 0)) as total_wins,
-                SUM(COALESCE(losses, 0)) as total_losses,
-                COUNT(DISTINCT player_id) as pick_count,
-                CAST(COUNT(DISTINCT player_id) AS FLOAT) / 
-                    NULLIF((SELECT COUNT(DISTINCT player_id) FROM players), 0) * 100 as pick_rate,
-                CASE 
-                    WHEN SUM(COALESCE(wins, 0) + COALESCE(losses, 0)) > 0 
-                    THEN CAST(SUM(COALESCE(wins, 0)) AS FLOAT) / SUM(COALESCE(wins, 0) + COALESCE(losses, 0)) * 100
-                    ELSE 0 
-                END as win_rate,
-                AVG(CASE WHEN time_played > 0 THEN eliminations::float / (time_played / 60.0) ELSE 0 END) as avg_eliminations,
-                AVG(CASE WHEN time_played > 0 THEN deaths::float / (time_played / 60.0) ELSE 0 END) as avg_deaths,
-                AVG(CASE WHEN time_played > 0 THEN assists::float / (time_played / 60.0) ELSE 0 END) as avg_assists,
-                AVG(
-                    CASE 
-                        WHEN deaths > 0 THEN (eliminations + assists)::float / deaths
-                        WHEN eliminations + assists > 0 THEN (eliminations + assists)::float
-                        ELSE 0 
-                    END
-                ) as avg_kda,
-                NOW() as last_calculated
-            FROM hero_stats hs
-            WHERE time_played >= 0
-            GROUP BY hero_key, game_mode
-            HAVING SUM(COALESCE(wins, 0) + COALESCE(losses, 0) + COALESCE(draws, 0)) >= 0
-            ON CONFLICT (hero_key, game_mode) DO UPDATE SET
-                total_games_played = EXCLUDED.total_games_played,
-                total_wins = EXCLUDED.total_wins,
-                total_losses = EXCLUDED.total_losses,
-                pick_count = EXCLUDED.pick_count,
-                pick_rate = EXCLUDED.pick_rate,
-                win_rate = EXCLUDED.win_rate,
-                avg_eliminations = EXCLUDED.avg_eliminations,
-                avg_deaths = EXCLUDED.avg_deaths,
-                avg_assists = EXCLUDED.avg_assists,
-                avg_kda = EXCLUDED.avg_kda,
-                last_calculated = EXCLUDED.last_calculated
-            """;
+                COALESCE(hero_id, %d) as hero_id,
+                game_mode_id,
+                COALESCE(platform_id, %d) as platform_id,
+                COALESCE(sr_bracket, '%s') as sr_bracket,
+                COUNT(DISTINCT player_id) as pick_count
+            FROM bracketed
+            GROUP BY game_mode_id, CUBE(hero_id, platform_id, sr_bracket)
+            """.formatted(
+                ANY_HERO, ALL_PLATFORMS, ALL_BRACKETS);
         
-        int updated = jdbcTemplate.update(sql);
+        Map<PickCountKey, Long> counts = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counts.put(new PickCountKey(rs.getShort("hero_id"), rs.getShort("game_mode_id"),
+                    rs.getShort("platform_id"), rs.getString("sr_bracket")), rs.getLong("pick_count"));
+        });
+        return counts;
+    }
+    
+    /**
+     * Distinct-player counts from the sketches or from hero_stats, per statistics.distinct-count.mode.
+     * VERIFY computes both, returns the exact counts and reports how far the sketches were off.
+     */
+    private <K> Map<K, Long> distinctCounts(String aggregate, Supplier<Map<K, Long>> fromSketches,
+                                            Supplier<Map<K, Long>> exact) {
+        return switch (distinctCountMode) {
+            case SKETCH -> {
+                heroPickSketchService.flush();
+                yield fromSketches.get();
+            }
+            case EXACT -> exact.get();
+            case VERIFY -> {
+                heroPickSketchService.flush();
+                Map<K, Long> estimated = fromSketches.get();
+                Map<K, Long> counted = exact.get();
+                recordSketchError(aggregate, estimated, counted);
+                yield counted;
+            }
+        };
+    }
+    
+    private <K> void recordSketchError(String aggregate, Map<K, Long> estimated, Map<K, Long> counted) {
+        DistributionSummary errors = DistributionSummary.builder("statistics.distinct_count.relative_error")
+                .description("Relative error of sketch estimates against exact distinct counts")
+                .baseUnit("percent")
+                .tag("aggregate", aggregate)
+                .register(meterRegistry);
         
-        log.info("⚡ Hero statistics calculation completed in {} ms. Updated {} hero entries",
-                System.currentTimeMillis() - startTime, updated);
+        // 3 standard errors: an estimate is outside this about 0.3% of the time
+        double bound = 3 * new HyperLogLog().relativeStandardError();
+        double worst = 0;
+        int outside = 0;
+        for (Map.Entry<K, Long> entry : counted.entrySet()) {
+            long actual = entry.getValue();
+            if (actual == 0) continue;
+            
+            double error = Math.abs(estimated.getOrDefault(entry.getKey(), 0L) - actual) / (double) actual;
+            errors.record(error * 100);
+            worst = Math.max(worst, error);
+            if (error > bound) outside++;
+        }
+        
+        log.info("🔍 Sketch check {}: {} counts, worst error {}%, {} outside ±{}%", aggregate, counted.size(),
+                String.format("%.2f", worst * 100), outside, String.format("%.1f", bound * 100));
+    }
+    
+    public void calculateHeroStatistics() {
+        log.info("🎮 Calculating hero statistics...");
+        refreshMaterializedView(HERO_STATISTICS_VIEW);
+    }
+    
+    public void calculateBracketedHeroStatistics() {
+        log.info("🎯 Calculating SR-bracketed hero statistics...");
+        refreshMaterializedView(BRACKETED_HERO_STATISTICS_VIEW);
     }
     
-    @Transactional
+    /**
+     * Rebuild a statistics view without blocking readers. CONCURRENTLY diffs the new result
+     * against the old contents (hence the unique index on each view), so queries keep seeing
+     * the previous snapshot until the refresh commits. Runs outside @Transactional on purpose:
+     * no row locks are held on the view while it is rebuilt.
+     */
+    private void refreshMaterializedView(String viewName) {
+        long startTime = System.currentTimeMillis();
+        
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            jdbcTemplate.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY " + viewName);
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            throw e;
+        } finally {
+            long durationMs = System.currentTimeMillis() - startTime;
+            sample.stop(meterRegistry.timer("statistics.view.refresh", "view", viewName, "outcome", outcome));
+            
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("view", viewName);
+            status.put("outcome", outcome);
+            status.put("durationMs", durationMs);
+            status.put("refreshedAt", LocalDateTime.now());
+            lastRefreshes.put(viewName, status);
+        }
+        
+        log.info("⚡ Refreshed {} in {} ms", viewName, System.currentTimeMillis() - startTime);
+    }
+    
+    /**
+     * New statistics are in: drop this instance's cached ones and bump statistics_refreshes,
+     * so the other instances drop theirs on their next poll. Call once at the end of a
+     * recalculation, so no response is cached under the new generation from a half-done one.
+     */
+    public void publishRefresh() {
+        invalidateCaches();
+        try {
+            Long shared = jdbcTemplate.queryForObject(
+                    "UPDATE statistics_refreshes SET generation = generation + 1, refreshed_at = NOW() RETURNING generation",
+                    Long.class);
+            if (shared != null) {
+                sharedGeneration.set(shared);
+            }
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Could not record the statistics refresh for other instances: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Refreshes made by other instances. API-only instances never get PlayerDataProcessedEvent,
+     * so this is how their caches and generation follow the views.
+     */
+    @Scheduled(fixedDelayString = "${statistics.refresh-poll-interval-ms:10000}")
+    public void pollSharedRefresh() {
+        Long shared;
+        try {
+            shared = jdbcTemplate.queryForObject("SELECT generation FROM statistics_refreshes", Long.class);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Could not check for statistics refreshes: {}", e.getMessage());
+            return;
+        }
+        if (shared == null) {
+            return;
+        }
+        
+        long seen = sharedGeneration.getAndSet(shared);
+        if (seen != shared) {
+            log.debug("Statistics refreshed elsewhere (generation {} -> {}), clearing caches", seen, shared);
+            invalidateCaches();
+        }
+    }
+    
+    private void invalidateCaches() {
+        STATISTICS_CACHES.forEach(name -> {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) cache.clear();
+        });
+        generation.incrementAndGet();
+    }
+    
+    public Collection<Map<String, Object>> getRefreshStatus() {
+        return lastRefreshes.values();
+    }
+    
+    public long getGeneration() {
+        return generation.get();
+    }
+    
+    @Transactional("statisticsTransactionManager")
     public void calculateRankDistribution() {
         log.info("🏆 Calculating rank distribution...");
         long startTime = System.currentTimeMillis();
         
-        // Calculate distribution across SR brackets
+        // Calculate distribution across SR brackets for the overall rating and every role
+        // in one pass: each player is unpivoted into (role, rating) pairs and bucketed by
+        // RankCategory, percentages come from a per-role window over the grouped counts
         String sql = """
             INSERT INTO rank_distribution (
                 sr_bracket,
                 bracket_name,
+                role,
                 player_count,
                 percentage,
                 snapshot_date
             )
             SELECT 
-                CASE 
-                    WHEN skill_rating < 1500 THEN 1000
-                    WHEN skill_rating < 2000 THEN 1500
-                    WHEN skill_rating < 2500 THEN 2000
-                    WHEN skill_rating < 3000 THEN 2500
-                    WHEN skill_rating < 3500 THEN 3000
-                    WHEN skill_rating < 4000 THEN 3500
-                    WHEN skill_rating < 4500 THEN 4000
-                    ELSE 4500
-                END as sr_bracket,
-                CASE 
-                    WHEN skill_rating < 1500 THEN 'Bronze'
-                    WHEN skill_rating < 2000 THEN 'Silver'
-                    WHEN skill_rating < 2500 THEN 'Gold'
-                    WHEN skill_rating < 3000 THEN 'Platinum'
-                    WHEN skill_rating < 3500 THEN 'Diamond'
-                    WHEN skill_rating < 4000 THEN 'Master'
-                    WHEN skill_rating < 4500 THEN 'Grandmaster'
-                    ELSE 'Champion'
-                END as bracket_name,
+                %s as sr_bracket,
+                %s as bracket_name,
+                r.role,
                 COUNT(*) as player_count,
-                CAST(COUNT(*) AS FLOAT) / (SELECT COUNT(*) FROM players WHERE skill_rating IS NOT NULL) * 100 as percentage,
+                CAST(COUNT(*) AS FLOAT) / SUM(COUNT(*)) OVER (PARTITION BY r.role) * 100 as percentage,
                 CURRENT_DATE as snapshot_date
-            FROM players
-            WHERE skill_rating IS NOT NULL
-            GROUP BY sr_bracket, bracket_name
-            ON CONFLICT (sr_bracket, snapshot_date) DO UPDATE SET
+            FROM players p
+            CROSS JOIN LATERAL (VALUES
+                ('all', p.skill_rating),
+                ('tank', p.tank_rating::int),
+                ('damage', p.damage_rating::int),
+                ('support', p.support_rating::int),
+                ('open', p.open_rating::int)
+            ) AS r(role, rating)
+            WHERE r.rating IS NOT NULL
+            GROUP BY sr_bracket, bracket_name, r.role
+            ON CONFLICT (sr_bracket, snapshot_date, role) DO UPDATE SET
                 bracket_name = EXCLUDED.bracket_name,
                 player_count = EXCLUDED.player_count,
                 percentage = EXCLUDED.percentage
-            """;
+            """.formatted(
+                RankCategory.toSqlCase("r.rating", RankCategory::floorLiteral),
+                RankCategory.toSqlCase("r.rating", RankCategory::categoryLiteral));
         
         int updated = jdbcTemplate.update(sql);
         
@@ -166,11 +380,22 @@ public class StatisticsCalculationService {
                 System.currentTimeMillis() - startTime, updated);
     }
     
-    @Transactional
+    @Transactional("statisticsTransactionManager")
     public void calculateHeroTrends() {
         log.info("📈 Calculating hero trends...");
         long startTime = System.currentTimeMillis();
         
+        // Players per hero (and per mode, ANY_HERO) active in the trend window
+        Map<PickCountKey, Long> pickCounts = distinctCounts("hero_trends",
+                () -> heroPickSketchService.loadDays(LocalDate.now().minusDays(TREND_WINDOW_DAYS)).countBy(key ->
+                        List.of(new PickCountKey(key.heroId(), key.gameModeId(), ALL_PLATFORMS, ALL_BRACKETS))),
+                this::countRecentPickCountsExactly);
+        
+        List<PickCountKey> keys = new ArrayList<>(pickCounts.keySet());
+        Short[] heroIds = keys.stream().map(PickCountKey::heroId).toArray(Short[]::new);
+        Short[] gameModeIds = keys.stream().map(PickCountKey::gameModeId).toArray(Short[]::new);
+        Long[] counts = keys.stream().map(pickCounts::get).toArray(Long[]::new);
+        
         // Store daily snapshot of hero performance
         String sql = """
             INSERT INTO hero_trends (
@@ -182,51 +407,88 @@ public class StatisticsCalculationService {
                 games_played,
                 avg_kda
             )
-            SELECT 
-                hero_key,
-                CURRENT_DATE as trend_date,
-                game_mode,
-                CAST(COUNT(DISTINCT player_id) AS FLOAT) / 
-                    (SELECT COUNT(DISTINCT player_id) FROM hero_stats WHERE game_mode = hs.game_mode) * 100 as pick_rate,
-                CASE 
-                    WHEN SUM(COALESCE(wins, 0) + COALESCE(losses, 0)) > 0 
-                    THEN CAST(SUM(COALESCE(wins, 0)) AS FLOAT) / SUM(COALESCE(wins, 0) + COALESCE(losses, 0)) * 100
-                    ELSE 0 
-                END as win_rate,
-                SUM(COALESCE(wins, 0) + COALESCE(losses, 0) + COALESCE(draws, 0)) as games_played,
-                AVG(
+            WITH per_hero AS (
+                SELECT 
+                    hero_id,
+                    game_mode_id,
                     CASE 
-                        WHEN deaths > 0 THEN (eliminations + assists)::float / deaths
-                        WHEN eliminations + assists > 0 THEN (eliminations + assists)::float
+                        WHEN SUM(COALESCE(wins, 0) + COALESCE(losses, 0)) > 0 
+                        THEN CAST(SUM(COALESCE(wins, 0)) AS FLOAT) / SUM(COALESCE(wins, 0) + COALESCE(losses, 0)) * 100
                         ELSE 0 
-                    END
-                ) as avg_kda
-            FROM hero_stats hs
-            WHERE time_played > 0
-                AND last_played >= CURRENT_DATE - INTERVAL '7 days'
-            GROUP BY hero_key, game_mode
-            HAVING SUM(COALESCE(wins, 0) + COALESCE(losses, 0) + COALESCE(draws, 0)) >= 0
+                    END as win_rate,
+                    SUM(COALESCE(wins, 0) + COALESCE(losses, 0) + COALESCE(draws, 0)) as games_played,
+                    AVG(
+                        CASE 
+                            WHEN deaths > 0 THEN (eliminations + assists)::float / deaths
+                            WHEN eliminations + assists > 0 THEN (eliminations + assists)::float
+                            ELSE 0 
+                        END
+                    ) as avg_kda
+                FROM hero_stats hs
+                WHERE time_played > 0
+                    AND last_played >= CURRENT_DATE - INTERVAL '%d days'
+                GROUP BY hero_id, game_mode_id
+                HAVING SUM(COALESCE(wins, 0) + COALESCE(losses, 0) + COALESCE(draws, 0)) >= 0
+            ),
+            -- Distinct-player counts computed above, bound as arrays
+            pick_counts AS (
+                SELECT * FROM unnest(?::smallint[], ?::smallint[], ?::bigint[])
+                    AS pc(hero_id, game_mode_id, pick_count)
+            )
+            -- Aggregate on the SMALLINT codes, decode only the result rows
+            SELECT 
+                h.hero_key,
+                CURRENT_DATE as trend_date,
+                gm.game_mode,
+                LEAST(CAST(COALESCE(pc.pick_count, 0) AS FLOAT) / NULLIF(mode_players.pick_count, 0) * 100, 100) as pick_rate,
+                ph.win_rate,
+                ph.games_played,
+                ph.avg_kda
+            FROM per_hero ph
+            JOIN heroes h ON h.hero_id = ph.hero_id
+            JOIN game_modes gm ON gm.game_mode_id = ph.game_mode_id
+            LEFT JOIN pick_counts pc
+                ON pc.hero_id = ph.hero_id AND pc.game_mode_id = ph.game_mode_id
+            LEFT JOIN pick_counts mode_players
+                ON mode_players.hero_id = %d AND mode_players.game_mode_id = ph.game_mode_id
             ON CONFLICT (hero_key, trend_date, game_mode) DO UPDATE SET
                 pick_rate = EXCLUDED.pick_rate,
                 win_rate = EXCLUDED.win_rate,
                 games_played = EXCLUDED.games_played,
                 avg_kda = EXCLUDED.avg_kda
-            """;
+            """.formatted(TREND_WINDOW_DAYS, ANY_HERO);
         
-        int updated = jdbcTemplate.update(sql);
+        int updated = jdbcTemplate.update(sql, heroIds, gameModeIds, counts);
         
         log.info("⚡ Hero trends calculation completed in {} ms. Updated {} trend entries",
                 System.currentTimeMillis() - startTime, updated);
     }
     
-    @Transactional
+    private Map<PickCountKey, Long> countRecentPickCountsExactly() {
+        String sql = """
+            SELECT 
+                COALESCE(hero_id, %d) as hero_id,
+                game_mode_id,
+                COUNT(DISTINCT player_id) as pick_count
+            FROM hero_stats
+            WHERE time_played > 0
+                AND last_played >= CURRENT_DATE - INTERVAL '%d days'
+            GROUP BY game_mode_id, ROLLUP(hero_id)
+            """.formatted(ANY_HERO, TREND_WINDOW_DAYS);
+        
+        Map<PickCountKey, Long> counts = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counts.put(new PickCountKey(rs.getShort("hero_id"), rs.getShort("game_mode_id"),
+                    ALL_PLATFORMS, ALL_BRACKETS), rs.getLong("pick_count"));
+        });
+        return counts;
+    }
+    
+    @Transactional("statisticsTransactionManager")
     public void calculateRoleStatistics() {
         log.info("🛡️ Calculating role-based statistics...");
         long startTime = System.currentTimeMillis();
         
-        // Map heroes to roles
-        Map<String, String> heroRoles = getHeroRoleMapping();
-        
         // Calculate stats per role
         String sql = """
             INSERT INTO role_statistics (
@@ -240,7 +502,7 @@ public class StatisticsCalculationService {
             )
             SELECT 
                 ? as role,
-                game_mode,
+                gm.game_mode,
                 AVG(
                     CASE 
                         WHEN (wins + losses) > 0 
@@ -248,8 +510,7 @@ public class StatisticsCalculationService {
                         ELSE 0 
                     END
                 ) as avg_win_rate,
-                CAST(COUNT(DISTINCT player_id) AS FLOAT) / 
-                    (SELECT COUNT(DISTINCT player_id) FROM hero_stats WHERE game_mode = hs.game_mode) * 100 as avg_pick_rate,
+                LEAST(CAST(COALESCE(pc.role_players, 0) AS FLOAT) / NULLIF(pc.mode_players, 0) * 100, 100) as avg_pick_rate,
                 AVG(
                     CASE 
                         WHEN deaths > 0 THEN (eliminations + assists)::float / deaths
@@ -257,12 +518,15 @@ public class StatisticsCalculationService {
                         ELSE 0 
                     END
                 ) as avg_kda,
-                COUNT(DISTINCT player_id) as total_players,
+                COALESCE(pc.role_players, 0) as total_players,
                 NOW() as last_calculated
             FROM hero_stats hs
-            WHERE hero_key = ANY(?)
+            JOIN game_modes gm ON gm.game_mode_id = hs.game_mode_id
+            LEFT JOIN unnest(?::smallint[], ?::bigint[], ?::bigint[]) AS pc(game_mode_id, role_players, mode_players)
+                ON pc.game_mode_id = hs.game_mode_id
+            WHERE hs.hero_id = ANY(?)
                 AND time_played > 0
-            GROUP BY game_mode
+            GROUP BY hs.game_mode_id, gm.game_mode, pc.role_players, pc.mode_players
             ON CONFLICT (role, game_mode) DO UPDATE SET
                 avg_win_rate = EXCLUDED.avg_win_rate,
                 avg_pick_rate = EXCLUDED.avg_pick_rate,
@@ -271,40 +535,50 @@ public class StatisticsCalculationService {
                 last_calculated = EXCLUDED.last_calculated
             """;
         
+        // All-time sketches are loaded once and shared by every role
+        HeroPickSketchService.Sketches[] allTime = new HeroPickSketchService.Sketches[1];
+        Supplier<HeroPickSketchService.Sketches> sketches = () -> allTime[0] != null
+                ? allTime[0] : (allTime[0] = heroPickSketchService.loadAllTime());
+        
+        Map<Short, Long> modePlayers = distinctCounts("mode_players",
+                () -> sketches.get().countBy(key -> key.heroId() == ANY_HERO ? List.of(key.gameModeId()) : List.of()),
+                () -> countPlayersPerModeExactly(null));
+        
         // Calculate for each role
-        for (Map.Entry<String, String> roleEntry : getRoleHeroGroups().entrySet()) {
-            String role = roleEntry.getKey();
-            String[] heroes = roleEntry.getValue().split(",");
-            jdbcTemplate.update(sql, role, heroes);
+        for (Map.Entry<String, Short[]> roleEntry : heroRegistry.heroIdsByRole().entrySet()) {
+            Short[] roleHeroIds = roleEntry.getValue();
+            Set<Short> roleHeroes = Set.of(roleHeroIds);
+            Map<Short, Long> rolePlayers = distinctCounts("role_players",
+                    () -> sketches.get().countBy(key ->
+                            roleHeroes.contains(key.heroId()) ? List.of(key.gameModeId()) : List.of()),
+                    () -> countPlayersPerModeExactly(roleHeroIds));
+            
+            Short[] gameModeIds = modePlayers.keySet().toArray(Short[]::new);
+            Long[] rolePlayerCounts = Arrays.stream(gameModeIds).map(id -> rolePlayers.getOrDefault(id, 0L)).toArray(Long[]::new);
+            Long[] modePlayerCounts = Arrays.stream(gameModeIds).map(modePlayers::get).toArray(Long[]::new);
+            
+            jdbcTemplate.update(sql, roleEntry.getKey(), gameModeIds, rolePlayerCounts, modePlayerCounts, roleHeroIds);
         }
         
         log.info("⚡ Role statistics calculation completed in {} ms",
                 System.currentTimeMillis() - startTime);
     }
     
-    private Map<String, String> getHeroRoleMapping() {
-        Map<String, String> heroRoles = new HashMap<>();
-        
-        // Tanks
-        String[] tanks = {"dva", "doomfist", "junker-queen", "mauga", "orisa", "ramattra", "reinhardt", "roadhog", "sigma", "winston", "wrecking-ball", "zarya"};
-        for (String hero : tanks) heroRoles.put(hero, "tank");
-        
-        // Damage
-        String[] damage = {"ashe", "bastion", "cassidy", "echo", "genji", "hanzo", "junkrat", "mei", "pharah", "reaper", "sojourn", "soldier-76", "sombra", "symmetra", "torbjorn", "tracer", "venture", "widowmaker"};
-        for (String hero : damage) heroRoles.put(hero, "damage");
+    /**
+     * Distinct players per game mode, of the given heroes only or (null) of any hero. Only rows
+     * with playtime count, as in the sketches (ingest records no others).
+     */
+    private Map<Short, Long> countPlayersPerModeExactly(Short[] heroIds) {
+        String sql = heroIds == null
+                ? "SELECT game_mode_id, COUNT(DISTINCT player_id) as players FROM hero_stats " +
+                        "WHERE time_played > 0 GROUP BY game_mode_id"
+                : "SELECT game_mode_id, COUNT(DISTINCT player_id) as players FROM hero_stats " +
+                        "WHERE hero_id = ANY(?) AND time_played > 0 GROUP BY game_mode_id";
         
-        // Support
-        String[] support = {"ana", "baptiste", "brigitte", "illari", "juno", "kiriko", "lifeweaver", "lucio", "mercy", "moira", "zenyatta"};
-        for (String hero : support) heroRoles.put(hero, "support");
-        
-        return heroRoles;
-    }
-    
-    private Map<String, String> getRoleHeroGroups() {
-        Map<String, String> roleGroups = new HashMap<>();
-        roleGroups.put("tank", "dva,doomfist,junker-queen,mauga,orisa,ramattra,reinhardt,roadhog,sigma,winston,wrecking-ball,zarya");
-        roleGroups.put("damage", "ashe,bastion,cassidy,echo,genji,hanzo,junkrat,mei,pharah,reaper,sojourn,soldier-76,sombra,symmetra,torbjorn,tracer,venture,widowmaker");
-        roleGroups.put("support", "ana,baptiste,brigitte,illari,juno,kiriko,lifeweaver,lucio,mercy,moira,zenyatta");
-        return roleGroups;
+        Map<Short, Long> counts = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counts.put(rs.getShort("game_mode_id"), rs.getLong("players"));
+        }, heroIds == null ? new Object[0] : new Object[]{heroIds});
+        return counts;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package com.owmetagg.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.owmetagg.utils.PayloadEncoding;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Statistics responses as ready-to-send bytes: the JSON, its gzip encoding and an ETag,
+ * per endpoint and parameter combination.
+ *
+ * Statistics only change when StatisticsCalculationService refreshes a view, which bumps its
+ * generation (and clears the Spring caches behind these responses). An entry is reused while
+ * the generation it was built in is current, so a hit costs no Jackson and no compression.
+ * The ETag is a hash of the JSON, so a refresh that changes nothing keeps clients' copies valid.
+ *
+ * Least recently used entries are evicted past statistics.response-cache.max-size.
+ */
+@Service
+public class StatisticsResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final StatisticsCalculationService calculationService;
+    private final long gzipMinBytes;
+    private final Map<String, CachedResponse> cache;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public StatisticsResponseCache(ObjectMapper objectMapper,
+                                   StatisticsCalculationService calculationService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${statistics.response-cache.max-size:1000}") int maxSize,
+                                   @Value("${server.compression.min-response-size:1KB}") DataSize gzipMinSize) {
+        this.objectMapper = objectMapper;
+        this.calculationService = calculationService;
+        this.gzipMinBytes = gzipMinSize.toBytes();
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxSize;
+            }
+        };
+
+        Gauge.builder("statistics.response.cache.size", this, StatisticsResponseCache::size)
+                .description("Serialized statistics responses held in memory")
+                .register(meterRegistry);
+        this.hits = Counter.builder("statistics.response.cache")
+                .description("Statistics responses served from serialized bytes, or serialized anew")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("statistics.response.cache")
+                .description("Statistics responses served from serialized bytes, or serialized anew")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A serialized response. gzip is null when the JSON is below the compression threshold.
+     */
+    public record CachedResponse(long generation, byte[] json, byte[] gzip, String etag) {
+
+        public String gzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+    }
+
+    /**
+     * Bytes for key in the current generation, serializing body() on a miss
+     */
+    public CachedResponse get(String key, Supplier<?> body) {
+        long generation = calculationService.getGeneration();
+        CachedResponse cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null && cached.generation() == generation) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        CachedResponse response = serialize(generation, body.get());
+        synchronized (cache) {
+            cache.put(key, response);
+        }
+        return response;
+    }
+
+    private CachedResponse serialize(long generation, Object body) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] gzip = json.length >= gzipMinBytes ? PayloadEncoding.GZIP.encode(json) : null;
+        return new CachedResponse(generation, json, gzip, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
@@ -4,38 +4,48 @@ import com.owmetagg.dtos.HeroStatsDTO;
 import com.owmetagg.dtos.RankDistributionDTO;
 import com.owmetagg.dtos.HeroTrendDTO;
 import com.owmetagg.dtos.RoleStatisticsDTO;
+import com.owmetagg.models.RankCategory;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.*;
 
+import static com.owmetagg.utils.Constants.PLATFORM_ALL;
+import static com.owmetagg.utils.Constants.ROLE_ALL;
+
+/**
+ * Statistics reads. The cached ones are read from the primary: the caches are cleared as soon
+ * as a recalculation commits there, and a lagging replica would refill them with the previous
+ * statistics until the next recalculation.
+ */
 @Slf4j
 @Service
 public class StatisticsService {
 
     private final JdbcTemplate jdbcTemplate;
     
-    public StatisticsService(JdbcTemplate jdbcTemplate) {
+    // Read-only transactions of the API pool, served by the replica when enabled
+    private final JdbcTemplate replicaJdbcTemplate;
+    
+    public StatisticsService(@Qualifier("primaryJdbcTemplate") JdbcTemplate jdbcTemplate,
+                             JdbcTemplate replicaJdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
+        this.replicaJdbcTemplate = replicaJdbcTemplate;
     }
     
     @Cacheable(value = "heroStatistics", key = "#gameMode + '_' + #sortBy + '_' + #limit")
     public List<HeroStatsDTO> getTopHeroes(String gameMode, String sortBy, int limit) {
         log.info("📊 Fetching top {} heroes for {} mode sorted by {}", limit, gameMode, sortBy);
         
-        String orderByClause = switch (sortBy.toLowerCase()) {
-            case "winrate" -> "win_rate DESC";
-            case "pickrate" -> "pick_rate DESC";
-            case "kda" -> "avg_kda DESC";
-            case "games" -> "total_games_played DESC";
-            default -> "pick_rate DESC";
-        };
+        String orderByClause = resolveOrderBy(sortBy);
         
         String sql = """
             SELECT 
@@ -62,6 +72,105 @@ public class StatisticsService {
         return jdbcTemplate.query(sql, new HeroStatsRowMapper(), gameMode, limit);
     }
     
+    /**
+     * Top heroes inside one SR bracket, served from the precomputed hero_statistics_bracketed cube.
+     * Use platform "all" and RankCategory.ALL_RANKS for the rolled-up cells.
+     */
+    @Cacheable(value = "bracketedHeroStatistics",
+            key = "#gameMode + '_' + #bracket + '_' + #platform + '_' + #sortBy + '_' + #limit")
+    public List<HeroStatsDTO> getTopHeroesInBracket(String gameMode, RankCategory bracket, String platform,
+                                                    String sortBy, int limit) {
+        log.info("📊 Fetching top {} heroes for {} mode in {} ({}) sorted by {}",
+                limit, gameMode, bracket, platform, sortBy);
+        
+        String sql = """
+            SELECT 
+                hero_key,
+                game_mode,
+                total_games_played,
+                total_wins,
+                total_losses,
+                pick_count,
+                pick_rate,
+                win_rate,
+                avg_eliminations,
+                avg_deaths,
+                avg_assists,
+                avg_kda,
+                last_calculated
+            FROM hero_statistics_bracketed
+            WHERE game_mode = ?
+                AND sr_bracket = ?
+                AND platform = ?
+                AND total_games_played >= 10
+            ORDER BY %s
+            LIMIT ?
+            """.formatted(resolveOrderBy(sortBy));
+        
+        return jdbcTemplate.query(sql, new HeroStatsRowMapper(), gameMode, bracket.name(), platform, limit);
+    }
+    
+    /**
+     * Top heroes from the running totals in hero_aggregates, seconds behind ingest rather than
+     * one view refresh. Not cached; pick counts still come from the last calculation, and rates
+     * are ratios of totals rather than the per-player averages of the views.
+     */
+    @Transactional(readOnly = true)
+    public List<HeroStatsDTO> getLiveTopHeroes(String gameMode, RankCategory bracket, String sortBy, int limit) {
+        log.info("📊 Fetching live top {} heroes for {} mode in {} sorted by {}", limit, gameMode, bracket, sortBy);
+        
+        String sql = """
+            WITH totals AS (
+                SELECT 
+                    ha.hero_id,
+                    ha.game_mode_id,
+                    SUM(ha.wins) as wins,
+                    SUM(ha.losses) as losses,
+                    SUM(ha.draws) as draws,
+                    SUM(ha.time_played) as time_played,
+                    SUM(ha.eliminations) as eliminations,
+                    SUM(ha.deaths) as deaths,
+                    SUM(ha.assists) as assists,
+                    MAX(ha.updated_at) as updated_at
+                FROM hero_aggregates ha
+                JOIN game_modes gm ON gm.game_mode_id = ha.game_mode_id
+                WHERE gm.game_mode = ?
+                    AND (? = 'ALL_RANKS' OR ha.sr_bracket = ?)
+                GROUP BY ha.hero_id, ha.game_mode_id
+            )
+            SELECT 
+                h.hero_key,
+                gm.game_mode,
+                t.wins + t.losses + t.draws as total_games_played,
+                t.wins as total_wins,
+                t.losses as total_losses,
+                COALESCE(pc.pick_count, 0) as pick_count,
+                LEAST(CAST(COALESCE(pc.pick_count, 0) AS FLOAT) / NULLIF(bp.pick_count, 0) * 100, 100)::DECIMAL(5,2) as pick_rate,
+                COALESCE(CAST(t.wins AS FLOAT) / NULLIF(t.wins + t.losses, 0) * 100, 0)::DECIMAL(5,2) as win_rate,
+                COALESCE(t.eliminations / NULLIF(t.time_played / 60.0, 0), 0)::DECIMAL(10,2) as avg_eliminations,
+                COALESCE(t.deaths / NULLIF(t.time_played / 60.0, 0), 0)::DECIMAL(10,2) as avg_deaths,
+                COALESCE(t.assists / NULLIF(t.time_played / 60.0, 0), 0)::DECIMAL(10,2) as avg_assists,
+                COALESCE(CAST(t.eliminations + t.assists AS FLOAT) / NULLIF(t.deaths, 0), t.eliminations + t.assists)::DECIMAL(10,2) as avg_kda,
+                t.updated_at as last_calculated
+            FROM totals t
+            JOIN heroes h ON h.hero_id = t.hero_id
+            JOIN game_modes gm ON gm.game_mode_id = t.game_mode_id
+            LEFT JOIN hero_pick_counts pc
+                ON pc.game_mode_id = t.game_mode_id AND pc.platform_id = 0
+                AND pc.sr_bracket = ? AND pc.hero_id = t.hero_id
+            LEFT JOIN hero_pick_counts bp
+                ON bp.game_mode_id = t.game_mode_id AND bp.platform_id = 0
+                AND bp.sr_bracket = ? AND bp.hero_id = 0
+            WHERE t.wins + t.losses + t.draws >= 10
+            ORDER BY %s
+            LIMIT ?
+            """.formatted(resolveOrderBy(sortBy));
+        
+        String srBracket = bracket.name();
+        return replicaJdbcTemplate.query(sql, new HeroStatsRowMapper(),
+                gameMode, srBracket, srBracket, srBracket, srBracket, limit);
+    }
+    
     @Cacheable(value = "heroWinRates", key = "#gameMode + '_' + #minGames")
     public List<HeroStatsDTO> getHeroWinRates(String gameMode, int minGames) {
         log.info("📊 Fetching hero win rates for {} mode with min {} games", gameMode, minGames);
@@ -117,23 +226,29 @@ public class StatisticsService {
         return jdbcTemplate.query(sql, new HeroStatsRowMapper(), gameMode);
     }
     
-    @Cacheable(value = "rankDistribution", key = "#date")
     public List<RankDistributionDTO> getRankDistribution(LocalDate date) {
-        log.info("🏆 Fetching rank distribution for {}", date);
+        return getRankDistribution(date, ROLE_ALL);
+    }
+    
+    @Cacheable(value = "rankDistribution", key = "#date + '_' + #role")
+    public List<RankDistributionDTO> getRankDistribution(LocalDate date, String role) {
+        log.info("🏆 Fetching {} rank distribution for {}", role, date);
         
         String sql = """
             SELECT 
                 sr_bracket,
                 bracket_name,
+                role,
                 player_count,
                 percentage,
                 snapshot_date
             FROM rank_distribution
             WHERE snapshot_date = ?
+                AND role = ?
             ORDER BY sr_bracket ASC
             """;
         
-        List<RankDistributionDTO> distribution = jdbcTemplate.query(sql, new RankDistributionRowMapper(), date);
+        List<RankDistributionDTO> distribution = jdbcTemplate.query(sql, new RankDistributionRowMapper(), date, role);
         
         // If no data for specific date, get the most recent
         if (distribution.isEmpty()) {
@@ -141,14 +256,16 @@ public class StatisticsService {
                 SELECT 
                     sr_bracket,
                     bracket_name,
+                    role,
                     player_count,
                     percentage,
                     snapshot_date
                 FROM rank_distribution
-                WHERE snapshot_date = (SELECT MAX(snapshot_date) FROM rank_distribution)
+                WHERE snapshot_date = (SELECT MAX(snapshot_date) FROM rank_distribution WHERE role = ?)
+                    AND role = ?
                 ORDER BY sr_bracket ASC
                 """;
-            distribution = jdbcTemplate.query(sql, new RankDistributionRowMapper());
+            distribution = jdbcTemplate.query(sql, new RankDistributionRowMapper(), role, role);
         }
         
         return distribution;
@@ -220,17 +337,25 @@ public class StatisticsService {
         return jdbcTemplate.query(sql, new RoleStatisticsRowMapper(), gameMode);
     }
     
-    @Cacheable(value = "metaReport", key = "#gameMode + '_' + #srBracket")
+    @Cacheable(value = "metaReport",
+            key = "#gameMode + '_' + T(com.owmetagg.models.RankCategory).fromSkillRating(#srBracket)")
     public Map<String, Object> getMetaReport(String gameMode, Integer srBracket) {
-        log.info("📋 Generating meta report for {} mode at SR bracket {}", gameMode, srBracket);
+        RankCategory bracket = RankCategory.fromSkillRating(srBracket);
+        log.info("📋 Generating meta report for {} mode at SR bracket {} ({})", gameMode, srBracket, bracket);
         
         Map<String, Object> report = new HashMap<>();
         
-        // Get top picked heroes
-        report.put("topPicks", getTopHeroes(gameMode, "pickrate", 10));
-        
-        // Get top win rate heroes
-        report.put("topWinRates", getTopHeroes(gameMode, "winrate", 10));
+        if (bracket == RankCategory.ALL_RANKS) {
+            // Get top picked heroes
+            report.put("topPicks", getTopHeroes(gameMode, "pickrate", 10));
+            
+            // Get top win rate heroes
+            report.put("topWinRates", getTopHeroes(gameMode, "winrate", 10));
+        } else {
+            // Bracketed reads are point lookups into the precomputed cube
+            report.put("topPicks", getTopHeroesInBracket(gameMode, bracket, PLATFORM_ALL, "pickrate", 10));
+            report.put("topWinRates", getTopHeroesInBracket(gameMode, bracket, PLATFORM_ALL, "winrate", 10));
+        }
         
         // Get role statistics
         report.put("roleStats", getRoleStatistics(gameMode));
@@ -242,12 +367,23 @@ public class StatisticsService {
         Map<String, Object> metadata = new HashMap<>();
         metadata.put("gameMode", gameMode);
         metadata.put("srBracket", srBracket);
+        metadata.put("rankCategory", bracket.getCategory());
         metadata.put("generatedAt", LocalDate.now());
         report.put("metadata", metadata);
         
         return report;
     }
     
+    private String resolveOrderBy(String sortBy) {
+        return switch (sortBy.toLowerCase()) {
+            case "winrate" -> "win_rate DESC";
+            case "pickrate" -> "pick_rate DESC";
+            case "kda" -> "avg_kda DESC";
+            case "games" -> "total_games_played DESC";
+            default -> "pick_rate DESC";
+        };
+    }
+    
     // Row Mappers
     private static class HeroStatsRowMapper implements RowMapper<HeroStatsDTO> {
         @Override
@@ -276,6 +412,7 @@ public class StatisticsService {
             RankDistributionDTO dto = new RankDistributionDTO();
             dto.setSrBracket(rs.getInt("sr_bracket"));
             dto.setBracketName(rs.getString("bracket_name"));
+            dto.setRole(rs.getString("role"));
             dto.setPlayerCount(rs.getInt("player_count"));
             dto.setPercentage(rs.getDouble("percentage"));
             dto.setSnapshotDate(rs.getDate("snapshot_date").toLocalDate());
@@ -32,11 +32,14 @@ public class Constants {
     // Platforms
     public static final String PLATFORM_PC = "pc";
     public static final String PLATFORM_CONSOLE = "console";
+    public static final String PLATFORM_ALL = "all"; // rolled-up rows in aggregate tables
 
     // Roles
     public static final String ROLE_TANK = "tank";
     public static final String ROLE_DAMAGE = "damage";
     public static final String ROLE_SUPPORT = "support";
+    public static final String ROLE_OPEN = "open";
+    public static final String ROLE_ALL = "all"; // role-agnostic (highest rating) rows
 
     // Game Modes
     public static final String GAME_MODE_COMPETITIVE = "competitive";
@@ -0,0 +1,180 @@
+package com.owmetagg.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * HyperLogLog distinct counter over long ids (player ids).
+ *
+ * With 2^precision registers the relative standard error is 1.04 / sqrt(2^precision):
+ * 1.6% at the default precision of 12, so an estimate is within ±4.9% of the true count
+ * 99.7% of the time. The estimate uses Ertl's improved estimator ("New cardinality
+ * estimation algorithms for HyperLogLog sketches", 2017), which needs no bias tables
+ * and stays accurate from empty up to billions of ids.
+ *
+ * Adding the same id twice is a no-op and two sketches merge by register-wise max, so
+ * sketches can be built anywhere and unioned later (across days, brackets, heroes).
+ * Not thread-safe.
+ */
+public class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 12;
+
+    // Serialized layout: [precision][format][registers...]
+    private static final byte FORMAT_SPARSE = 0; // (u16 index, u8 value) per non-zero register
+    private static final byte FORMAT_DENSE = 1;  // one byte per register
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(long id) {
+        long hash = mix(id);
+        int index = (int) (hash >>> (64 - precision));
+        // Guard bit keeps the rank within 64 - precision + 1
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Union in place: afterwards this sketch counts every id seen by either sketch
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLog sketches of precision "
+                    + precision + " and " + other.precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    public long cardinality() {
+        int m = registers.length;
+        int q = 64 - precision;
+        int[] histogram = new int[q + 2];
+        for (byte register : registers) {
+            histogram[register]++;
+        }
+        if (histogram[0] == m) {
+            return 0;
+        }
+
+        double z = m * tau(1.0 - (double) histogram[q + 1] / m);
+        for (int k = q; k >= 1; k--) {
+            z = 0.5 * (z + histogram[k]);
+        }
+        z += m * sigma((double) histogram[0] / m);
+
+        return Math.round(m / (2 * Math.log(2)) * m / z);
+    }
+
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Relative standard error of the estimate for this precision
+     */
+    public double relativeStandardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) nonZero++;
+        }
+
+        // Small sketches are mostly empty registers: store only the set ones
+        if (nonZero * 3 < registers.length) {
+            ByteBuffer buffer = ByteBuffer.allocate(2 + nonZero * 3);
+            buffer.put((byte) precision).put(FORMAT_SPARSE);
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] != 0) {
+                    buffer.putShort((short) i).put(registers[i]);
+                }
+            }
+            return buffer.array();
+        }
+
+        byte[] bytes = new byte[2 + registers.length];
+        bytes[0] = (byte) precision;
+        bytes[1] = FORMAT_DENSE;
+        System.arraycopy(registers, 0, bytes, 2, registers.length);
+        return bytes;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < 2) {
+            return new HyperLogLog();
+        }
+
+        HyperLogLog sketch = new HyperLogLog(bytes[0]);
+        if (bytes[1] == FORMAT_DENSE) {
+            System.arraycopy(bytes, 2, sketch.registers, 0, sketch.registers.length);
+        } else {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+            while (buffer.remaining() >= 3) {
+                int index = Short.toUnsignedInt(buffer.getShort());
+                sketch.registers[index] = buffer.get();
+            }
+        }
+        return sketch;
+    }
+
+    // SplitMix64 finalizer: sequential ids must land on unrelated registers
+    private static long mix(long id) {
+        long z = id + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double sigma(double x) {
+        if (x == 1.0) return Double.POSITIVE_INFINITY;
+        double y = 1.0;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0.0 || x == 1.0) return 0.0;
+        double y = 1.0;
+        double z = 1.0 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= Math.pow(1.0 - x, 2) * y;
+        } while (z != previous);
+        return z / 3.0;
+    }
+}
@@ -1,67 +1,18 @@
 package com.owmetagg.utils;
 
+import com.owmetagg.services.HeroRegistry;
+
 import java.util.HashMap;
 import java.util.Map;
 
 public class OverwatchDataMapperUtils {
 
-    private static final Map<String, String> heroMap = new HashMap<>();
     private static final Map<String, String> mapMap = new HashMap<>();
     private static final Map<String, String> skillTierMap = new HashMap<>();
     private static final Map<String, String> roleMap = new HashMap<>();
     private static final Map<String, String> gameModeMap = new HashMap<>();
 
     static {
-        // Hero mappings (hero key -> hero name)
-        // Tank Heroes
-        heroMap.put("dva", "D.Va");
-        heroMap.put("doomfist", "Doomfist");
-        heroMap.put("hazard", "Hazard");
-        heroMap.put("junker-queen", "Junker Queen");
-        heroMap.put("mauga", "Mauga");
-        heroMap.put("orisa", "Orisa");
-        heroMap.put("ramattra", "Ramattra");
-        heroMap.put("reinhardt", "Reinhardt");
-        heroMap.put("roadhog", "Roadhog");
-        heroMap.put("sigma", "Sigma");
-        heroMap.put("winston", "Winston");
-        heroMap.put("wrecking-ball", "Wrecking Ball");
-        heroMap.put("zarya", "Zarya");
-
-        // Damage Heroes
-        heroMap.put("ashe", "Ashe");
-        heroMap.put("bastion", "Bastion");
-        heroMap.put("cassidy", "Cassidy");
-        heroMap.put("echo", "Echo");
-        heroMap.put("freja", "Freja");
-        heroMap.put("genji", "Genji");
-        heroMap.put("hanzo", "Hanzo");
-        heroMap.put("junkrat", "Junkrat");
-        heroMap.put("mei", "Mei");
-        heroMap.put("pharah", "Pharah");
-        heroMap.put("reaper", "Reaper");
-        heroMap.put("sojourn", "Sojourn");
-        heroMap.put("soldier-76", "Soldier: 76");
-        heroMap.put("sombra", "Sombra");
-        heroMap.put("symmetra", "Symmetra");
-        heroMap.put("torbjorn", "Torbjörn");
-        heroMap.put("tracer", "Tracer");
-        heroMap.put("widowmaker", "Widowmaker");
-        heroMap.put("venture", "Venture");
-
-        // Support Heroes
-        heroMap.put("ana", "Ana");
-        heroMap.put("baptiste", "Baptiste");
-        heroMap.put("brigitte", "Brigitte");
-        heroMap.put("kiriko", "Kiriko");
-        heroMap.put("lifeweaver", "Lifeweaver");
-        heroMap.put("lucio", "Lúcio");
-        heroMap.put("mercy", "Mercy");
-        heroMap.put("moira", "Moira");
-        heroMap.put("zenyatta", "Zenyatta");
-        heroMap.put("illari", "Illari");
-        heroMap.put("juno", "Juno");
-
         // Map mappings (map key -> map name)
         mapMap.put("hanamura", "Hanamura");
         mapMap.put("temple-of-anubis", "Temple of Anubis");
@@ -145,8 +96,10 @@ public class OverwatchDataMapperUtils {
 
     }
 
+    // Hero names and roles live in HeroRegistry (heroes table + OverFast /heroes)
     public static String getHeroName(String heroKey) {
-        return heroMap.getOrDefault(heroKey, "Undefined Hero: " + heroKey);
+        HeroRegistry heroRegistry = HeroRegistry.get();
+        return heroRegistry != null ? heroRegistry.nameOf(heroKey) : "Undefined Hero: " + heroKey;
     }
 
     public static String getMapName(String mapKey) {
@@ -167,16 +120,9 @@ public class OverwatchDataMapperUtils {
 
     // Utility method to get hero role from hero key
     public static String getHeroRole(String heroKey) {
-        // Tank heroes
-        if (heroKey.matches("dva|doomfist|hazard|junker-queen|orisa|ramattra|reinhardt|roadhog|sigma|winston|wrecking-ball|zarya|mauga")) {
-            return "tank";
-        }
-        // Support heroes
-        if (heroKey.matches("ana|baptiste|brigitte|kiriko|lifeweaver|lucio|mercy|moira|zenyatta|illari|juno")) {
-            return "support";
-        }
-        // Default to damage
-        return "damage";
+        HeroRegistry heroRegistry = HeroRegistry.get();
+        String role = heroRegistry != null ? heroRegistry.roleOf(heroKey) : null;
+        return role != null ? role : "damage";
     }
 
     // Utility method to convert skill rating to tier (approximate)
@@ -0,0 +1,91 @@
+package com.owmetagg.utils;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated list: the sort value and player id of the last row of a page.
+ * The next page is the rows strictly after it in (sort value, player id) order.
+ *
+ * Clients get it as an opaque URL-safe token and send it back unchanged. The token carries
+ * the kind of sort value, so a cursor from one list is refused by another. Timestamps are
+ * carried as epoch microseconds, the precision of a Postgres timestamp.
+ */
+public record PageCursor(Kind kind, long sortValue, long playerId) {
+
+    // What sortValue holds
+    public enum Kind {
+        SKILL_RATING,
+        LAST_UPDATED
+    }
+
+    // Kind ordinal, sort value, player id
+    private static final int TOKEN_BYTES = 1 + Long.BYTES + Long.BYTES;
+
+    public PageCursor {
+        if (kind == null) {
+            throw new IllegalArgumentException("Page cursor kind is required");
+        }
+        if (kind == Kind.SKILL_RATING && (sortValue < Integer.MIN_VALUE || sortValue > Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Skill rating out of range in page cursor: " + sortValue);
+        }
+    }
+
+    public static PageCursor of(int skillRating, long playerId) {
+        return new PageCursor(Kind.SKILL_RATING, skillRating, playerId);
+    }
+
+    public static PageCursor of(LocalDateTime lastUpdated, long playerId) {
+        return new PageCursor(Kind.LAST_UPDATED,
+                lastUpdated.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + lastUpdated.getNano() / 1_000, playerId);
+    }
+
+    public int skillRating() {
+        requireKind(Kind.SKILL_RATING);
+        return (int) sortValue;
+    }
+
+    public LocalDateTime lastUpdated() {
+        requireKind(Kind.LAST_UPDATED);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(sortValue, 1_000_000),
+                Math.floorMod(sortValue, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private void requireKind(Kind expected) {
+        if (kind != expected) {
+            throw new IllegalArgumentException("Expected a " + expected + " page cursor, got " + kind);
+        }
+    }
+
+    public String encode() {
+        byte[] bytes = ByteBuffer.allocate(TOKEN_BYTES)
+                .put((byte) kind.ordinal())
+                .putLong(sortValue)
+                .putLong(playerId)
+                .array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Cursor of the expected kind from a token; null for a null or blank token (first page)
+     */
+    public static PageCursor decode(String token, Kind expected) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token);
+        }
+        if (bytes.length != TOKEN_BYTES || bytes[0] != expected.ordinal()) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, TOKEN_BYTES - 1);
+        return new PageCursor(expected, buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,81 @@
+package com.owmetagg.utils;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression of message bodies, named as in the AMQP content-encoding property
+ */
+public enum PayloadEncoding {
+    IDENTITY("identity"),
+    GZIP("gzip"),
+    ZSTD("zstd");
+
+    private final String header;
+
+    PayloadEncoding(String header) {
+        this.header = header;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public byte[] encode(byte[] body) {
+        return switch (this) {
+            case IDENTITY -> body;
+            case ZSTD -> Zstd.compress(body);
+            case GZIP -> {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(body);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                yield out.toByteArray();
+            }
+        };
+    }
+
+    /**
+     * Stream over the decoded body, for parsers that read straight from it
+     */
+    public InputStream decode(byte[] body) throws IOException {
+        InputStream in = new ByteArrayInputStream(body);
+        return switch (this) {
+            case IDENTITY -> in;
+            case GZIP -> new GZIPInputStream(in);
+            case ZSTD -> new ZstdInputStream(in);
+        };
+    }
+
+    public String decodeToString(byte[] body) throws IOException {
+        try (InputStream in = decode(body)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Encoding named by a content-encoding header or config value; none means identity
+     */
+    public static PayloadEncoding fromHeader(String value) {
+        if (value == null || value.isBlank() || value.equalsIgnoreCase("none")) {
+            return IDENTITY;
+        }
+        for (PayloadEncoding encoding : values()) {
+            if (encoding.header.equalsIgnoreCase(value.trim())) {
+                return encoding;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported content encoding: " + value);
+    }
+}
@@ -0,0 +1,46 @@
+package com.owmetagg.utils;
+
+import org.springframework.amqp.core.MessageProperties;
+
+/**
+ * What a player message body holds, named by its AMQP content-type
+ */
+public enum PayloadFormat {
+    // The OverFast player document as fetched; parsed by the consumer
+    RAW_JSON(MessageProperties.CONTENT_TYPE_JSON),
+    // Only the stored fields, extracted by the producer (PlayerRowsCodec)
+    PLAYER_ROWS(PlayerRowsCodec.CONTENT_TYPE);
+
+    private final String contentType;
+
+    PayloadFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Format named by a content-type header; anything unknown is read as JSON, as before
+     */
+    public static PayloadFormat fromContentType(String contentType) {
+        if (contentType != null && contentType.startsWith(PlayerRowsCodec.CONTENT_TYPE)) {
+            return PLAYER_ROWS;
+        }
+        return RAW_JSON;
+    }
+
+    /**
+     * Format named by the rabbitmq.message.format setting: raw or rows
+     */
+    public static PayloadFormat fromConfig(String value) {
+        if (value == null || value.isBlank() || value.equalsIgnoreCase("raw")) {
+            return RAW_JSON;
+        }
+        if (value.equalsIgnoreCase("rows")) {
+            return PLAYER_ROWS;
+        }
+        throw new IllegalArgumentException("Unsupported message format: " + value);
+    }
+}
@@ -0,0 +1,167 @@
+package com.owmetagg.utils;
+
+import com.owmetagg.dtos.ParsedPlayerDTO;
+import com.owmetagg.dtos.ParsedPlayerDTO.HeroStatRow;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary form of ParsedPlayerDTO for the player-rows message format.
+ *
+ * Layout (version 1): a version byte, then battletag, platform, username and avatar URL as
+ * length-prefixed UTF-8 strings, a bit mask of the ratings present followed by those ratings,
+ * and a row count followed by one row per hero and game mode: hero key, game mode code and
+ * the nine stat values. Every number is a zig-zag varint, so small counts take one byte.
+ *
+ * The version byte lets producer and consumer be deployed independently: a consumer rejects
+ * versions it does not know (the message is dead-lettered), so roll consumers out first.
+ */
+public final class PlayerRowsCodec {
+
+    public static final String CONTENT_TYPE = "application/x-owmeta-player-rows";
+    public static final int VERSION = 1;
+
+    // Bits of the ratings mask, in the order the ratings follow it
+    private static final int TANK = 1;
+    private static final int DAMAGE = 1 << 1;
+    private static final int SUPPORT = 1 << 2;
+    private static final int OPEN = 1 << 3;
+    private static final int SKILL = 1 << 4;
+
+    private PlayerRowsCodec() {
+    }
+
+    public static byte[] encode(ParsedPlayerDTO player) {
+        // ~30 bytes per row, most of it the hero key
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + player.getHeroStats().size() * 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            writeString(out, player.getBattletag());
+            writeString(out, player.getPlatform());
+            writeString(out, player.getUsername());
+            writeString(out, player.getAvatarUrl());
+
+            int mask = (player.getTankRating() != null ? TANK : 0)
+                    | (player.getDamageRating() != null ? DAMAGE : 0)
+                    | (player.getSupportRating() != null ? SUPPORT : 0)
+                    | (player.getOpenRating() != null ? OPEN : 0)
+                    | (player.getSkillRating() != null ? SKILL : 0);
+            out.writeByte(mask);
+            if (player.getTankRating() != null) writeVarLong(out, player.getTankRating());
+            if (player.getDamageRating() != null) writeVarLong(out, player.getDamageRating());
+            if (player.getSupportRating() != null) writeVarLong(out, player.getSupportRating());
+            if (player.getOpenRating() != null) writeVarLong(out, player.getOpenRating());
+            if (player.getSkillRating() != null) writeVarLong(out, player.getSkillRating());
+
+            writeVarLong(out, player.getHeroStats().size());
+            for (HeroStatRow row : player.getHeroStats()) {
+                writeString(out, row.getHeroKey());
+                writeVarLong(out, row.getGameModeId());
+                writeVarLong(out, row.getWins());
+                writeVarLong(out, row.getLosses());
+                writeVarLong(out, row.getDraws());
+                writeVarLong(out, row.getTimePlayed());
+                writeVarLong(out, row.getEliminations());
+                writeVarLong(out, row.getDeaths());
+                writeVarLong(out, row.getAssists());
+                writeVarLong(out, row.getDamageDealt());
+                writeVarLong(out, row.getHealingDone());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static ParsedPlayerDTO decode(InputStream body) throws IOException {
+        DataInputStream in = new DataInputStream(body);
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported player rows version " + version + " (this consumer reads " + VERSION + ")");
+        }
+
+        ParsedPlayerDTO player = ParsedPlayerDTO.builder()
+                .battletag(readString(in))
+                .platform(readString(in))
+                .username(readString(in))
+                .avatarUrl(readString(in))
+                .build();
+
+        int mask = in.readUnsignedByte();
+        if ((mask & TANK) != 0) player.setTankRating((int) readVarLong(in));
+        if ((mask & DAMAGE) != 0) player.setDamageRating((int) readVarLong(in));
+        if ((mask & SUPPORT) != 0) player.setSupportRating((int) readVarLong(in));
+        if ((mask & OPEN) != 0) player.setOpenRating((int) readVarLong(in));
+        if ((mask & SKILL) != 0) player.setSkillRating((int) readVarLong(in));
+
+        int rowCount = (int) readVarLong(in);
+        List<HeroStatRow> rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(HeroStatRow.builder()
+                    .heroKey(readString(in))
+                    .gameModeId((short) readVarLong(in))
+                    .wins((int) readVarLong(in))
+                    .losses((int) readVarLong(in))
+                    .draws((int) readVarLong(in))
+                    .timePlayed((int) readVarLong(in))
+                    .eliminations(readVarLong(in))
+                    .deaths(readVarLong(in))
+                    .assists(readVarLong(in))
+                    .damageDealt(readVarLong(in))
+                    .healingDone(readVarLong(in))
+                    .build());
+        }
+        player.setHeroStats(rows);
+        return player;
+    }
+
+    // Length + 1, so that 0 can mean null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, utf8.length + 1L);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        long length = readVarLong(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[Math.toIntExact(length)];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new IOException("Malformed varint in player rows");
+    }
+}
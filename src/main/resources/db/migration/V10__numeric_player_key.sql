@@ -0,0 +1,387 @@
+-- V10: Surrogate BIGINT player key
+-- players.player_id was the battletag-derived string ("name_1234_pc"); it becomes a BIGINT
+-- identity and (battletag, platform) stays as the unique natural key. hero_stats.player_id
+-- follows, so its PK, FK and every COUNT(DISTINCT player_id) work on 8-byte integers.
+-- Same shape as V9: players get their new key in batches, hero_stats is rebuilt in player
+-- batches (one commit each), and a short locked step catches up and swaps.
+-- Runs outside a transaction (see .sql.conf) so the batches can commit as they go.
+
+-- ============================================
+-- NATURAL KEY
+-- ============================================
+
+-- The ingest upsert already relies on it (ON CONFLICT (battletag, platform));
+-- make sure it exists under any name before it becomes the only lookup path
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1
+        FROM pg_index i
+        WHERE i.indrelid = 'players'::regclass
+          AND i.indisunique
+          AND i.indnatts = 2
+          AND (SELECT array_agg(a.attname::text ORDER BY a.attname)
+               FROM pg_attribute a
+               WHERE a.attrelid = i.indrelid AND a.attnum = ANY(i.indkey)) = ARRAY['battletag', 'platform']
+    ) THEN
+        ALTER TABLE players
+            ADD CONSTRAINT uk_players_battletag_platform UNIQUE (battletag, platform);
+    END IF;
+END $$;
+
+-- ============================================
+-- NEW PLAYER KEY
+-- ============================================
+
+-- Nullable column without a default: no table rewrite. The default only applies to new rows,
+-- so players inserted by the running version get a key while the backfill is in progress.
+CREATE SEQUENCE IF NOT EXISTS players_player_key_seq AS BIGINT;
+
+ALTER TABLE players ADD COLUMN IF NOT EXISTS player_key BIGINT;
+ALTER TABLE players ALTER COLUMN player_key SET DEFAULT nextval('players_player_key_seq');
+
+-- Oldest players first, so ids roughly follow first-seen order
+DO $$
+DECLARE
+    batch_size CONSTANT INTEGER := 5000;
+    assigned BIGINT;
+BEGIN
+    LOOP
+        UPDATE players SET player_key = nextval('players_player_key_seq')
+        WHERE player_id IN (
+            SELECT player_id FROM players
+            WHERE player_key IS NULL
+            ORDER BY last_updated NULLS FIRST, player_id
+            LIMIT batch_size
+        );
+
+        GET DIAGNOSTICS assigned = ROW_COUNT;
+        EXIT WHEN assigned = 0;
+        RAISE NOTICE 'players: assigned % keys', assigned;
+        COMMIT;
+    END LOOP;
+END $$;
+
+-- Validating a CHECK only takes SHARE UPDATE EXCLUSIVE, and lets SET NOT NULL skip its scan later
+ALTER TABLE players
+    ADD CONSTRAINT players_player_key_not_null CHECK (player_key IS NOT NULL) NOT VALID;
+ALTER TABLE players VALIDATE CONSTRAINT players_player_key_not_null;
+
+-- Becomes the primary key in the swap below. Not CONCURRENTLY: it would wait forever on
+-- Flyway's own open transaction (see V4); the build on an 8-byte key holds writes only briefly
+CREATE UNIQUE INDEX IF NOT EXISTS players_player_key_idx ON players(player_key);
+
+-- ============================================
+-- KEYED HERO_STATS
+-- ============================================
+
+-- Columns ordered widest first so rows need no alignment padding
+CREATE TABLE hero_stats_keyed (
+    last_played TIMESTAMP(6),
+    eliminations BIGINT NOT NULL,
+    deaths BIGINT NOT NULL,
+    assists BIGINT NOT NULL,
+    damage_dealt BIGINT NOT NULL,
+    healing_done BIGINT NOT NULL,
+    player_id BIGINT NOT NULL,
+    wins INTEGER NOT NULL,
+    losses INTEGER NOT NULL,
+    draws INTEGER NOT NULL,
+    time_played INTEGER NOT NULL,
+    skill_tier INTEGER NOT NULL,
+    hero_id SMALLINT NOT NULL,
+    game_mode_id SMALLINT NOT NULL,
+    platform_id SMALLINT NOT NULL,
+    CONSTRAINT hero_stats_keyed_pkey PRIMARY KEY (player_id, hero_id, game_mode_id, platform_id)
+);
+
+-- Rows written after this point are picked up again by the catch-up step
+CREATE TEMP TABLE hero_stats_copy_start AS SELECT LOCALTIMESTAMP AS started_at;
+
+-- ============================================
+-- BATCHED COPY (5000 players per commit)
+-- ============================================
+
+DO $$
+DECLARE
+    batch_size CONSTANT INTEGER := 5000;
+    last_player VARCHAR := '';
+    batch_end VARCHAR;
+    copied BIGINT;
+BEGIN
+    LOOP
+        SELECT MAX(player_id) INTO batch_end
+        FROM (
+            SELECT player_id FROM players
+            WHERE player_id > last_player
+            ORDER BY player_id
+            LIMIT batch_size
+        ) batch;
+
+        EXIT WHEN batch_end IS NULL;
+
+        INSERT INTO hero_stats_keyed (
+            player_id, hero_id, game_mode_id, platform_id, last_played, wins, losses, draws,
+            time_played, eliminations, deaths, assists, damage_dealt, healing_done, skill_tier
+        )
+        SELECT p.player_key, hs.hero_id, hs.game_mode_id, hs.platform_id, hs.last_played,
+               hs.wins, hs.losses, hs.draws, hs.time_played, hs.eliminations, hs.deaths,
+               hs.assists, hs.damage_dealt, hs.healing_done, hs.skill_tier
+        FROM hero_stats hs
+        JOIN players p ON p.player_id = hs.player_id
+        WHERE hs.player_id > last_player AND hs.player_id <= batch_end
+        ON CONFLICT DO NOTHING;
+
+        GET DIAGNOSTICS copied = ROW_COUNT;
+        RAISE NOTICE 'hero_stats: copied % rows up to player %', copied, batch_end;
+
+        last_player := batch_end;
+        COMMIT;
+    END LOOP;
+END $$;
+
+-- Secondary indexes are built once after the bulk load (same set as V9)
+CREATE INDEX hero_stats_keyed_hero_game_mode ON hero_stats_keyed(hero_id, game_mode_id);
+CREATE INDEX hero_stats_keyed_last_played ON hero_stats_keyed(last_played DESC);
+CREATE INDEX hero_stats_keyed_wins_losses ON hero_stats_keyed(wins DESC, losses DESC) WHERE time_played > 0;
+CREATE INDEX hero_stats_keyed_time_played ON hero_stats_keyed(time_played DESC) WHERE time_played > 0;
+CREATE INDEX hero_stats_keyed_skill_tier ON hero_stats_keyed(skill_tier DESC) WHERE skill_tier > 0;
+CREATE INDEX hero_stats_keyed_hero_skill_tier ON hero_stats_keyed(hero_id, skill_tier DESC, game_mode_id);
+
+-- ============================================
+-- CATCH-UP AND SWAP (single transaction)
+-- ============================================
+
+-- Writers wait on the locks for the length of this block; readers of the old tables and of
+-- the views are only blocked while the views are recreated
+DO $$
+DECLARE
+    players_pkey_name TEXT;
+    max_player_key BIGINT;
+BEGIN
+    LOCK TABLE players IN SHARE ROW EXCLUSIVE MODE;
+    LOCK TABLE hero_stats IN SHARE ROW EXCLUSIVE MODE;
+
+    -- Rows upserted while the batches were running
+    INSERT INTO hero_stats_keyed (
+        player_id, hero_id, game_mode_id, platform_id, last_played, wins, losses, draws,
+        time_played, eliminations, deaths, assists, damage_dealt, healing_done, skill_tier
+    )
+    SELECT p.player_key, hs.hero_id, hs.game_mode_id, hs.platform_id, hs.last_played,
+           hs.wins, hs.losses, hs.draws, hs.time_played, hs.eliminations, hs.deaths,
+           hs.assists, hs.damage_dealt, hs.healing_done, hs.skill_tier
+    FROM hero_stats hs
+    JOIN players p ON p.player_id = hs.player_id
+    WHERE hs.last_played >= (SELECT started_at FROM hero_stats_copy_start)
+    ON CONFLICT (player_id, hero_id, game_mode_id, platform_id) DO UPDATE SET
+        last_played = EXCLUDED.last_played,
+        wins = EXCLUDED.wins,
+        losses = EXCLUDED.losses,
+        draws = EXCLUDED.draws,
+        time_played = EXCLUDED.time_played,
+        eliminations = EXCLUDED.eliminations,
+        deaths = EXCLUDED.deaths,
+        assists = EXCLUDED.assists,
+        damage_dealt = EXCLUDED.damage_dealt,
+        healing_done = EXCLUDED.healing_done,
+        skill_tier = EXCLUDED.skill_tier;
+
+    -- The views read both key columns and are rebuilt below
+    DROP MATERIALIZED VIEW IF EXISTS hero_statistics;
+    DROP MATERIALIZED VIEW IF EXISTS hero_statistics_bracketed;
+
+    -- Also drops fk_hero_stats_player, the only reference to the string key
+    DROP TABLE hero_stats;
+
+    -- players: string key out, numeric key in
+    SELECT conname INTO players_pkey_name
+    FROM pg_constraint
+    WHERE conrelid = 'players'::regclass AND contype = 'p';
+    EXECUTE format('ALTER TABLE players DROP CONSTRAINT %I', players_pkey_name);
+
+    ALTER TABLE players DROP COLUMN player_id;
+    ALTER TABLE players RENAME COLUMN player_key TO player_id;
+    ALTER TABLE players ALTER COLUMN player_id SET NOT NULL;
+    ALTER TABLE players DROP CONSTRAINT players_player_key_not_null;
+    ALTER TABLE players ADD CONSTRAINT players_pkey PRIMARY KEY USING INDEX players_player_key_idx;
+
+    -- Swap the backfill sequence for an identity that continues after the highest key
+    SELECT COALESCE(MAX(player_id), 0) INTO max_player_key FROM players;
+    ALTER TABLE players ALTER COLUMN player_id DROP DEFAULT;
+    DROP SEQUENCE players_player_key_seq;
+    ALTER TABLE players ALTER COLUMN player_id ADD GENERATED BY DEFAULT AS IDENTITY;
+    PERFORM setval(pg_get_serial_sequence('players', 'player_id'), max_player_key + 1, false);
+
+    ALTER TABLE hero_stats_keyed RENAME TO hero_stats;
+    ALTER TABLE hero_stats RENAME CONSTRAINT hero_stats_keyed_pkey TO hero_stats_pkey;
+
+    ALTER INDEX hero_stats_keyed_hero_game_mode RENAME TO idx_hero_stats_hero_game_mode;
+    ALTER INDEX hero_stats_keyed_last_played RENAME TO idx_hero_stats_last_played;
+    ALTER INDEX hero_stats_keyed_wins_losses RENAME TO idx_hero_stats_wins_losses;
+    ALTER INDEX hero_stats_keyed_time_played RENAME TO idx_hero_stats_time_played;
+    ALTER INDEX hero_stats_keyed_skill_tier RENAME TO idx_hero_stats_skill_tier;
+    ALTER INDEX hero_stats_keyed_hero_skill_tier RENAME TO idx_hero_stats_hero_skill_tier;
+
+    -- Validated after the swap, outside the lock
+    ALTER TABLE hero_stats
+        ADD CONSTRAINT fk_hero_stats_player
+        FOREIGN KEY (player_id) REFERENCES players(player_id) ON DELETE CASCADE NOT VALID;
+
+    -- ============================================
+    -- HERO_STATISTICS (unchanged from V9)
+    -- ============================================
+
+    CREATE MATERIALIZED VIEW hero_statistics AS
+    WITH per_hero AS (
+        SELECT
+            hero_id,
+            game_mode_id,
+            SUM(COALESCE(wins, 0) + COALESCE(losses, 0) + COALESCE(draws, 0)) as total_games_played,
+            SUM(COALESCE(wins, 0)) as total_wins,
+            SUM(COALESCE(losses, 0)) as total_losses,
+            COUNT(DISTINCT player_id)::INTEGER as pick_count,
+            (CAST(COUNT(DISTINCT player_id) AS FLOAT) /
+                NULLIF((SELECT COUNT(DISTINCT player_id) FROM players), 0) * 100)::DECIMAL(5,2) as pick_rate,
+            (CASE
+                WHEN SUM(COALESCE(wins, 0) + COALESCE(losses, 0)) > 0
+                THEN CAST(SUM(COALESCE(wins, 0)) AS FLOAT) / SUM(COALESCE(wins, 0) + COALESCE(losses, 0)) * 100
+                ELSE 0
+            END)::DECIMAL(5,2) as win_rate,
+            AVG(CASE WHEN time_played > 0 THEN eliminations::float / (time_played / 60.0) ELSE 0 END)::DECIMAL(10,2) as avg_eliminations,
+            AVG(CASE WHEN time_played > 0 THEN deaths::float / (time_played / 60.0) ELSE 0 END)::DECIMAL(10,2) as avg_deaths,
+            AVG(CASE WHEN time_played > 0 THEN assists::float / (time_played / 60.0) ELSE 0 END)::DECIMAL(10,2) as avg_assists,
+            AVG(
+                CASE
+                    WHEN deaths > 0 THEN (eliminations + assists)::float / deaths
+                    WHEN eliminations + assists > 0 THEN (eliminations + assists)::float
+                    ELSE 0
+                END
+            )::DECIMAL(10,2) as avg_kda
+        FROM hero_stats
+        WHERE time_played >= 0
+        GROUP BY hero_id, game_mode_id
+    )
+    SELECT
+        h.hero_key,
+        gm.game_mode,
+        ph.total_games_played,
+        ph.total_wins,
+        ph.total_losses,
+        ph.pick_count,
+        ph.pick_rate,
+        ph.win_rate,
+        ph.avg_eliminations,
+        ph.avg_deaths,
+        ph.avg_assists,
+        ph.avg_kda,
+        NOW()::TIMESTAMP as last_calculated
+    FROM per_hero ph
+    JOIN heroes h ON h.hero_id = ph.hero_id
+    JOIN game_modes gm ON gm.game_mode_id = ph.game_mode_id;
+
+    CREATE UNIQUE INDEX idx_hero_statistics_pk
+        ON hero_statistics(hero_key, game_mode);
+
+    CREATE INDEX idx_hero_statistics_meta
+        ON hero_statistics(game_mode, pick_rate DESC, win_rate DESC);
+
+    -- ============================================
+    -- HERO_STATISTICS_BRACKETED (unchanged from V9)
+    -- ============================================
+
+    CREATE MATERIALIZED VIEW hero_statistics_bracketed AS
+    WITH bracketed AS (
+        SELECT
+            hs.player_id,
+            hs.hero_id,
+            hs.game_mode_id,
+            hs.platform_id,
+            sr_bracket_of(p.skill_rating) as sr_bracket,
+            COALESCE(hs.wins, 0) as wins,
+            COALESCE(hs.losses, 0) as losses,
+            COALESCE(hs.draws, 0) as draws,
+            hs.time_played,
+            hs.eliminations,
+            hs.deaths,
+            hs.assists
+        FROM hero_stats hs
+        JOIN players p ON p.player_id = hs.player_id
+        WHERE hs.time_played >= 0
+    ),
+    bracket_players AS (
+        SELECT
+            game_mode_id,
+            COALESCE(platform_id, 0) as platform_id,
+            COALESCE(sr_bracket, 'ALL_RANKS') as sr_bracket,
+            COUNT(DISTINCT player_id) as player_count
+        FROM bracketed
+        GROUP BY game_mode_id, CUBE(platform_id, sr_bracket)
+    ),
+    hero_cube AS (
+        SELECT
+            hero_id,
+            game_mode_id,
+            COALESCE(platform_id, 0) as platform_id,
+            COALESCE(sr_bracket, 'ALL_RANKS') as sr_bracket,
+            SUM(wins + losses + draws) as total_games_played,
+            SUM(wins) as total_wins,
+            SUM(losses) as total_losses,
+            COUNT(DISTINCT player_id) as pick_count,
+            CASE
+                WHEN SUM(wins + losses) > 0
+                THEN CAST(SUM(wins) AS FLOAT) / SUM(wins + losses) * 100
+                ELSE 0
+            END as win_rate,
+            AVG(CASE WHEN time_played > 0 THEN eliminations::float / (time_played / 60.0) ELSE 0 END) as avg_eliminations,
+            AVG(CASE WHEN time_played > 0 THEN deaths::float / (time_played / 60.0) ELSE 0 END) as avg_deaths,
+            AVG(CASE WHEN time_played > 0 THEN assists::float / (time_played / 60.0) ELSE 0 END) as avg_assists,
+            AVG(
+                CASE
+                    WHEN deaths > 0 THEN (eliminations + assists)::float / deaths
+                    WHEN eliminations + assists > 0 THEN (eliminations + assists)::float
+                    ELSE 0
+                END
+            ) as avg_kda
+        FROM bracketed
+        GROUP BY hero_id, game_mode_id, CUBE(platform_id, sr_bracket)
+    )
+    SELECT
+        gm.game_mode,
+        hc.sr_bracket,
+        COALESCE(pf.platform, 'all') as platform,
+        h.hero_key,
+        hc.total_games_played,
+        hc.total_wins,
+        hc.total_losses,
+        hc.pick_count::INTEGER as pick_count,
+        (CAST(hc.pick_count AS FLOAT) / NULLIF(bp.player_count, 0) * 100)::DECIMAL(5,2) as pick_rate,
+        hc.win_rate::DECIMAL(5,2) as win_rate,
+        hc.avg_eliminations::DECIMAL(10,2) as avg_eliminations,
+        hc.avg_deaths::DECIMAL(10,2) as avg_deaths,
+        hc.avg_assists::DECIMAL(10,2) as avg_assists,
+        hc.avg_kda::DECIMAL(10,2) as avg_kda,
+        NOW()::TIMESTAMP as last_calculated
+    FROM hero_cube hc
+    JOIN bracket_players bp
+        ON bp.game_mode_id = hc.game_mode_id
+        AND bp.platform_id = hc.platform_id
+        AND bp.sr_bracket = hc.sr_bracket
+    JOIN heroes h ON h.hero_id = hc.hero_id
+    JOIN game_modes gm ON gm.game_mode_id = hc.game_mode_id
+    LEFT JOIN platforms pf ON pf.platform_id = hc.platform_id;
+
+    CREATE UNIQUE INDEX idx_hero_statistics_bracketed_pk
+        ON hero_statistics_bracketed(game_mode, sr_bracket, platform, hero_key);
+
+    CREATE INDEX idx_hero_statistics_bracketed_hero
+        ON hero_statistics_bracketed(hero_key, game_mode);
+END $$;
+
+ALTER TABLE hero_stats VALIDATE CONSTRAINT fk_hero_stats_player;
+
+DROP TABLE hero_stats_copy_start;
+
+ANALYZE players;
+ANALYZE hero_stats;
+ANALYZE hero_statistics;
+ANALYZE hero_statistics_bracketed;
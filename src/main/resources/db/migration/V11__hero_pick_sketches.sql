@@ -0,0 +1,209 @@
+-- V11: Approximate distinct player counts (HyperLogLog)
+-- Ingest adds each player to a HyperLogLog sketch per (day, hero, game mode, platform, SR bracket);
+-- HeroPickSketchService flushes them here. Sketches union losslessly, so any window of days and
+-- any rollup of brackets / platforms is a merge instead of a COUNT(DISTINCT player_id) over hero_stats.
+-- StatisticsCalculationService turns them into hero_pick_counts before the views are refreshed,
+-- and the views read pick_count / player_count from there.
+
+-- ============================================
+-- SKETCHES
+-- ============================================
+
+-- sketch_date 1970-01-01 holds the all-time sketch, hero_id 0 counts players of any hero
+-- (pick-rate denominators), sr_bracket is a RankCategory name or 'UNRANKED'
+CREATE TABLE IF NOT EXISTS hero_pick_sketches (
+    sketch_date DATE NOT NULL,
+    hero_id SMALLINT NOT NULL,
+    game_mode_id SMALLINT NOT NULL,
+    platform_id SMALLINT NOT NULL,
+    sr_bracket VARCHAR(20) NOT NULL,
+    sketch BYTEA NOT NULL,
+    PRIMARY KEY (sketch_date, game_mode_id, hero_id, platform_id, sr_bracket)
+);
+
+-- ============================================
+-- PICK COUNTS (read by the views)
+-- ============================================
+
+-- hero_id 0 = players of any hero, platform_id 0 = all platforms, sr_bracket 'ALL_RANKS' = all brackets
+CREATE TABLE IF NOT EXISTS hero_pick_counts (
+    game_mode_id SMALLINT NOT NULL,
+    platform_id SMALLINT NOT NULL,
+    sr_bracket VARCHAR(20) NOT NULL,
+    hero_id SMALLINT NOT NULL,
+    pick_count INTEGER NOT NULL,
+    calculated_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (game_mode_id, platform_id, sr_bracket, hero_id)
+);
+
+-- Exact counts to start from; the sketches are backfilled by the application on startup
+INSERT INTO hero_pick_counts (game_mode_id, platform_id, sr_bracket, hero_id, pick_count)
+WITH bracketed AS (
+    SELECT
+        hs.player_id,
+        hs.hero_id,
+        hs.game_mode_id,
+        hs.platform_id,
+        sr_bracket_of(p.skill_rating) as sr_bracket
+    FROM hero_stats hs
+    JOIN players p ON p.player_id = hs.player_id
+    WHERE hs.time_played > 0
+)
+SELECT
+    game_mode_id,
+    COALESCE(platform_id, 0),
+    COALESCE(sr_bracket, 'ALL_RANKS'),
+    COALESCE(hero_id, 0),
+    COUNT(DISTINCT player_id)
+FROM bracketed
+GROUP BY game_mode_id, CUBE(hero_id, platform_id, sr_bracket)
+ON CONFLICT DO NOTHING;
+
+-- ============================================
+-- VIEWS: pick counts from hero_pick_counts
+-- ============================================
+
+DROP MATERIALIZED VIEW IF EXISTS hero_statistics;
+DROP MATERIALIZED VIEW IF EXISTS hero_statistics_bracketed;
+
+CREATE MATERIALIZED VIEW hero_statistics AS
+WITH per_hero AS (
+    SELECT
+        hero_id,
+        game_mode_id,
+        SUM(COALESCE(wins, 0) + COALESCE(losses, 0) + COALESCE(draws, 0)) as total_games_played,
+        SUM(COALESCE(wins, 0)) as total_wins,
+        SUM(COALESCE(losses, 0)) as total_losses,
+        (CASE
+            WHEN SUM(COALESCE(wins, 0) + COALESCE(losses, 0)) > 0
+            THEN CAST(SUM(COALESCE(wins, 0)) AS FLOAT) / SUM(COALESCE(wins, 0) + COALESCE(losses, 0)) * 100
+            ELSE 0
+        END)::DECIMAL(5,2) as win_rate,
+        AVG(CASE WHEN time_played > 0 THEN eliminations::float / (time_played / 60.0) ELSE 0 END)::DECIMAL(10,2) as avg_eliminations,
+        AVG(CASE WHEN time_played > 0 THEN deaths::float / (time_played / 60.0) ELSE 0 END)::DECIMAL(10,2) as avg_deaths,
+        AVG(CASE WHEN time_played > 0 THEN assists::float / (time_played / 60.0) ELSE 0 END)::DECIMAL(10,2) as avg_assists,
+        AVG(
+            CASE
+                WHEN deaths > 0 THEN (eliminations + assists)::float / deaths
+                WHEN eliminations + assists > 0 THEN (eliminations + assists)::float
+                ELSE 0
+            END
+        )::DECIMAL(10,2) as avg_kda
+    FROM hero_stats
+    WHERE time_played >= 0
+    GROUP BY hero_id, game_mode_id
+)
+SELECT
+    h.hero_key,
+    gm.game_mode,
+    ph.total_games_played,
+    ph.total_wins,
+    ph.total_losses,
+    COALESCE(pc.pick_count, 0) as pick_count,
+    LEAST(CAST(COALESCE(pc.pick_count, 0) AS FLOAT) /
+        NULLIF((SELECT COUNT(*) FROM players), 0) * 100, 100)::DECIMAL(5,2) as pick_rate,
+    ph.win_rate,
+    ph.avg_eliminations,
+    ph.avg_deaths,
+    ph.avg_assists,
+    ph.avg_kda,
+    NOW()::TIMESTAMP as last_calculated
+FROM per_hero ph
+JOIN heroes h ON h.hero_id = ph.hero_id
+JOIN game_modes gm ON gm.game_mode_id = ph.game_mode_id
+LEFT JOIN hero_pick_counts pc
+    ON pc.hero_id = ph.hero_id
+    AND pc.game_mode_id = ph.game_mode_id
+    AND pc.platform_id = 0
+    AND pc.sr_bracket = 'ALL_RANKS';
+
+CREATE UNIQUE INDEX idx_hero_statistics_pk
+    ON hero_statistics(hero_key, game_mode);
+
+CREATE INDEX idx_hero_statistics_meta
+    ON hero_statistics(game_mode, pick_rate DESC, win_rate DESC);
+
+-- platform_id 0 stands for the rolled-up 'all' rows
+CREATE MATERIALIZED VIEW hero_statistics_bracketed AS
+WITH bracketed AS (
+    SELECT
+        hs.hero_id,
+        hs.game_mode_id,
+        hs.platform_id,
+        sr_bracket_of(p.skill_rating) as sr_bracket,
+        COALESCE(hs.wins, 0) as wins,
+        COALESCE(hs.losses, 0) as losses,
+        COALESCE(hs.draws, 0) as draws,
+        hs.time_played,
+        hs.eliminations,
+        hs.deaths,
+        hs.assists
+    FROM hero_stats hs
+    JOIN players p ON p.player_id = hs.player_id
+    WHERE hs.time_played >= 0
+),
+hero_cube AS (
+    SELECT
+        hero_id,
+        game_mode_id,
+        COALESCE(platform_id, 0) as platform_id,
+        COALESCE(sr_bracket, 'ALL_RANKS') as sr_bracket,
+        SUM(wins + losses + draws) as total_games_played,
+        SUM(wins) as total_wins,
+        SUM(losses) as total_losses,
+        CASE
+            WHEN SUM(wins + losses) > 0
+            THEN CAST(SUM(wins) AS FLOAT) / SUM(wins + losses) * 100
+            ELSE 0
+        END as win_rate,
+        AVG(CASE WHEN time_played > 0 THEN eliminations::float / (time_played / 60.0) ELSE 0 END) as avg_eliminations,
+        AVG(CASE WHEN time_played > 0 THEN deaths::float / (time_played / 60.0) ELSE 0 END) as avg_deaths,
+        AVG(CASE WHEN time_played > 0 THEN assists::float / (time_played / 60.0) ELSE 0 END) as avg_assists,
+        AVG(
+            CASE
+                WHEN deaths > 0 THEN (eliminations + assists)::float / deaths
+                WHEN eliminations + assists > 0 THEN (eliminations + assists)::float
+                ELSE 0
+            END
+        ) as avg_kda
+    FROM bracketed
+    GROUP BY hero_id, game_mode_id, CUBE(platform_id, sr_bracket)
+)
+SELECT
+    gm.game_mode,
+    hc.sr_bracket,
+    COALESCE(pf.platform, 'all') as platform,
+    h.hero_key,
+    hc.total_games_played,
+    hc.total_wins,
+    hc.total_losses,
+    COALESCE(pc.pick_count, 0) as pick_count,
+    LEAST(CAST(COALESCE(pc.pick_count, 0) AS FLOAT) / NULLIF(bp.pick_count, 0) * 100, 100)::DECIMAL(5,2) as pick_rate,
+    hc.win_rate::DECIMAL(5,2) as win_rate,
+    hc.avg_eliminations::DECIMAL(10,2) as avg_eliminations,
+    hc.avg_deaths::DECIMAL(10,2) as avg_deaths,
+    hc.avg_assists::DECIMAL(10,2) as avg_assists,
+    hc.avg_kda::DECIMAL(10,2) as avg_kda,
+    NOW()::TIMESTAMP as last_calculated
+FROM hero_cube hc
+LEFT JOIN hero_pick_counts pc
+    ON pc.game_mode_id = hc.game_mode_id
+    AND pc.platform_id = hc.platform_id
+    AND pc.sr_bracket = hc.sr_bracket
+    AND pc.hero_id = hc.hero_id
+LEFT JOIN hero_pick_counts bp
+    ON bp.game_mode_id = hc.game_mode_id
+    AND bp.platform_id = hc.platform_id
+    AND bp.sr_bracket = hc.sr_bracket
+    AND bp.hero_id = 0
+JOIN heroes h ON h.hero_id = hc.hero_id
+JOIN game_modes gm ON gm.game_mode_id = hc.game_mode_id
+LEFT JOIN platforms pf ON pf.platform_id = hc.platform_id;
+
+CREATE UNIQUE INDEX idx_hero_statistics_bracketed_pk
+    ON hero_statistics_bracketed(game_mode, sr_bracket, platform, hero_key);
+
+CREATE INDEX idx_hero_statistics_bracketed_hero
+    ON hero_statistics_bracketed(hero_key, game_mode);
+
+ANALYZE hero_pick_counts;
@@ -0,0 +1,81 @@
+-- V12: Running hero totals per (game mode, SR bracket, hero)
+-- Ingest accumulates what each hero_stats upsert changed (new row minus the row it replaced);
+-- HeroAggregateService adds those deltas here every few seconds in one small transaction.
+-- Writes stay O(heroes) per interval whatever the ingest rate, and the totals are near-real-time
+-- instead of waiting for the next materialized view refresh.
+
+-- ============================================
+-- TOTALS
+-- ============================================
+
+-- Games played is wins + losses + draws; sr_bracket is a RankCategory name or 'UNRANKED',
+-- the bracket the player was in at their latest snapshot
+CREATE TABLE IF NOT EXISTS hero_aggregates (
+    game_mode_id SMALLINT NOT NULL,
+    sr_bracket VARCHAR(20) NOT NULL,
+    hero_id SMALLINT NOT NULL,
+    wins BIGINT NOT NULL DEFAULT 0,
+    losses BIGINT NOT NULL DEFAULT 0,
+    draws BIGINT NOT NULL DEFAULT 0,
+    time_played BIGINT NOT NULL DEFAULT 0,
+    eliminations BIGINT NOT NULL DEFAULT 0,
+    deaths BIGINT NOT NULL DEFAULT 0,
+    assists BIGINT NOT NULL DEFAULT 0,
+    damage_dealt BIGINT NOT NULL DEFAULT 0,
+    healing_done BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (game_mode_id, sr_bracket, hero_id)
+);
+
+-- ============================================
+-- FLUSH LEDGER
+-- ============================================
+
+-- One row per applied flush. A flush that is retried after an unknown outcome (e.g. the
+-- connection dropped during commit) finds its sequence here and is not added twice.
+CREATE TABLE IF NOT EXISTS hero_aggregate_flushes (
+    flusher_id UUID NOT NULL,
+    sequence BIGINT NOT NULL,
+    key_count INTEGER NOT NULL,
+    flushed_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (flusher_id, sequence)
+);
+
+-- ============================================
+-- BRACKET EACH hero_stats ROW IS COUNTED IN
+-- ============================================
+
+-- When a player changes bracket, ingest takes the stored row out of this bracket and adds
+-- the new one to the player's current bracket
+ALTER TABLE hero_stats ADD COLUMN IF NOT EXISTS aggregate_bracket VARCHAR(20);
+
+UPDATE hero_stats hs
+SET aggregate_bracket = sr_bracket_of(p.skill_rating)
+FROM players p
+WHERE p.player_id = hs.player_id;
+
+-- ============================================
+-- SEED FROM hero_stats
+-- ============================================
+
+INSERT INTO hero_aggregates (game_mode_id, sr_bracket, hero_id, wins, losses, draws, time_played,
+                             eliminations, deaths, assists, damage_dealt, healing_done)
+SELECT
+    hs.game_mode_id,
+    hs.aggregate_bracket,
+    hs.hero_id,
+    SUM(hs.wins),
+    SUM(hs.losses),
+    SUM(hs.draws),
+    SUM(hs.time_played),
+    SUM(hs.eliminations),
+    SUM(hs.deaths),
+    SUM(hs.assists),
+    SUM(hs.damage_dealt),
+    SUM(hs.healing_done)
+FROM hero_stats hs
+WHERE hs.aggregate_bracket IS NOT NULL
+GROUP BY 1, 2, 3
+ON CONFLICT DO NOTHING;
+
+ANALYZE hero_aggregates;
@@ -0,0 +1,31 @@
+-- V13: Per-player activity summary, written by ingest with the player row
+-- The recently-active feed (PlayerActivityFeed) reads these instead of running two
+-- correlated subqueries on hero_stats for every player it lists.
+
+-- ============================================
+-- PLAYERS TABLE: summary columns
+-- ============================================
+
+-- Hero with the most time played across game modes; total games is wins + losses
+ALTER TABLE players ADD COLUMN IF NOT EXISTS most_played_hero_id SMALLINT;
+ALTER TABLE players ADD COLUMN IF NOT EXISTS total_games INTEGER;
+
+-- ============================================
+-- BACKFILL
+-- ============================================
+
+UPDATE players p
+SET most_played_hero_id = s.hero_id,
+    total_games = s.total_games
+FROM (
+    SELECT DISTINCT ON (player_id)
+           player_id,
+           hero_id,
+           SUM(SUM(wins + losses)) OVER (PARTITION BY player_id) AS total_games
+    FROM hero_stats
+    GROUP BY player_id, hero_id
+    ORDER BY player_id, SUM(time_played) DESC, hero_id
+) s
+WHERE s.player_id = p.player_id;
+
+ANALYZE players;
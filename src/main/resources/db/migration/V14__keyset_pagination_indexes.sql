@@ -0,0 +1,23 @@
+-- V14: Indexes for keyset (seek) pagination of player lists
+-- Pages are read as "the next N rows after (sort value, player_id)". With player_id as the
+-- last index column, each page is one index range scan from the cursor, however deep it is,
+-- instead of an OFFSET that reads and discards every earlier row.
+
+-- ============================================
+-- PLAYERS TABLE INDEXES
+-- ============================================
+
+-- Leaderboards: by platform, highest skill rating first, ties by player id
+CREATE INDEX IF NOT EXISTS idx_players_platform_sr_id
+    ON players(platform, skill_rating DESC, player_id DESC)
+    WHERE skill_rating IS NOT NULL;
+
+DROP INDEX IF EXISTS idx_players_platform_sr;
+
+-- Recent players: most recently updated first, ties by player id
+CREATE INDEX IF NOT EXISTS idx_players_last_updated_id
+    ON players(last_updated DESC, player_id DESC);
+
+DROP INDEX IF EXISTS idx_players_last_updated;
+
+ANALYZE players;
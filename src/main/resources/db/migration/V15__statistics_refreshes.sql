@@ -0,0 +1,17 @@
+-- V15: Statistics refresh marker shared by every instance
+-- The instance that recomputes statistics bumps it after a refresh; the others (API-only
+-- instances never see the recompute event) poll it and drop their cached statistics when
+-- it moves.
+
+-- ============================================
+-- STATISTICS REFRESHES TABLE
+-- ============================================
+
+-- Single row: the id column only accepts TRUE
+CREATE TABLE IF NOT EXISTS statistics_refreshes (
+    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    generation BIGINT NOT NULL DEFAULT 0,
+    refreshed_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+INSERT INTO statistics_refreshes (id) VALUES (TRUE) ON CONFLICT DO NOTHING;
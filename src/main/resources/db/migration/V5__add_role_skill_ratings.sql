@@ -0,0 +1,45 @@
+-- V5: Store per-role competitive ratings instead of only the highest SR
+-- skill_rating keeps the highest role rating for backwards compatibility
+
+-- ============================================
+-- PLAYERS TABLE: per-role rating columns
+-- ============================================
+
+ALTER TABLE players ADD COLUMN IF NOT EXISTS tank_rating SMALLINT;
+ALTER TABLE players ADD COLUMN IF NOT EXISTS damage_rating SMALLINT;
+ALTER TABLE players ADD COLUMN IF NOT EXISTS support_rating SMALLINT;
+ALTER TABLE players ADD COLUMN IF NOT EXISTS open_rating SMALLINT;
+
+-- Partial indexes: only ranked players in that role are indexed
+CREATE INDEX IF NOT EXISTS idx_players_tank_rating
+    ON players(tank_rating DESC)
+    WHERE tank_rating IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_players_damage_rating
+    ON players(damage_rating DESC)
+    WHERE damage_rating IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_players_support_rating
+    ON players(support_rating DESC)
+    WHERE support_rating IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_players_open_rating
+    ON players(open_rating DESC)
+    WHERE open_rating IS NOT NULL;
+
+-- ============================================
+-- RANK_DISTRIBUTION TABLE: role dimension
+-- ============================================
+
+-- Existing rows are the role-agnostic (highest SR) distribution
+ALTER TABLE rank_distribution ADD COLUMN IF NOT EXISTS role VARCHAR(20) NOT NULL DEFAULT 'all';
+
+ALTER TABLE rank_distribution DROP CONSTRAINT IF EXISTS rank_distribution_pkey;
+ALTER TABLE rank_distribution ADD PRIMARY KEY (sr_bracket, snapshot_date, role);
+
+DROP INDEX IF EXISTS idx_rank_distribution_time_series;
+CREATE INDEX IF NOT EXISTS idx_rank_distribution_time_series
+    ON rank_distribution(snapshot_date DESC, role, sr_bracket);
+
+ANALYZE players;
+ANALYZE rank_distribution;
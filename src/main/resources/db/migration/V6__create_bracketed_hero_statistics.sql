@@ -0,0 +1,29 @@
+-- V6: Hero statistics cube over (hero_key, game_mode, sr_bracket, platform)
+-- sr_bracket holds RankCategory names; 'ALL_RANKS' and platform 'all' are the rolled-up rows
+
+CREATE TABLE IF NOT EXISTS hero_statistics_bracketed (
+    game_mode VARCHAR(20) NOT NULL,
+    sr_bracket VARCHAR(20) NOT NULL,
+    platform VARCHAR(20) NOT NULL,
+    hero_key VARCHAR(50) NOT NULL,
+    total_games_played BIGINT DEFAULT 0,
+    total_wins BIGINT DEFAULT 0,
+    total_losses BIGINT DEFAULT 0,
+    pick_count INTEGER DEFAULT 0,
+    pick_rate DECIMAL(5,2) DEFAULT 0.00,
+    win_rate DECIMAL(5,2) DEFAULT 0.00,
+    avg_eliminations DECIMAL(10,2) DEFAULT 0.00,
+    avg_deaths DECIMAL(10,2) DEFAULT 0.00,
+    avg_assists DECIMAL(10,2) DEFAULT 0.00,
+    avg_kda DECIMAL(10,2) DEFAULT 0.00,
+    last_calculated TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- Leading columns match the read path: point lookup by mode, bracket and platform
+    PRIMARY KEY (game_mode, sr_bracket, platform, hero_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hero_statistics_bracketed_hero
+    ON hero_statistics_bracketed(hero_key, game_mode);
+
+-- Joining hero_stats to players by bracket needs the SR next to the key
+CREATE INDEX IF NOT EXISTS idx_players_id_skill_rating
+    ON players(player_id, skill_rating);
@@ -0,0 +1,157 @@
+-- V7: Re-base hero aggregates on materialized views
+-- StatisticsCalculationService refreshes them with REFRESH MATERIALIZED VIEW CONCURRENTLY,
+-- which needs a unique index and never blocks readers of the previous contents.
+-- hero_trends and rank_distribution stay tables: they keep daily history.
+
+DROP TABLE IF EXISTS hero_statistics;
+DROP TABLE IF EXISTS hero_statistics_bracketed;
+
+-- ============================================
+-- SR BRACKET FUNCTION
+-- ============================================
+
+-- The one SQL copy of the RankCategory bounds (min inclusive, max exclusive); NULL SR is
+-- UNRANKED. Views, seeds and StatisticsCalculationService queries call it.
+CREATE OR REPLACE FUNCTION sr_bracket_of(skill_rating INTEGER) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE
+AS $$
+    SELECT CASE
+        WHEN skill_rating IS NULL THEN 'UNRANKED'
+        WHEN skill_rating < 1500 THEN 'BRONZE'
+        WHEN skill_rating < 2000 THEN 'SILVER'
+        WHEN skill_rating < 2500 THEN 'GOLD'
+        WHEN skill_rating < 3000 THEN 'PLATINUM'
+        WHEN skill_rating < 3500 THEN 'DIAMOND'
+        WHEN skill_rating < 4000 THEN 'MASTER'
+        WHEN skill_rating < 4500 THEN 'GRANDMASTER'
+        ELSE 'CHAMPION'
+    END
+$$;
+
+-- ============================================
+-- HERO_STATISTICS: per hero and game mode
+-- ============================================
+
+CREATE MATERIALIZED VIEW hero_statistics AS
+SELECT 
+    hero_key,
+    game_mode,
+    SUM(COALESCE(wins, 0) + COALESCE(losses, 0) + COALESCE(draws, 0)) as total_games_played,
+    SUM(COALESCE(wins, 0)) as total_wins,
+    SUM(COALESCE(losses, 0)) as total_losses,
+    COUNT(DISTINCT player_id)::INTEGER as pick_count,
+    (CAST(COUNT(DISTINCT player_id) AS FLOAT) / 
+        NULLIF((SELECT COUNT(DISTINCT player_id) FROM players), 0) * 100)::DECIMAL(5,2) as pick_rate,
+    (CASE 
+        WHEN SUM(COALESCE(wins, 0) + COALESCE(losses, 0)) > 0 
+        THEN CAST(SUM(COALESCE(wins, 0)) AS FLOAT) / SUM(COALESCE(wins, 0) + COALESCE(losses, 0)) * 100
+        ELSE 0 
+    END)::DECIMAL(5,2) as win_rate,
+    AVG(CASE WHEN time_played > 0 THEN eliminations::float / (time_played / 60.0) ELSE 0 END)::DECIMAL(10,2) as avg_eliminations,
+    AVG(CASE WHEN time_played > 0 THEN deaths::float / (time_played / 60.0) ELSE 0 END)::DECIMAL(10,2) as avg_deaths,
+    AVG(CASE WHEN time_played > 0 THEN assists::float / (time_played / 60.0) ELSE 0 END)::DECIMAL(10,2) as avg_assists,
+    AVG(
+        CASE 
+            WHEN deaths > 0 THEN (eliminations + assists)::float / deaths
+            WHEN eliminations + assists > 0 THEN (eliminations + assists)::float
+            ELSE 0 
+        END
+    )::DECIMAL(10,2) as avg_kda,
+    NOW()::TIMESTAMP as last_calculated
+FROM hero_stats
+WHERE time_played >= 0
+GROUP BY hero_key, game_mode;
+
+CREATE UNIQUE INDEX idx_hero_statistics_pk 
+    ON hero_statistics(hero_key, game_mode);
+
+CREATE INDEX idx_hero_statistics_meta 
+    ON hero_statistics(game_mode, pick_rate DESC, win_rate DESC);
+
+-- ============================================
+-- HERO_STATISTICS_BRACKETED: cube over platform and SR bracket
+-- ============================================
+
+CREATE MATERIALIZED VIEW hero_statistics_bracketed AS
+WITH bracketed AS (
+    SELECT 
+        hs.player_id,
+        hs.hero_key,
+        hs.game_mode,
+        hs.platform,
+        sr_bracket_of(p.skill_rating) as sr_bracket,
+        COALESCE(hs.wins, 0) as wins,
+        COALESCE(hs.losses, 0) as losses,
+        COALESCE(hs.draws, 0) as draws,
+        hs.time_played,
+        hs.eliminations,
+        hs.deaths,
+        hs.assists
+    FROM hero_stats hs
+    JOIN players p ON p.player_id = hs.player_id
+    WHERE hs.time_played >= 0
+),
+bracket_players AS (
+    SELECT 
+        game_mode,
+        COALESCE(platform, 'all') as platform,
+        COALESCE(sr_bracket, 'ALL_RANKS') as sr_bracket,
+        COUNT(DISTINCT player_id) as player_count
+    FROM bracketed
+    GROUP BY game_mode, CUBE(platform, sr_bracket)
+),
+hero_cube AS (
+    SELECT 
+        hero_key,
+        game_mode,
+        COALESCE(platform, 'all') as platform,
+        COALESCE(sr_bracket, 'ALL_RANKS') as sr_bracket,
+        SUM(wins + losses + draws) as total_games_played,
+        SUM(wins) as total_wins,
+        SUM(losses) as total_losses,
+        COUNT(DISTINCT player_id) as pick_count,
+        CASE 
+            WHEN SUM(wins + losses) > 0 
+            THEN CAST(SUM(wins) AS FLOAT) / SUM(wins + losses) * 100
+            ELSE 0 
+        END as win_rate,
+        AVG(CASE WHEN time_played > 0 THEN eliminations::float / (time_played / 60.0) ELSE 0 END) as avg_eliminations,
+        AVG(CASE WHEN time_played > 0 THEN deaths::float / (time_played / 60.0) ELSE 0 END) as avg_deaths,
+        AVG(CASE WHEN time_played > 0 THEN assists::float / (time_played / 60.0) ELSE 0 END) as avg_assists,
+        AVG(
+            CASE 
+                WHEN deaths > 0 THEN (eliminations + assists)::float / deaths
+                WHEN eliminations + assists > 0 THEN (eliminations + assists)::float
+                ELSE 0 
+            END
+        ) as avg_kda
+    FROM bracketed
+    GROUP BY hero_key, game_mode, CUBE(platform, sr_bracket)
+)
+SELECT 
+    hc.game_mode,
+    hc.sr_bracket,
+    hc.platform,
+    hc.hero_key,
+    hc.total_games_played,
+    hc.total_wins,
+    hc.total_losses,
+    hc.pick_count::INTEGER as pick_count,
+    (CAST(hc.pick_count AS FLOAT) / NULLIF(bp.player_count, 0) * 100)::DECIMAL(5,2) as pick_rate,
+    hc.win_rate::DECIMAL(5,2) as win_rate,
+    hc.avg_eliminations::DECIMAL(10,2) as avg_eliminations,
+    hc.avg_deaths::DECIMAL(10,2) as avg_deaths,
+    hc.avg_assists::DECIMAL(10,2) as avg_assists,
+    hc.avg_kda::DECIMAL(10,2) as avg_kda,
+    NOW()::TIMESTAMP as last_calculated
+FROM hero_cube hc
+JOIN bracket_players bp 
+    ON bp.game_mode = hc.game_mode
+    AND bp.platform = hc.platform
+    AND bp.sr_bracket = hc.sr_bracket;
+
+CREATE UNIQUE INDEX idx_hero_statistics_bracketed_pk 
+    ON hero_statistics_bracketed(game_mode, sr_bracket, platform, hero_key);
+
+CREATE INDEX idx_hero_statistics_bracketed_hero 
+    ON hero_statistics_bracketed(hero_key, game_mode);
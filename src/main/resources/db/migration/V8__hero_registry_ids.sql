@@ -0,0 +1,87 @@
+-- V8: Dense integer ids for heroes, the single source of hero metadata (HeroRegistry)
+-- Ids are never reused or renumbered, so stats tables can store them instead of hero_key
+
+CREATE SEQUENCE IF NOT EXISTS heroes_hero_id_seq AS SMALLINT;
+
+ALTER TABLE heroes ADD COLUMN IF NOT EXISTS hero_id SMALLINT;
+
+-- ============================================
+-- SEED: roster known at the time of writing
+-- OverFast /heroes sync fills in portraits and any heroes released later
+-- ============================================
+
+INSERT INTO heroes (hero_key, name, role) VALUES
+    -- Tank
+    ('dva', 'D.Va', 'tank'),
+    ('doomfist', 'Doomfist', 'tank'),
+    ('hazard', 'Hazard', 'tank'),
+    ('junker-queen', 'Junker Queen', 'tank'),
+    ('mauga', 'Mauga', 'tank'),
+    ('orisa', 'Orisa', 'tank'),
+    ('ramattra', 'Ramattra', 'tank'),
+    ('reinhardt', 'Reinhardt', 'tank'),
+    ('roadhog', 'Roadhog', 'tank'),
+    ('sigma', 'Sigma', 'tank'),
+    ('winston', 'Winston', 'tank'),
+    ('wrecking-ball', 'Wrecking Ball', 'tank'),
+    ('zarya', 'Zarya', 'tank'),
+    -- Damage
+    ('ashe', 'Ashe', 'damage'),
+    ('bastion', 'Bastion', 'damage'),
+    ('cassidy', 'Cassidy', 'damage'),
+    ('echo', 'Echo', 'damage'),
+    ('freja', 'Freja', 'damage'),
+    ('genji', 'Genji', 'damage'),
+    ('hanzo', 'Hanzo', 'damage'),
+    ('junkrat', 'Junkrat', 'damage'),
+    ('mei', 'Mei', 'damage'),
+    ('pharah', 'Pharah', 'damage'),
+    ('reaper', 'Reaper', 'damage'),
+    ('sojourn', 'Sojourn', 'damage'),
+    ('soldier-76', 'Soldier: 76', 'damage'),
+    ('sombra', 'Sombra', 'damage'),
+    ('symmetra', 'Symmetra', 'damage'),
+    ('torbjorn', 'Torbjörn', 'damage'),
+    ('tracer', 'Tracer', 'damage'),
+    ('venture', 'Venture', 'damage'),
+    ('widowmaker', 'Widowmaker', 'damage'),
+    -- Support
+    ('ana', 'Ana', 'support'),
+    ('baptiste', 'Baptiste', 'support'),
+    ('brigitte', 'Brigitte', 'support'),
+    ('illari', 'Illari', 'support'),
+    ('juno', 'Juno', 'support'),
+    ('kiriko', 'Kiriko', 'support'),
+    ('lifeweaver', 'Lifeweaver', 'support'),
+    ('lucio', 'Lúcio', 'support'),
+    ('mercy', 'Mercy', 'support'),
+    ('moira', 'Moira', 'support'),
+    ('zenyatta', 'Zenyatta', 'support')
+ON CONFLICT (hero_key) DO NOTHING;
+
+-- Heroes that arrived through hero_stats but never made it into the table
+INSERT INTO heroes (hero_key, name, role)
+SELECT DISTINCT hs.hero_key, INITCAP(REPLACE(hs.hero_key, '-', ' ')), 'damage'
+FROM hero_stats hs
+ON CONFLICT (hero_key) DO NOTHING;
+
+-- ============================================
+-- BACKFILL: number existing heroes, then hand out new ids from the sequence
+-- ============================================
+
+UPDATE heroes h
+SET hero_id = numbered.hero_id
+FROM (
+    SELECT hero_key, ROW_NUMBER() OVER (ORDER BY hero_key) AS hero_id
+    FROM heroes
+    WHERE hero_id IS NULL
+) numbered
+WHERE h.hero_key = numbered.hero_key;
+
+SELECT setval('heroes_hero_id_seq', COALESCE((SELECT MAX(hero_id) FROM heroes), 0) + 1, false);
+
+ALTER TABLE heroes ALTER COLUMN hero_id SET DEFAULT nextval('heroes_hero_id_seq');
+ALTER TABLE heroes ALTER COLUMN hero_id SET NOT NULL;
+ALTER SEQUENCE heroes_hero_id_seq OWNED BY heroes.hero_id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_heroes_hero_id ON heroes(hero_id);
@@ -0,0 +1,124 @@
+package com.owmetagg.perf;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.owmetagg.services.IngestDiagnostics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Cost of ingest logging per message: Jackson parse of a player payload plus the log lines
+ * written for it, to a file, without database work.
+ *
+ * "old" writes the per-message INFO lines ingest wrote before sampling, including the full
+ * player JSON and its stats subtree, through a synchronous file appender. "new" writes the
+ * current lines: DEBUG per message (off at INFO) plus the sampled INFO lines of
+ * IngestDiagnostics, through a never-blocking AsyncAppender as in logback-spring.xml.
+ *
+ * mvn -Pperf test-compile exec:exec -Dperf.benchmark=IngestLoggingBenchmark -Dperf.args="old 5000"
+ */
+public class IngestLoggingBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        boolean sampled = args.length > 0 && args[0].equals("new");
+        int messages = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        String payload = objectMapper.writeValueAsString(SyntheticPayloads.player(objectMapper, 40));
+        Path logFile = Files.createTempFile("ingest-logging-", ".log");
+
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%t] %-40.40logger{39} : %m%n");
+        encoder.start();
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(logFile.toString());
+        file.setEncoder(encoder);
+        file.start();
+
+        ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        if (sampled) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addAppender(file);
+            async.start();
+            root.addAppender(async);
+        } else {
+            root.addAppender(file);
+        }
+
+        Logger log = LoggerFactory.getLogger("com.owmetagg.services.PlayerProcessingService");
+        IngestDiagnostics diagnostics = new IngestDiagnostics(100, 100, 100, false, 50, 65536);
+
+        System.out.printf("payload %d chars, %s logging, %d messages per round%n",
+                payload.length(), sampled ? "new" : "old", messages);
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < messages; i++) {
+                String battletag = "Player#" + i;
+                JsonNode json = objectMapper.readTree(payload);
+                if (sampled) {
+                    logSampled(log, diagnostics, battletag, json);
+                } else {
+                    logEveryMessage(log, battletag, json);
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("round %d: %.0f msgs/s%n", round, messages / seconds);
+        }
+        context.stop();
+
+        System.out.printf("log written: %d KB%n", Files.size(logFile) / 1024);
+        Files.delete(logFile);
+    }
+
+    private static void logEveryMessage(Logger log, String battletag, JsonNode json) {
+        log.info("Received player data from RabbitMQ: {}, timestamp: {}", battletag, "now");
+        log.info("🔄 Processing player data for: {}", battletag);
+        log.info("🔍 Full player JSON for {}: {}", battletag, json.toString());
+        log.info("📊 Stats structure for {}: {}", battletag, json.get("stats").toString());
+        log.info("🎮 Available platforms in stats: {}", json.get("stats").fieldNames());
+        log.info("🎯 Available game modes for {}: {}", battletag, json.get("stats").get("pc").fieldNames());
+        log.info("💪 Processing competitive stats for {}", battletag);
+        log.info("⚡ Processing quickplay stats for {}", battletag);
+        log.info("📊 Extracted {} hero stats entries for: {}", 80, battletag);
+        log.info("⚡ Player Bulk Upsert: {} ms, Processed Players: {}", 3, 1);
+        log.info("⚡ HeroStats Bulk Upsert: {} ms, Processed HeroStats: {}", 5, 80);
+        log.info("✅ Successfully processed player: {}", battletag);
+    }
+
+    private static void logSampled(Logger log, IngestDiagnostics diagnostics, String battletag, JsonNode json) {
+        log.debug("🔄 Processing player data for: {}", battletag);
+        log.debug("🎮 Available platforms in stats: {}", json.get("stats").fieldNames());
+        log.debug("🎯 Available game modes for {}: {}", battletag, json.get("stats").get("pc").fieldNames());
+        diagnostics.sample(log, IngestDiagnostics.Stage.EXTRACT, battletag)
+                .addKeyValue("heroStats", 80)
+                .log("📊 Extracted {} hero stats entries for: {}", 80, battletag);
+        diagnostics.sample(log, IngestDiagnostics.Stage.WRITE, null)
+                .addKeyValue("table", "players")
+                .log("⚡ Player Bulk Upsert: {} ms, Processed Players: {}", 3, 1);
+        diagnostics.sample(log, IngestDiagnostics.Stage.WRITE, null)
+                .addKeyValue("table", "hero_stats")
+                .log("⚡ HeroStats Bulk Upsert: {} ms, Processed HeroStats: {}", 5, 80);
+        diagnostics.sample(log, IngestDiagnostics.Stage.RECEIVE, battletag)
+                .addKeyValue("elapsedMs", 9)
+                .log("📥 Processed player data from RabbitMQ: {} in {} ms", battletag, 9);
+    }
+}
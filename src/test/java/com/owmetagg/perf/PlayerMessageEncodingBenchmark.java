@@ -0,0 +1,103 @@
+package com.owmetagg.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.owmetagg.configurations.PlayerIngestMessageConverter;
+import com.owmetagg.dtos.PlayerIngestMessage;
+import com.owmetagg.utils.PayloadEncoding;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size on the wire and consumer cost of one player message, without a broker.
+ *
+ * "envelope" is the old format: a PlayerDTO-shaped map with the OverFast JSON as an escaped
+ * string, written by Jackson2JsonMessageConverter and parsed twice on the consumer. The other
+ * rows go through PlayerIngestMessageConverter with each PayloadEncoding; decode is
+ * fromMessage plus one Jackson parse straight from the decompressing stream.
+ *
+ * mvn -Pperf test-compile exec:exec -Dperf.benchmark=PlayerMessageEncodingBenchmark -Dperf.args="2000"
+ */
+public class PlayerMessageEncodingBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.findAndRegisterModules();
+        byte[] payload = objectMapper.writeValueAsBytes(SyntheticPayloads.player(objectMapper, 40));
+        System.out.printf("payload %d bytes, %d messages per round%n", payload.length, messages);
+
+        Jackson2JsonMessageConverter jackson = new Jackson2JsonMessageConverter(objectMapper);
+        for (int round = 1; round <= ROUNDS; round++) {
+            Message envelope = null;
+            long start = System.nanoTime();
+            for (int i = 0; i < messages; i++) {
+                envelope = jackson.toMessage(envelope(payload), new MessageProperties());
+            }
+            long encodeNanos = (System.nanoTime() - start) / messages;
+
+            start = System.nanoTime();
+            for (int i = 0; i < messages; i++) {
+                JsonNode dto = objectMapper.readTree(envelope.getBody());
+                objectMapper.readTree(dto.get("rawPlayerData").asText());
+            }
+            report("envelope", round, envelope.getBody().length, encodeNanos, (System.nanoTime() - start) / messages);
+        }
+
+        for (PayloadEncoding encoding : PayloadEncoding.values()) {
+            PlayerIngestMessageConverter converter = new PlayerIngestMessageConverter(objectMapper, encoding, 1024);
+            for (int round = 1; round <= ROUNDS; round++) {
+                Message message = null;
+                long start = System.nanoTime();
+                for (int i = 0; i < messages; i++) {
+                    message = converter.toMessage(PlayerIngestMessage.builder()
+                            .battletag("Player#1234")
+                            .platform("pc")
+                            .fetchedAt(Instant.now())
+                            .body(payload)
+                            .build(), new MessageProperties());
+                }
+                long encodeNanos = (System.nanoTime() - start) / messages;
+
+                start = System.nanoTime();
+                for (int i = 0; i < messages; i++) {
+                    PlayerIngestMessage received = (PlayerIngestMessage) converter.fromMessage(message);
+                    try (InputStream body = received.getContentEncoding().decode(received.getBody())) {
+                        objectMapper.readTree(body);
+                    }
+                }
+                report(encoding.getHeader(), round, message.getBody().length, encodeNanos,
+                        (System.nanoTime() - start) / messages);
+            }
+        }
+    }
+
+    // PlayerDTO fields as queued before PlayerIngestMessage, all null but the ones ingest set
+    private static Map<String, Object> envelope(byte[] payload) {
+        Map<String, Object> dto = new LinkedHashMap<>();
+        for (String field : new String[]{"battletag", "username", "avatarUrl", "title", "endorsementLevel",
+                "currentRank", "skillRating", "lastUpdated", "isPrivate", "platform", "totalPlayTime",
+                "latestSession", "rawPlayerData", "playedHeroes", "recentSessions", "careerStats"}) {
+            dto.put(field, null);
+        }
+        dto.put("battletag", "Player#1234");
+        dto.put("platform", "pc");
+        dto.put("rawPlayerData", new String(payload, StandardCharsets.UTF_8));
+        return dto;
+    }
+
+    private static void report(String format, int round, int bytes, long encodeNanos, long decodeNanos) {
+        System.out.printf("%-9s round %d: %6d bytes, encode %5.0f us, decode + parse %5.0f us%n",
+                format, round, bytes, encodeNanos / 1e3, decodeNanos / 1e3);
+    }
+}
@@ -0,0 +1,45 @@
+package com.owmetagg.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Random;
+
+/**
+ * OverFast-shaped player documents for benchmarks: career stats of every hero in both game
+ * modes on pc. Values are random but seeded, so every run measures the same document.
+ * Keys and labels repeat far more than in real responses, so they compress better.
+ */
+final class SyntheticPayloads {
+
+    private SyntheticPayloads() {
+    }
+
+    static ObjectNode player(ObjectMapper objectMapper, int heroes) {
+        Random random = new Random(1);
+        ObjectNode root = objectMapper.createObjectNode();
+        root.putObject("summary").put("username", "Player");
+
+        ObjectNode stats = root.putObject("stats").putObject("pc");
+        for (String gameMode : new String[]{"competitive", "quickplay"}) {
+            ObjectNode careerStats = stats.putObject(gameMode).putObject("career_stats");
+            for (int hero = 0; hero < heroes; hero++) {
+                ArrayNode categories = careerStats.putArray("hero-" + hero);
+                for (int category = 0; category < 4; category++) {
+                    ObjectNode categoryNode = categories.addObject();
+                    categoryNode.put("category", "category_" + category);
+                    categoryNode.put("label", "Category " + category);
+                    ArrayNode values = categoryNode.putArray("stats");
+                    for (int stat = 0; stat < 3; stat++) {
+                        values.addObject()
+                                .put("key", "stat_key_" + stat)
+                                .put("label", "Stat Label " + stat)
+                                .put("value", random.nextInt(100_000));
+                    }
+                }
+            }
+        }
+        return root;
+    }
+}
@@ -0,0 +1,70 @@
+package com.owmetagg.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeroAggregateServiceTest {
+
+    private static final short COMPETITIVE = 2;
+    private static final short ANA = 7;
+
+    private final Map<HeroAggregateService.AggregateKey, long[]> deltas = new HashMap<>();
+
+    @Test
+    void newRowIsAddedToItsBracket() {
+        HeroAggregateService.addReplacement(deltas, COMPETITIVE, ANA, "GOLD", row(10, 600), null, null);
+
+        assertThat(deltas).containsOnlyKeys(key("GOLD"));
+        assertThat(deltas.get(key("GOLD"))).isEqualTo(row(10, 600));
+    }
+
+    @Test
+    void replacementInTheSameBracketAddsTheDifference() {
+        HeroAggregateService.addReplacement(deltas, COMPETITIVE, ANA, "GOLD", row(12, 700), "GOLD", row(10, 600));
+
+        assertThat(deltas).containsOnlyKeys(key("GOLD"));
+        assertThat(deltas.get(key("GOLD"))).isEqualTo(row(2, 100));
+    }
+
+    @Test
+    void playerChangingBracketMovesTheWholeRow() {
+        HeroAggregateService.addReplacement(deltas, COMPETITIVE, ANA, "PLATINUM", row(12, 700), "GOLD", row(10, 600));
+
+        assertThat(deltas).containsOnlyKeys(key("GOLD"), key("PLATINUM"));
+        assertThat(deltas.get(key("GOLD"))).isEqualTo(row(-10, -600));
+        assertThat(deltas.get(key("PLATINUM"))).isEqualTo(row(12, 700));
+    }
+
+    @Test
+    void rowWithoutARecordedBracketIsReplacedInTheCurrentOne() {
+        HeroAggregateService.addReplacement(deltas, COMPETITIVE, ANA, "PLATINUM", row(12, 700), null, row(10, 600));
+
+        assertThat(deltas).containsOnlyKeys(key("PLATINUM"));
+        assertThat(deltas.get(key("PLATINUM"))).isEqualTo(row(2, 100));
+    }
+
+    @Test
+    void deltasOfSeveralPlayersAccumulate() {
+        HeroAggregateService.addReplacement(deltas, COMPETITIVE, ANA, "PLATINUM", row(12, 700), "GOLD", row(10, 600));
+        HeroAggregateService.addReplacement(deltas, COMPETITIVE, ANA, "GOLD", row(5, 300), null, null);
+
+        assertThat(deltas.get(key("GOLD"))).isEqualTo(row(-5, -300));
+        assertThat(deltas.get(key("PLATINUM"))).isEqualTo(row(12, 700));
+    }
+
+    private static HeroAggregateService.AggregateKey key(String bracket) {
+        return new HeroAggregateService.AggregateKey(COMPETITIVE, bracket, ANA);
+    }
+
+    // Wins and time played; the other columns stay zero
+    private static long[] row(long wins, long timePlayed) {
+        long[] row = new long[HeroAggregateService.COLUMNS.size()];
+        row[HeroAggregateService.COLUMNS.indexOf("wins")] = wins;
+        row[HeroAggregateService.COLUMNS.indexOf("time_played")] = timePlayed;
+        return row;
+    }
+}
@@ -0,0 +1,113 @@
+package com.owmetagg.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void emptySketchCountsZero() {
+        HyperLogLog sketch = new HyperLogLog();
+
+        assertThat(sketch.isEmpty()).isTrue();
+        assertThat(sketch.cardinality()).isZero();
+    }
+
+    @Test
+    void addingAnIdAgainChangesNothing() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= 1000; id++) {
+            sketch.add(id);
+        }
+        byte[] before = sketch.toBytes();
+
+        for (long id = 1; id <= 1000; id++) {
+            sketch.add(id);
+        }
+
+        assertThat(sketch.toBytes()).isEqualTo(before);
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {10, 100, 1_000, 10_000, 100_000, 1_000_000})
+    void estimateIsWithinThreeStandardErrors(long count) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= count; id++) {
+            sketch.add(id);
+        }
+
+        double bound = 3 * sketch.relativeStandardError();
+        assertThat((double) sketch.cardinality()).isCloseTo(count, within(Math.max(1.0, count * bound)));
+    }
+
+    @Test
+    void mergeCountsTheUnion() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        // Overlap of 20_000 ids between the two halves
+        for (long id = 1; id <= 60_000; id++) {
+            first.add(id);
+            union.add(id);
+        }
+        for (long id = 40_001; id <= 100_000; id++) {
+            second.add(id);
+            union.add(id);
+        }
+
+        first.merge(second);
+
+        // Register-wise max: identical to a sketch fed every id directly
+        assertThat(first.toBytes()).isEqualTo(union.toBytes());
+        assertThat((double) first.cardinality()).isCloseTo(100_000, within(100_000 * 3 * first.relativeStandardError()));
+    }
+
+    @Test
+    void mergeIsIdempotent() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= 5_000; id++) {
+            sketch.add(id);
+        }
+        byte[] before = sketch.toBytes();
+
+        sketch.merge(HyperLogLog.fromBytes(before));
+
+        assertThat(sketch.toBytes()).isEqualTo(before);
+    }
+
+    @Test
+    void mergeRejectsOtherPrecision() {
+        assertThatThrownBy(() -> new HyperLogLog(12).merge(new HyperLogLog(14)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 50, 100_000})
+    void bytesRoundTrip(long count) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= count; id++) {
+            sketch.add(id);
+        }
+
+        HyperLogLog restored = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertThat(restored.toBytes()).isEqualTo(sketch.toBytes());
+        assertThat(restored.cardinality()).isEqualTo(sketch.cardinality());
+    }
+
+    @Test
+    void smallSketchesSerializeSparse() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= 50; id++) {
+            sketch.add(id);
+        }
+
+        // Precision and format bytes, then 3 bytes per set register
+        assertThat(sketch.toBytes().length).isLessThanOrEqualTo(2 + 50 * 3);
+    }
+}
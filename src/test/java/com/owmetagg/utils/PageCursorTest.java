@@ -0,0 +1,98 @@
+package com.owmetagg.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    @Test
+    void skillRatingRoundTrip() {
+        PageCursor cursor = PageCursor.of(4321, 987_654_321L);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode(), PageCursor.Kind.SKILL_RATING);
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.skillRating()).isEqualTo(4321);
+        assertThat(decoded.playerId()).isEqualTo(987_654_321L);
+    }
+
+    @Test
+    void lastUpdatedRoundTripKeepsMicroseconds() {
+        LocalDateTime lastUpdated = LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_897_000);
+        PageCursor cursor = PageCursor.of(lastUpdated, 42L);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode(), PageCursor.Kind.LAST_UPDATED);
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.lastUpdated()).isEqualTo(lastUpdated);
+    }
+
+    @Test
+    void lastUpdatedBeforeEpochRoundTrips() {
+        LocalDateTime lastUpdated = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000);
+
+        assertThat(PageCursor.of(lastUpdated, 1L).lastUpdated()).isEqualTo(lastUpdated);
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = PageCursor.of(-1, -1L).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "   "})
+    void blankTokenIsTheFirstPage(String token) {
+        assertThat(PageCursor.decode(token, PageCursor.Kind.SKILL_RATING)).isNull();
+        assertThat(PageCursor.decode(null, PageCursor.Kind.SKILL_RATING)).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not a cursor!", "AAAA", "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"})
+    void malformedTokenIsRejected(String token) {
+        assertThatThrownBy(() -> PageCursor.decode(token, PageCursor.Kind.SKILL_RATING))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid page cursor");
+    }
+
+    @Test
+    void cursorOfAnotherListIsRejected() {
+        String token = PageCursor.of(LocalDateTime.of(2025, 1, 1, 0, 0), 7L).encode();
+
+        assertThatThrownBy(() -> PageCursor.decode(token, PageCursor.Kind.SKILL_RATING))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.of(LocalDateTime.of(2025, 1, 1, 0, 0), 7L).skillRating())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void unknownKindIsRejected() {
+        String token = token((byte) PageCursor.Kind.values().length, 3000, 1L);
+
+        assertThatThrownBy(() -> PageCursor.decode(token, PageCursor.Kind.SKILL_RATING))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void skillRatingOutOfIntRangeIsRejected() {
+        String token = token((byte) PageCursor.Kind.SKILL_RATING.ordinal(), Integer.MAX_VALUE + 1L, 1L);
+
+        assertThatThrownBy(() -> PageCursor.decode(token, PageCursor.Kind.SKILL_RATING))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("out of range");
+    }
+
+    private static String token(byte kind, long sortValue, long playerId) {
+        byte[] bytes = ByteBuffer.allocate(17).put(kind).putLong(sortValue).putLong(playerId).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
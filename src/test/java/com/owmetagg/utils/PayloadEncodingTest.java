@@ -0,0 +1,75 @@
+package com.owmetagg.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PayloadEncodingTest {
+
+    private static final byte[] PAYLOAD = ("{\"summary\":{\"username\":\"Player\"},\"stats\":{\"pc\":"
+            + "{\"competitive\":{\"career_stats\":{}}}}}").repeat(200).getBytes(StandardCharsets.UTF_8);
+
+    @ParameterizedTest
+    @EnumSource(PayloadEncoding.class)
+    void roundTrip(PayloadEncoding encoding) throws Exception {
+        byte[] encoded = encoding.encode(PAYLOAD);
+
+        try (InputStream decoded = encoding.decode(encoded)) {
+            assertThat(decoded.readAllBytes()).isEqualTo(PAYLOAD);
+        }
+        assertThat(encoding.decodeToString(encoded)).isEqualTo(new String(PAYLOAD, StandardCharsets.UTF_8));
+    }
+
+    @ParameterizedTest
+    @EnumSource(PayloadEncoding.class)
+    void roundTripOfIncompressibleBytes(PayloadEncoding encoding) throws Exception {
+        byte[] random = new byte[10_000];
+        new Random(1).nextBytes(random);
+
+        try (InputStream decoded = encoding.decode(encoding.encode(random))) {
+            assertThat(decoded.readAllBytes()).isEqualTo(random);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(PayloadEncoding.class)
+    void roundTripOfEmptyBody(PayloadEncoding encoding) throws Exception {
+        try (InputStream decoded = encoding.decode(encoding.encode(new byte[0]))) {
+            assertThat(decoded.readAllBytes()).isEmpty();
+        }
+    }
+
+    @Test
+    void compressingEncodingsShrinkRepetitiveBodies() {
+        assertThat(PayloadEncoding.IDENTITY.encode(PAYLOAD)).isSameAs(PAYLOAD);
+        assertThat(PayloadEncoding.GZIP.encode(PAYLOAD).length).isLessThan(PAYLOAD.length / 10);
+        assertThat(PayloadEncoding.ZSTD.encode(PAYLOAD).length).isLessThan(PAYLOAD.length / 10);
+    }
+
+    @ParameterizedTest
+    @EnumSource(PayloadEncoding.class)
+    void headerNamesTheEncoding(PayloadEncoding encoding) {
+        assertThat(PayloadEncoding.fromHeader(encoding.getHeader())).isEqualTo(encoding);
+        assertThat(PayloadEncoding.fromHeader(" " + encoding.getHeader().toUpperCase() + " ")).isEqualTo(encoding);
+    }
+
+    @Test
+    void missingHeaderMeansIdentity() {
+        assertThat(PayloadEncoding.fromHeader(null)).isEqualTo(PayloadEncoding.IDENTITY);
+        assertThat(PayloadEncoding.fromHeader("")).isEqualTo(PayloadEncoding.IDENTITY);
+        assertThat(PayloadEncoding.fromHeader("none")).isEqualTo(PayloadEncoding.IDENTITY);
+    }
+
+    @Test
+    void unknownHeaderIsRejected() {
+        assertThatThrownBy(() -> PayloadEncoding.fromHeader("br"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,147 @@
+package com.owmetagg.utils;
+
+import com.owmetagg.dtos.ParsedPlayerDTO;
+import com.owmetagg.dtos.ParsedPlayerDTO.HeroStatRow;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PlayerRowsCodecTest {
+
+    @Test
+    void roundTrip() throws IOException {
+        ParsedPlayerDTO player = ParsedPlayerDTO.builder()
+                .battletag("Player#1234")
+                .platform("pc")
+                .username("Player")
+                .avatarUrl("https://d15f34w2p8l1cc.cloudfront.net/overwatch/avatar.png")
+                .tankRating(2750)
+                .damageRating(3125)
+                .supportRating(1980)
+                .openRating(2400)
+                .skillRating(3125)
+                .heroStats(List.of(
+                        row("ana", (short) 1, 120, 98, 3, 2400, 1500, 800, 2600, 450_000, 1_900_000),
+                        row("reinhardt", (short) 2, 0, 0, 0, 0, 0, 0, 0, 0, 0)))
+                .build();
+
+        assertThat(roundTrip(player)).isEqualTo(player);
+    }
+
+    @Test
+    void missingRatingsAndFieldsStayMissing() throws IOException {
+        ParsedPlayerDTO player = ParsedPlayerDTO.builder()
+                .battletag("Player#1234")
+                .platform("console")
+                .supportRating(4600)
+                .skillRating(4600)
+                .build();
+
+        ParsedPlayerDTO decoded = roundTrip(player);
+
+        assertThat(decoded).isEqualTo(player);
+        assertThat(decoded.getUsername()).isNull();
+        assertThat(decoded.getAvatarUrl()).isNull();
+        assertThat(decoded.getTankRating()).isNull();
+        assertThat(decoded.getHeroStats()).isEmpty();
+    }
+
+    @Test
+    void emptyAndNonAsciiStringsRoundTrip() throws IOException {
+        ParsedPlayerDTO player = ParsedPlayerDTO.builder()
+                .battletag("Zoë#21795")
+                .platform("pc")
+                .username("")
+                .heroStats(List.of(row("torbjörn", (short) 1, 1, 0, 0, 5, 1, 1, 1, 1, 1)))
+                .build();
+
+        assertThat(roundTrip(player)).isEqualTo(player);
+    }
+
+    @Test
+    void largeAndNegativeValuesRoundTrip() throws IOException {
+        ParsedPlayerDTO player = ParsedPlayerDTO.builder()
+                .battletag("Player#1234")
+                .platform("pc")
+                .heroStats(List.of(row("mercy", Short.MAX_VALUE, Integer.MAX_VALUE, -1, Integer.MIN_VALUE, 0,
+                        Long.MAX_VALUE, Long.MIN_VALUE, -1, 1L << 40, 0)))
+                .build();
+
+        assertThat(roundTrip(player)).isEqualTo(player);
+    }
+
+    @Test
+    void smallValuesTakeOneByte() {
+        ParsedPlayerDTO empty = ParsedPlayerDTO.builder().battletag("A#1").platform("pc").build();
+        ParsedPlayerDTO oneRow = ParsedPlayerDTO.builder().battletag("A#1").platform("pc")
+                .heroStats(List.of(row("ana", (short) 1, 1, 2, 3, 4, 5, 6, 7, 8, 9)))
+                .build();
+
+        // Key: length byte + 3 bytes; game mode and nine stats: one byte each
+        assertThat(PlayerRowsCodec.encode(oneRow).length - PlayerRowsCodec.encode(empty).length)
+                .isEqualTo(4 + 10);
+    }
+
+    @Test
+    void otherVersionsAreRejected() {
+        byte[] encoded = PlayerRowsCodec.encode(ParsedPlayerDTO.builder().battletag("A#1").platform("pc").build());
+        encoded[0] = (byte) (PlayerRowsCodec.VERSION + 1);
+
+        assertThatThrownBy(() -> PlayerRowsCodec.decode(new ByteArrayInputStream(encoded)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Unsupported player rows version " + (PlayerRowsCodec.VERSION + 1));
+    }
+
+    @Test
+    void truncatedBodyIsRejected() {
+        ParsedPlayerDTO player = ParsedPlayerDTO.builder()
+                .battletag("Player#1234")
+                .platform("pc")
+                .heroStats(List.of(row("ana", (short) 1, 120, 98, 3, 2400, 1500, 800, 2600, 450_000, 1_900_000)))
+                .build();
+        byte[] encoded = PlayerRowsCodec.encode(player);
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 2);
+
+        assertThatThrownBy(() -> PlayerRowsCodec.decode(new ByteArrayInputStream(truncated)))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void malformedVarintIsRejected() {
+        byte[] body = new byte[12];
+        body[0] = PlayerRowsCodec.VERSION;
+        // Battletag length whose continuation bit never ends
+        Arrays.fill(body, 1, body.length, (byte) 0xFF);
+
+        assertThatThrownBy(() -> PlayerRowsCodec.decode(new ByteArrayInputStream(body)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Malformed varint");
+    }
+
+    private static ParsedPlayerDTO roundTrip(ParsedPlayerDTO player) throws IOException {
+        return PlayerRowsCodec.decode(new ByteArrayInputStream(PlayerRowsCodec.encode(player)));
+    }
+
+    private static HeroStatRow row(String heroKey, short gameModeId, int wins, int losses, int draws, int timePlayed,
+                                   long eliminations, long deaths, long assists, long damageDealt, long healingDone) {
+        return HeroStatRow.builder()
+                .heroKey(heroKey)
+                .gameModeId(gameModeId)
+                .wins(wins)
+                .losses(losses)
+                .draws(draws)
+                .timePlayed(timePlayed)
+                .eliminations(eliminations)
+                .deaths(deaths)
+                .assists(assists)
+                .damageDealt(damageDealt)
+                .healingDone(healingDone)
+                .build();
+    }
+}